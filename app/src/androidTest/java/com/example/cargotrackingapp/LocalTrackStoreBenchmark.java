@@ -0,0 +1,113 @@
+package com.example.cargotrackingapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+// Insert throughput and query latency of LocalTrackStore at 1M rows, on a device.
+// SQLite is not available to the JVM benchmark module, so this runs as an
+// instrumented test and reports through logcat (tag LocalTrackStoreBench).
+@RunWith(AndroidJUnit4.class)
+public class LocalTrackStoreBenchmark {
+
+    private static final String TAG = "LocalTrackStoreBench";
+    private static final String DATABASE = "benchmark_tracks.db";
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH = 1000;
+    private static final int TRIPS = 50;
+    private static final int QUERIES = 200;
+
+    private Context context;
+    private LocalTrackStore store;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE);
+        store = new LocalTrackStore(context, DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        context.deleteDatabase(DATABASE);
+    }
+
+    @Test
+    public void insertAndQueryMillionRows() {
+        // Trips of a truck-like random walk around Cairo, inserted in transactions of BATCH
+        Random random = new Random(42);
+        double lat = 30.0444, lon = 31.2357, heading = 0;
+        long time = 1_700_000_000_000L;
+        long insertNanos = 0;
+        List<LocationPoint> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.2;
+            lat += Math.cos(heading) * 100 / Geodesy.METRES_PER_DEGREE;
+            lon += Math.sin(heading) * 100 / (Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+            time += 5000;
+            batch.add(new LocationPoint(lat, lon, time, 5, 20));
+            if (batch.size() == BATCH) {
+                long start = System.nanoTime();
+                store.insert("bench", "trip" + (i * TRIPS / ROWS), batch);
+                insertNanos += System.nanoTime() - start;
+                batch.clear();
+            }
+        }
+        assertEquals(ROWS, store.getPointCount());
+        Log.i(TAG, String.format("insert: %.0f rows/s", ROWS / (insertNanos / 1e9)));
+
+        // Trip time windows through the (vehicle, trip, timestamp) key
+        long[] windowNanos = new long[QUERIES];
+        int rows = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            String tripId = "trip" + random.nextInt(TRIPS);
+            long start = System.nanoTime();
+            List<LocationPoint> points = store.load("bench", tripId, time - random.nextInt(ROWS) * 5000L);
+            windowNanos[q] = System.nanoTime() - start;
+            rows += points.size();
+        }
+        report("trip window", windowNanos, rows);
+
+        // 1 km boxes along the walk through the geohash index
+        long[] boxNanos = new long[QUERIES];
+        rows = 0;
+        double half = 500 / Geodesy.METRES_PER_DEGREE;
+        for (int q = 0; q < QUERIES; q++) {
+            double centreLat = 30.0444 + (random.nextDouble() - 0.5) * 0.5;
+            double centreLon = 31.2357 + (random.nextDouble() - 0.5) * 0.5;
+            long start = System.nanoTime();
+            List<LocationPoint> points = store.queryBox(centreLat - half, centreLon - half,
+                    centreLat + half, centreLon + half, Long.MIN_VALUE, Long.MAX_VALUE);
+            boxNanos[q] = System.nanoTime() - start;
+            rows += points.size();
+        }
+        report("bounding box", boxNanos, rows);
+
+        // Delta sync starting point
+        long start = System.nanoTime();
+        assertEquals(time, store.getLastTimestamp("bench", "trip" + (TRIPS - 1)));
+        Log.i(TAG, String.format("last timestamp: %.2f ms", (System.nanoTime() - start) / 1e6));
+    }
+
+    private static void report(String name, long[] nanos, int rows) {
+        Arrays.sort(nanos);
+        Log.i(TAG, String.format("%s: p50=%.2f ms p90=%.2f ms max=%.2f ms, %d rows", name,
+                nanos[nanos.length / 2] / 1e6, nanos[nanos.length * 9 / 10] / 1e6,
+                nanos[nanos.length - 1] / 1e6, rows));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.cargotrackingapp;
+
+import java.util.Arrays;
+
+// Chooses how often to ask for fixes from the truck's motion. Fed with every
+// accepted fix, and ticked periodically so it can park a truck whose distance
+// filter has silenced it, it moves between PARKED, SLOW, CRUISING and MANOEUVRING
+// and reports when the location request should be re-issued. It also keeps track of
+// how many fixes the fixed 10 s schedule would have produced, so the saving can
+// be reported.
+public class AdaptiveSamplingScheduler {
+
+    // Requested receiver power level, mapped to a location Priority by the caller
+    public enum Power {
+        HIGH_ACCURACY,
+        BALANCED
+    }
+
+    public enum Profile {
+        PARKED(60000, 30000, 50, Power.BALANCED),
+        SLOW(10000, 5000, 10, Power.HIGH_ACCURACY),
+        CRUISING(15000, 10000, 50, Power.HIGH_ACCURACY),
+        MANOEUVRING(5000, 2000, 5, Power.HIGH_ACCURACY);
+
+        public final long intervalMillis;
+        public final long minIntervalMillis;
+        public final float minDistanceMeters;
+        public final Power power;
+
+        Profile(long intervalMillis, long minIntervalMillis, float minDistanceMeters, Power power) {
+            this.intervalMillis = intervalMillis;
+            this.minIntervalMillis = minIntervalMillis;
+            this.minDistanceMeters = minDistanceMeters;
+            this.power = power;
+        }
+    }
+
+    // The schedule this replaces: one fix every 10 s regardless of motion
+    public static final long FIXED_INTERVAL_MS = 10000;
+
+    private static final double STOPPED_SPEED_MPS = 1;
+    private static final double MOVING_SPEED_MPS = 2;
+    private static final double CRUISING_SPEED_MPS = 14; // ~50 km/h
+    private static final long PARK_AFTER_MS = 120000;
+    private static final double TURN_DEGREES = 30;
+    private static final double SPEED_CHANGE_MPS = 4;
+    private static final long MANOEUVRE_HOLD_MS = 30000;
+    private static final double MIN_HEADING_DISTANCE_M = 15;
+
+    private Profile profile = Profile.SLOW;
+
+    private boolean hasFix = false;
+    private long lastTimestamp;
+    private double lastLat, lastLon, lastSpeed;
+    private double heading = Double.NaN;
+    private long stoppedSince = -1;
+    private long manoeuvreUntil = 0;
+
+    // Savings accounting
+    private long firstTimestamp;
+    private long fixCount = 0;
+    private long profileChanges = 0;
+    private final long[] timeInProfile = new long[Profile.values().length];
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    // Feed an accepted fix; returns true if the profile changed and the location
+    // request should be re-issued
+    public boolean onFix(long timestamp, double latitude, double longitude, double speed) {
+        fixCount++;
+        if (!hasFix) {
+            hasFix = true;
+            firstTimestamp = timestamp;
+            if (speed < STOPPED_SPEED_MPS) stoppedSince = timestamp;
+            remember(timestamp, latitude, longitude, speed);
+            return false;
+        }
+        long dt = timestamp - lastTimestamp;
+        if (dt <= 0) return false;
+        timeInProfile[profile.ordinal()] += dt;
+
+        // Heading from displacement, only once the truck has moved far enough for it to mean something
+        double dy = (latitude - lastLat) * Geodesy.METRES_PER_DEGREE;
+        double dx = (longitude - lastLon) * Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        boolean turned = false;
+        if (Math.hypot(dx, dy) >= MIN_HEADING_DISTANCE_M) {
+            double newHeading = Math.toDegrees(Math.atan2(dx, dy));
+            if (!Double.isNaN(heading)) turned = angleBetween(heading, newHeading) >= TURN_DEGREES;
+            heading = newHeading;
+        }
+        boolean speedChanged = Math.abs(speed - lastSpeed) >= SPEED_CHANGE_MPS;
+
+        if (speed < STOPPED_SPEED_MPS) {
+            if (stoppedSince < 0) stoppedSince = timestamp;
+        } else if (speed >= MOVING_SPEED_MPS) {
+            stoppedSince = -1;
+        }
+        if ((turned || speedChanged) && speed >= MOVING_SPEED_MPS) {
+            manoeuvreUntil = timestamp + MANOEUVRE_HOLD_MS;
+        }
+
+        remember(timestamp, latitude, longitude, speed);
+        return setProfile(nextProfile(timestamp, speed));
+    }
+
+    // Called periodically with the current time on the clock fixes are stamped with.
+    // Under a distance filter a stationary truck gets few fixes or none at all, so
+    // silence counts as standing still: after PARK_AFTER_MS with no fix, or only
+    // stopped ones, the truck is parked. Returns true if the profile changed.
+    public boolean onTick(long now) {
+        if (!hasFix || profile == Profile.PARKED) return false;
+        long stationarySince = stoppedSince >= 0 ? stoppedSince : lastTimestamp;
+        if (now - stationarySince < PARK_AFTER_MS) return false;
+        stoppedSince = stationarySince; // Stays parked until a fix shows it moving
+        return setProfile(Profile.PARKED);
+    }
+
+    private Profile nextProfile(long timestamp, double speed) {
+        if (stoppedSince >= 0 && timestamp - stoppedSince >= PARK_AFTER_MS) return Profile.PARKED;
+        // Stay parked until the truck is clearly moving again
+        if (profile == Profile.PARKED && speed < MOVING_SPEED_MPS) return Profile.PARKED;
+        if (timestamp < manoeuvreUntil) return Profile.MANOEUVRING;
+        return speed >= CRUISING_SPEED_MPS ? Profile.CRUISING : Profile.SLOW;
+    }
+
+    private boolean setProfile(Profile next) {
+        if (next == profile) return false;
+        profile = next;
+        profileChanges++;
+        return true;
+    }
+
+    private void remember(long timestamp, double latitude, double longitude, double speed) {
+        lastTimestamp = timestamp;
+        lastLat = latitude;
+        lastLon = longitude;
+        lastSpeed = speed;
+    }
+
+    private static double angleBetween(double a, double b) {
+        double d = Math.abs(a - b) % 360;
+        return d > 180 ? 360 - d : d;
+    }
+
+    // Start over, e.g. when tracking is restarted
+    public void reset() {
+        profile = Profile.SLOW;
+        hasFix = false;
+        heading = Double.NaN;
+        stoppedSince = -1;
+        manoeuvreUntil = 0;
+        fixCount = 0;
+        profileChanges = 0;
+        Arrays.fill(timeInProfile, 0);
+    }
+
+    // Position of the last fix, e.g. where the truck parked
+    public double getLastLatitude() {
+        return lastLat;
+    }
+
+    public double getLastLongitude() {
+        return lastLon;
+    }
+
+    public long getFixCount() {
+        return fixCount;
+    }
+
+    public long getProfileChanges() {
+        return profileChanges;
+    }
+
+    public long getTimeInProfile(Profile p) {
+        return timeInProfile[p.ordinal()];
+    }
+
+    // Fixes the fixed schedule would have delivered over the same period
+    public long getBaselineFixCount() {
+        if (!hasFix) return 0;
+        return (lastTimestamp - firstTimestamp) / FIXED_INTERVAL_MS + 1;
+    }
+
+    // Every fix is uploaded, so fixes saved are also point uploads saved
+    public long getFixesSaved() {
+        return getBaselineFixCount() - fixCount;
+    }
+
+    @Override
+    public String toString() {
+        return "profile=" + profile + " fixes=" + fixCount + " baseline=" + getBaselineFixCount()
+                + " saved=" + getFixesSaved() + " changes=" + profileChanges;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.cargotrackingapp;
+
+// Fixed-capacity FIFO between the thread that receives fixes and the thread that
+// processes them. When the consumer falls behind, the oldest entries are dropped
+// so the newest fix is always processed; a capacity of 1 coalesces to the latest.
+// Enqueue times are kept alongside the entries so queueing delay can be measured.
+public class BoundedFixQueue<T> {
+
+    private final Object[] items;
+    private final long[] enqueuedAt;
+    private int head = 0;
+    private int size = 0;
+
+    private long offered = 0;
+    private long dropped = 0;
+    private int maxDepth = 0;
+    private long lastEnqueuedAt;
+
+    public BoundedFixQueue(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        items = new Object[capacity];
+        enqueuedAt = new long[capacity];
+    }
+
+    // Add an entry; returns true if an older entry had to be dropped to make room
+    public synchronized boolean offer(T item, long nowNanos) {
+        offered++;
+        boolean overflow = size == items.length;
+        if (overflow) {
+            items[head] = null;
+            head = (head + 1) % items.length;
+            size--;
+            dropped++;
+        }
+        int tail = (head + size) % items.length;
+        items[tail] = item;
+        enqueuedAt[tail] = nowNanos;
+        size++;
+        if (size > maxDepth) maxDepth = size;
+        return overflow;
+    }
+
+    // Remove the oldest entry, or return null when empty. Its enqueue time is
+    // available from getLastEnqueuedAt until the next poll.
+    @SuppressWarnings("unchecked")
+    public synchronized T poll() {
+        if (size == 0) return null;
+        T item = (T) items[head];
+        lastEnqueuedAt = enqueuedAt[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        size--;
+        return item;
+    }
+
+    public synchronized long getLastEnqueuedAt() {
+        return lastEnqueuedAt;
+    }
+
+    public synchronized int getDepth() {
+        return size;
+    }
+
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public synchronized long getOfferedCount() {
+        return offered;
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public synchronized void clear() {
+        while (size > 0) poll();
+    }
+}
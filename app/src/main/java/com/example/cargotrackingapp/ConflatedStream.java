@@ -0,0 +1,87 @@
+package com.example.cargotrackingapp;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Typed in-process stream of values with per-subscriber conflation. Every
+// subscriber has one pending slot and one delivery task on its own executor: a
+// publish overwrites the slot and schedules the task only if it is not already
+// queued, so a slow subscriber skips straight to the latest value and publishing
+// allocates nothing. New subscribers receive the latest value first, if any.
+public class ConflatedStream<T> {
+
+    public interface Observer<T> {
+        void onUpdate(T value);
+    }
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final CopyOnWriteArrayList<Subscriber<T>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile T latest;
+
+    // Hand a value to every subscriber; safe to call from any thread
+    public void publish(T value) {
+        latest = value;
+        for (Subscriber<T> subscriber : subscribers) subscriber.offer(value);
+    }
+
+    public T getLatest() {
+        return latest;
+    }
+
+    // Forget the latest value, e.g. when tracking stops
+    public void clear() {
+        latest = null;
+    }
+
+    // Deliver values to the observer on the executor until the subscription is cancelled
+    public Subscription subscribe(Executor executor, Observer<T> observer) {
+        Subscriber<T> subscriber = new Subscriber<>(this, executor, observer);
+        subscribers.add(subscriber);
+        T current = latest;
+        if (current != null) subscriber.offer(current);
+        return subscriber;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private static final class Subscriber<T> implements Subscription, Runnable {
+        private final ConflatedStream<T> stream;
+        private final Executor executor;
+        private final Observer<T> observer;
+        private final AtomicReference<T> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean cancelled = false;
+
+        Subscriber(ConflatedStream<T> stream, Executor executor, Observer<T> observer) {
+            this.stream = stream;
+            this.executor = executor;
+            this.observer = observer;
+        }
+
+        void offer(T value) {
+            pending.set(value);
+            if (scheduled.compareAndSet(false, true)) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            scheduled.set(false);
+            T value = pending.getAndSet(null);
+            if (value != null && !cancelled) observer.onUpdate(value);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            pending.set(null);
+            stream.subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.cargotrackingapp;
+
+import android.util.Log;
+
+// Debug logging for hot paths that costs nothing in release builds. Each method
+// returns before building a message unless ENABLED, and the overloads take the
+// values separately so call sites neither concatenate nor box; the message is the
+// prefix followed by the values. Call sites that must build a message themselves
+// should test ENABLED first.
+public final class DebugLog {
+
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+
+    private DebugLog() {
+    }
+
+    public static void d(String tag, String message) {
+        if (ENABLED) Log.d(tag, message);
+    }
+
+    public static void d(String tag, String prefix, long value) {
+        if (ENABLED) Log.d(tag, prefix + value);
+    }
+
+    // Two values separated by ", ", e.g. a position
+    public static void d(String tag, String prefix, double a, double b) {
+        if (ENABLED) Log.d(tag, prefix + a + ", " + b);
+    }
+
+    public static void d(String tag, String prefix, Object value) {
+        if (ENABLED) Log.d(tag, prefix + value);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cargotrackingapp;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+// Writes each batch of points as one segment document whose points are packed
+// with TrackSegmentCodec, instead of one document per fix. Segments go into the
+// partition of the trip their points were recorded in, together with the live
+// trip's updated summary and the vehicle's latest position. A batch that holds
+// points replayed from an earlier trip is written as one segment per trip.
+//
+// Segment ids are derived from the trip and the first point's journal sequence, so
+// a run sent again after a commit that did land (journal replay after a crash, a
+// completion the app never saw, the sync worker) overwrites its own document
+// instead of adding a duplicate.
+//
+// The position document is what the fleet view shows, so it must never go back in
+// time. Replayed points may be older than a position an earlier instance already
+// committed, so only live-trip points move it, and only past the newest position
+// this sink has committed; retries and late batches leave it alone.
+// Commits complete on the given executor, so the next batch is encoded there
+// rather than on the main thread.
+public class FirestoreLocationSink implements LocationBatchUploader.Sink {
+
+    // Each segment lists the geohash cells its points fall in at these precisions,
+    // stored as "cells<precision>", so region queries can pick a matching level
+    static final int[] CELL_PRECISIONS = {4, 5, 6};
+
+    private final FirebaseFirestore db;
+    private final String vehicleId;
+    private final Supplier<TripSession> session;
+    private final Executor callbackExecutor;
+    // Time of the newest position committed; only touched on the uploader's thread
+    private long positionTimestamp = Long.MIN_VALUE;
+
+    // session supplies the live trip, whose summary is written with any batch that
+    // holds its points; it has no say in where points go, as each carries its own
+    // trip id, and points without one go to the vehicle partition. callbackExecutor
+    // runs the completion callbacks, normally the uploader's own thread.
+    public FirestoreLocationSink(FirebaseFirestore db, String vehicleId, Supplier<TripSession> session,
+                                 Executor callbackExecutor) {
+        this.db = db;
+        this.vehicleId = vehicleId;
+        this.session = session;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    @Override
+    public void write(List<LocationPoint> points, LocationBatchUploader.Callback callback) {
+        TripSession current = session.get();
+        LocationPoint newest = null; // Newest point of the live trip
+        WriteBatch batch = db.batch();
+        for (List<LocationPoint> run : LocationPoint.splitByTrip(points)) {
+            String tripId = run.get(0).tripId;
+            batch.set(segment(db, vehicleId, run), toDocument(run, vehicleId, tripId));
+            if (current != null && current.tripId.equals(tripId)) {
+                for (LocationPoint point : run) {
+                    if (newest == null || point.timestamp > newest.timestamp) newest = point;
+                }
+            }
+        }
+        LocationPoint position = newest != null && newest.timestamp > positionTimestamp ? newest : null;
+        if (position != null) {
+            batch.set(TripSession.position(db, vehicleId), positionFields(position, vehicleId));
+        }
+        if (newest != null) {
+            Map<String, Object> trip = new HashMap<>();
+            trip.put("summary", current.summary.toMap());
+            trip.put("stats", current.analyzer.toMap());
+            batch.set(current.document(db), trip, SetOptions.merge());
+        }
+        batch.commit().addOnCompleteListener(callbackExecutor, task -> {
+            if (task.isSuccessful() && position != null) {
+                positionTimestamp = Math.max(positionTimestamp, position.timestamp);
+            }
+            callback.onComplete(task.isSuccessful(), task.getException());
+        });
+    }
+
+    // Document for a run of one trip's points, named after its first point
+    static DocumentReference segment(FirebaseFirestore db, String vehicleId, List<LocationPoint> run) {
+        String tripId = run.get(0).tripId;
+        return TripSession.segments(db, vehicleId, tripId).document(segmentId(tripId, vehicleId, run.get(0)));
+    }
+
+    // "<trip>-<sequence>"; points that were never journaled fall back to their time
+    static String segmentId(@Nullable String tripId, String vehicleId, LocationPoint first) {
+        String prefix = tripId != null ? tripId : vehicleId;
+        return first.sequence != LocationPoint.NO_SEQUENCE
+                ? prefix + "-" + first.sequence
+                : prefix + "-t" + first.timestamp;
+    }
+
+    // Start and end times let readers select segments by time window without decoding them
+    static Map<String, Object> toDocument(List<LocationPoint> points, String vehicleId,
+                                                  @Nullable String tripId) {
+        long startTime = Long.MAX_VALUE, endTime = Long.MIN_VALUE;
+        for (LocationPoint point : points) {
+            startTime = Math.min(startTime, point.timestamp);
+            endTime = Math.max(endTime, point.timestamp);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("vehicleId", vehicleId);
+        data.put("tripId", tripId);
+        data.put("startTime", startTime);
+        data.put("endTime", endTime);
+        data.put("count", points.size());
+        data.put("points", Blob.fromBytes(TrackSegmentCodec.encode(points)));
+        for (int precision : CELL_PRECISIONS) {
+            data.put(cellField(precision), cellKeys(points, precision));
+        }
+        return data;
+    }
+
+    // The vehicle's latest position, with the trip it was recorded in
+    private static Map<String, Object> positionFields(LocationPoint newest, String vehicleId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("vehicleId", vehicleId);
+        data.put("tripId", newest.tripId);
+        data.put("latitude", newest.latitude);
+        data.put("longitude", newest.longitude);
+        data.put("timestamp", newest.timestamp);
+        if (!Float.isNaN(newest.speed)) data.put("speed", newest.speed);
+        return data;
+    }
+
+    static String cellField(int precision) {
+        return "cells" + precision;
+    }
+
+    // Distinct cells visited by the points, in order of first visit
+    static List<String> cellKeys(List<LocationPoint> points, int precision) {
+        Set<String> cells = new LinkedHashSet<>();
+        for (LocationPoint point : points) {
+            cells.add(GeoHash.encodeToString(point.latitude, point.longitude, precision));
+        }
+        return new ArrayList<>(cells);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.cargotrackingapp;
+
+// A stage that decides whether a fix is kept, taking primitives so it can run
+// per fix without allocating. Unknown accuracy or speed is passed as NaN.
+public interface FixFilter {
+
+    // Why the last fix was rejected
+    enum Rejection {
+        NONE,
+        NULL_ISLAND,
+        INACCURATE,
+        OUT_OF_ORDER,
+        IMPLIED_SPEED
+    }
+
+    // Returns true if the fix is kept
+    boolean accept(long timestamp, double latitude, double longitude, float accuracy, float speed);
+
+    Rejection getLastRejection();
+
+    // Forget all state, e.g. at the start of a new trip
+    void reset();
+}
@@ -0,0 +1,211 @@
+package com.example.cargotrackingapp;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+// The per-fix tracking pipeline: outlier filter, trip statistics, geofences,
+// adaptive sampling, then journal and batched storage. It has no Android
+// dependencies, so LocationService and the fleet simulator run the same code;
+// what differs is the listener (notifications, the UI bus) and the uploaders'
+// sinks. Not thread-safe: process() is called from one thread at a time.
+public class FixProcessor {
+
+    public interface Listener {
+        // A fix passed the filter; called with the smoothed position before it is stored
+        void onAccepted(LocationPoint point);
+
+        // The sampling profile changed and the location request should be re-issued
+        void onProfileChanged(AdaptiveSamplingScheduler.Profile from, AdaptiveSamplingScheduler.Profile to,
+                              double latitude, double longitude);
+
+        void onGeofenceEvent(GeofenceEngine.Event event);
+    }
+
+    private final KalmanLocationFilter filter;
+    private final AdaptiveSamplingScheduler scheduler;
+    private final GeofenceEngine geofences;
+    private final LongSupplier clock;
+    private final Listener listener;
+    private final GeofenceEngine.Listener geofenceListener;
+    private final List<LocationBatchUploader> uploaders = new CopyOnWriteArrayList<>();
+    private final PipelineStats stats = new PipelineStats();
+
+    private TrackingMetrics metrics = TrackingMetrics.GLOBAL;
+    private LocationJournal journal;
+    private volatile String tripId;
+    private volatile TripSummary tripSummary;
+    private volatile TripAnalyzer tripAnalyzer;
+
+    private long acceptedCount = 0;
+    private long rejectedCount = 0;
+    private long journalErrorCount = 0;
+
+    // clock is the wall clock fixes are timestamped on; it feeds the fix age metric
+    // and the idle check in tick(), as stored points keep the time of their fix
+    public FixProcessor(KalmanLocationFilter filter, AdaptiveSamplingScheduler scheduler, GeofenceEngine geofences,
+                        LongSupplier clock, Listener listener) {
+        this.filter = filter;
+        this.scheduler = scheduler;
+        this.geofences = geofences;
+        this.clock = clock;
+        this.listener = listener;
+        this.geofenceListener = listener::onGeofenceEvent;
+    }
+
+    public static FixProcessor forTrucks(LongSupplier clock, Listener listener) {
+        return new FixProcessor(KalmanLocationFilter.forTrucks(), new AdaptiveSamplingScheduler(),
+                GeofenceEngine.forDepots(), clock, listener);
+    }
+
+    // Every accepted point is added to each uploader, in registration order
+    public void addUploader(LocationBatchUploader uploader) {
+        uploaders.add(uploader);
+    }
+
+    // Points are journaled before they are buffered so they survive a crash
+    public void setJournal(LocationJournal journal) {
+        this.journal = journal;
+    }
+
+    // Where acceptance, rejection reasons and fix-to-broadcast times are recorded
+    public void setMetrics(TrackingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // The current trip, which stored points are tagged with, and its statistics;
+    // null for the statistics skips them
+    public void setTrip(String tripId, TripSummary summary, TripAnalyzer analyzer) {
+        this.tripId = tripId;
+        tripSummary = summary;
+        tripAnalyzer = analyzer;
+    }
+
+    // Forget filter, sampling and geofence state, e.g. when tracking restarts
+    public void reset() {
+        filter.reset();
+        scheduler.reset();
+        geofences.reset();
+    }
+
+    public boolean process(LocationPoint fix) {
+        return process(fix, System.nanoTime());
+    }
+
+    // Run one raw fix through the pipeline; returns true if it was accepted and stored.
+    // receivedNanos is when the fix arrived from its source, on System.nanoTime().
+    public boolean process(LocationPoint fix, long receivedNanos) {
+        // Reject outliers and smooth the rest
+        long start = System.nanoTime();
+        boolean accepted = filter.accept(fix.timestamp, fix.latitude, fix.longitude, fix.accuracy, fix.speed);
+        long filtered = System.nanoTime();
+        stats.record(PipelineStats.Stage.FILTER, filtered - start);
+        if (!accepted) {
+            rejectedCount++;
+            metrics.rejected(filter.getLastRejection());
+            return false;
+        }
+        acceptedCount++;
+        metrics.increment(TrackingMetrics.Counter.FIXES_ACCEPTED);
+        metrics.record(TrackingMetrics.Timer.FIX_AGE, Math.max(0, clock.getAsLong() - fix.timestamp) * 1000000);
+
+        double latitude = filter.getLatitude();
+        double longitude = filter.getLongitude();
+        TripSummary summary = tripSummary;
+        if (summary != null) summary.add(fix.timestamp, latitude, longitude);
+        TripAnalyzer analyzer = tripAnalyzer;
+        if (analyzer != null) analyzer.add(fix.timestamp, latitude, longitude, filter.getSpeed());
+
+        // Arrivals and departures at depots and delivery zones
+        geofences.onFix(fix.timestamp, latitude, longitude, geofenceListener);
+        long fenced = System.nanoTime();
+        stats.record(PipelineStats.Stage.GEOFENCE, fenced - filtered);
+
+        // Re-issue the location request when the truck's motion state changes
+        AdaptiveSamplingScheduler.Profile previousProfile = scheduler.getProfile();
+        if (scheduler.onFix(fix.timestamp, latitude, longitude, filter.getSpeed())) {
+            listener.onProfileChanged(previousProfile, scheduler.getProfile(), latitude, longitude);
+        }
+        listener.onAccepted(new LocationPoint(latitude, longitude, fix.timestamp, fix.accuracy, fix.speed));
+        long notified = System.nanoTime();
+        stats.record(PipelineStats.Stage.NOTIFY, notified - fenced);
+        metrics.record(TrackingMetrics.Timer.FIX_TO_BROADCAST, notified - receivedNanos);
+
+        store(fix.timestamp, latitude, longitude, fix.accuracy, fix.speed);
+        stats.record(PipelineStats.Stage.STORE, System.nanoTime() - notified);
+        return true;
+    }
+
+    // Journal the location and queue it for the next batched writes. The point keeps
+    // its fix time, like the filter, trip statistics and geofences, so fixes
+    // delivered together in one batch stay apart and in order.
+    private void store(long timestamp, double latitude, double longitude, float accuracy, float speed) {
+        String trip = tripId;
+        long sequence = LocationPoint.NO_SEQUENCE;
+        if (journal != null) {
+            try {
+                sequence = journal.append(trip, timestamp, latitude, longitude, accuracy, speed);
+            } catch (IOException e) {
+                // The point is still uploaded, just without crash protection
+                journalErrorCount++;
+                metrics.increment(TrackingMetrics.Counter.JOURNAL_ERRORS);
+            }
+        }
+        LocationPoint point = new LocationPoint(latitude, longitude, timestamp, accuracy, speed, sequence, trip);
+        for (LocationBatchUploader uploader : uploaders) {
+            uploader.add(point);
+        }
+    }
+
+    // Let the sampling scheduler notice a truck that has stopped sending fixes;
+    // called periodically on the processing thread
+    public void tick() {
+        AdaptiveSamplingScheduler.Profile previousProfile = scheduler.getProfile();
+        if (scheduler.onTick(clock.getAsLong())) {
+            listener.onProfileChanged(previousProfile, scheduler.getProfile(),
+                    scheduler.getLastLatitude(), scheduler.getLastLongitude());
+        }
+    }
+
+    // Flush uploaders whose oldest point has waited too long
+    public void flushIfDue() {
+        for (LocationBatchUploader uploader : uploaders) {
+            uploader.flushIfDue();
+        }
+    }
+
+    public void flush() {
+        for (LocationBatchUploader uploader : uploaders) {
+            uploader.flush();
+        }
+    }
+
+    public KalmanLocationFilter getFilter() {
+        return filter;
+    }
+
+    public AdaptiveSamplingScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public GeofenceEngine getGeofences() {
+        return geofences;
+    }
+
+    public PipelineStats getStats() {
+        return stats;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getJournalErrorCount() {
+        return journalErrorCount;
+    }
+}
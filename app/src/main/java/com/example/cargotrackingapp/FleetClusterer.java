@@ -0,0 +1,121 @@
+package com.example.cargotrackingapp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Grid clustering of fleet positions for the map. At a given zoom level the world
+// is cut into square cells of cellPixels on screen (in Web Mercator, like the map
+// tiles); vehicles sharing a cell with enough others are drawn as one cluster at
+// their centroid. One pass with a hash map, so hundreds of trucks cluster well
+// within a frame. Cells are fixed to the whole zoom level, which keeps item keys
+// stable while the camera pans and lets the renderer update markers in place.
+public class FleetClusterer {
+
+    private static final double TILE_PIXELS = 256;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    // A single vehicle (vehicleId set, count 1) or a cluster (vehicleId null)
+    public static final class Item {
+        public final String key;
+        public final String vehicleId;
+        public final double latitude;
+        public final double longitude;
+        public final int count;
+
+        Item(String key, String vehicleId, double latitude, double longitude, int count) {
+            this.key = key;
+            this.vehicleId = vehicleId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+        }
+
+        public boolean isCluster() {
+            return vehicleId == null;
+        }
+    }
+
+    private static final class Cell {
+        final long x, y;
+        final List<FleetPositions.Position> members = new ArrayList<>(4);
+
+        Cell(long x, long y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private final double cellPixels;
+    private final int minClusterSize;
+    private final int maxClusterZoom;
+
+    // Above maxClusterZoom every vehicle is drawn on its own
+    public FleetClusterer(double cellPixels, int minClusterSize, int maxClusterZoom) {
+        if (cellPixels <= 0 || minClusterSize < 2) throw new IllegalArgumentException("Invalid clustering settings");
+        this.cellPixels = cellPixels;
+        this.minClusterSize = minClusterSize;
+        this.maxClusterZoom = maxClusterZoom;
+    }
+
+    // 80 dp cells from 3 trucks up, no clustering from street level on
+    public static FleetClusterer forMap() {
+        return new FleetClusterer(80, 3, 15);
+    }
+
+    public List<Item> cluster(Collection<FleetPositions.Position> positions, double zoom) {
+        List<Item> items = new ArrayList<>(positions.size());
+        int level = (int) Math.floor(zoom);
+        if (level > maxClusterZoom) {
+            for (FleetPositions.Position position : positions) items.add(vehicle(position));
+            return items;
+        }
+
+        double cellsPerWorld = TILE_PIXELS * Math.pow(2, level) / cellPixels;
+        Map<Long, Cell> cells = new HashMap<>();
+        for (FleetPositions.Position position : positions) {
+            long x = (long) Math.floor(mercatorX(position.longitude) * cellsPerWorld);
+            long y = (long) Math.floor(mercatorY(position.latitude) * cellsPerWorld);
+            Long cellKey = x << 32 | (y & 0xffffffffL);
+            Cell cell = cells.get(cellKey);
+            if (cell == null) {
+                cell = new Cell(x, y);
+                cells.put(cellKey, cell);
+            }
+            cell.members.add(position);
+        }
+
+        for (Cell cell : cells.values()) {
+            int count = cell.members.size();
+            if (count < minClusterSize) {
+                for (FleetPositions.Position position : cell.members) items.add(vehicle(position));
+                continue;
+            }
+            double latitude = 0, longitude = 0;
+            for (FleetPositions.Position position : cell.members) {
+                latitude += position.latitude;
+                longitude += position.longitude;
+            }
+            items.add(new Item("cell/" + level + "/" + cell.x + "/" + cell.y, null,
+                    latitude / count, longitude / count, count));
+        }
+        return items;
+    }
+
+    private static Item vehicle(FleetPositions.Position position) {
+        return new Item(position.vehicleId, position.vehicleId, position.latitude, position.longitude, 1);
+    }
+
+    // Position across the world map, 0 at 180 W to 1 at 180 E
+    static double mercatorX(double longitude) {
+        return Math.min(Math.max((longitude + 180) / 360, 0), Math.nextDown(1.0));
+    }
+
+    // Position down the world map, 0 at the top edge to 1 at the bottom
+    static double mercatorY(double latitude) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude))));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cargotrackingapp;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+// Follows the fleet's latest positions with one snapshot listener on the
+// positions collection. Only the document changes of each snapshot are applied,
+// so after the initial load each event costs as much as the trucks that moved.
+// Callbacks arrive on the main thread.
+public class FleetFeed implements EventListener<QuerySnapshot> {
+
+    private static final String TAG = "FleetFeed";
+
+    private final FirebaseFirestore db;
+    private final FleetPositions positions;
+    private final Runnable onChanged;
+    private ListenerRegistration registration;
+
+    // onChanged runs after each snapshot that changed a position
+    public FleetFeed(FirebaseFirestore db, FleetPositions positions, Runnable onChanged) {
+        this.db = db;
+        this.positions = positions;
+        this.onChanged = onChanged;
+    }
+
+    // The first snapshot lists every vehicle as added, so positions start over;
+    // whatever is on the map stays until that snapshot replaces it
+    public void start() {
+        if (registration != null) return;
+        positions.clear();
+        registration = TripSession.positions(db).addSnapshotListener(this);
+    }
+
+    public void stop() {
+        if (registration == null) return;
+        registration.remove();
+        registration = null;
+    }
+
+    @Override
+    public void onEvent(@Nullable QuerySnapshot snapshot, @Nullable FirebaseFirestoreException e) {
+        if (e != null) {
+            Log.e(TAG, "Fleet position listener failed", e);
+            return;
+        }
+        if (snapshot == null || registration == null) return;
+
+        boolean changed = false;
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            DocumentSnapshot doc = change.getDocument();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                changed |= positions.remove(doc.getId());
+                continue;
+            }
+            Double latitude = doc.getDouble("latitude");
+            Double longitude = doc.getDouble("longitude");
+            Long timestamp = doc.getLong("timestamp");
+            if (latitude == null || longitude == null || timestamp == null) {
+                Log.w(TAG, "Invalid position document: " + doc.getId());
+                continue;
+            }
+            Double speed = doc.getDouble("speed");
+            changed |= positions.update(doc.getId(), latitude, longitude, timestamp,
+                    speed != null ? speed.floatValue() : Float.NaN);
+        }
+        DebugLog.d(TAG, "Fleet changes: ", snapshot.getDocumentChanges().size());
+        if (changed) onChanged.run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cargotrackingapp;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Latest known position of each vehicle in the fleet, kept up to date from the
+// changes of a position feed rather than rebuilt from a full query. Updates that
+// are older than what is already known are ignored, so a delayed or replayed
+// change never moves a truck backwards. Confined to one thread.
+public class FleetPositions {
+
+    public static final class Position {
+        public final String vehicleId;
+        public final double latitude;
+        public final double longitude;
+        public final long timestamp;
+        public final float speed; // m/s, NaN when unknown
+
+        Position(String vehicleId, double latitude, double longitude, long timestamp, float speed) {
+            this.vehicleId = vehicleId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestamp = timestamp;
+            this.speed = speed;
+        }
+    }
+
+    private final Map<String, Position> positions = new HashMap<>();
+
+    // Apply an added or modified vehicle; returns whether anything changed
+    public boolean update(String vehicleId, double latitude, double longitude, long timestamp, float speed) {
+        Position current = positions.get(vehicleId);
+        if (current != null && (timestamp < current.timestamp
+                || timestamp == current.timestamp && latitude == current.latitude && longitude == current.longitude)) {
+            return false;
+        }
+        positions.put(vehicleId, new Position(vehicleId, latitude, longitude, timestamp, speed));
+        return true;
+    }
+
+    // Apply a removed vehicle; returns whether it was known
+    public boolean remove(String vehicleId) {
+        return positions.remove(vehicleId) != null;
+    }
+
+    public void clear() {
+        positions.clear();
+    }
+
+    public Position get(String vehicleId) {
+        return positions.get(vehicleId);
+    }
+
+    public Collection<Position> getPositions() {
+        return Collections.unmodifiableCollection(positions.values());
+    }
+
+    public int size() {
+        return positions.size();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.cargotrackingapp;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.view.Choreographer;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Draws the fleet as one marker per vehicle or cluster. Position changes and zoom
+// changes only mark the view dirty; on the next frame the fleet is re-clustered
+// and diffed by item key against what is on the map, so existing markers are moved
+// or relabelled in place, new ones added and vanished ones removed, without ever
+// clearing the map. Must be used on the main thread.
+public class FleetRenderer implements Choreographer.FrameCallback {
+
+    private static final int MAX_LABELLED_COUNT = 99;
+
+    private final GoogleMap map;
+    private final FleetPositions positions;
+    private final FleetClusterer clusterer;
+    private final float density;
+
+    // Markers on the map and the items they show, by item key
+    private final Map<String, Marker> markers = new HashMap<>();
+    private final Map<String, FleetClusterer.Item> shown = new HashMap<>();
+    private final Map<Integer, BitmapDescriptor> clusterIcons = new HashMap<>();
+
+    private double zoom;
+    private boolean frameScheduled = false;
+    private boolean released = false;
+
+    public FleetRenderer(GoogleMap map, FleetPositions positions, FleetClusterer clusterer, float density) {
+        this.map = map;
+        this.positions = positions;
+        this.clusterer = clusterer;
+        this.density = density;
+        this.zoom = map.getCameraPosition().zoom;
+    }
+
+    // Positions changed; redraw on the next frame, however many changes arrive before it
+    public void invalidate() {
+        if (frameScheduled || released) return;
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    // The camera settled at a new zoom; clusters only change with the whole level
+    public void setZoom(double zoom) {
+        boolean levelChanged = Math.floor(zoom) != Math.floor(this.zoom);
+        this.zoom = zoom;
+        if (levelChanged) invalidate();
+    }
+
+    // Remove every fleet marker and stop drawing, e.g. when leaving fleet mode
+    public void release() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        frameScheduled = false;
+        released = true;
+        for (Marker marker : markers.values()) marker.remove();
+        markers.clear();
+        shown.clear();
+    }
+
+    public int getMarkerCount() {
+        return markers.size();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (released) return;
+        long start = System.nanoTime();
+        List<FleetClusterer.Item> items = clusterer.cluster(positions.getPositions(), zoom);
+
+        Map<String, FleetClusterer.Item> previous = new HashMap<>(shown);
+        shown.clear();
+        for (FleetClusterer.Item item : items) {
+            shown.put(item.key, item);
+            FleetClusterer.Item before = previous.remove(item.key);
+            Marker marker = markers.get(item.key);
+            if (marker == null) {
+                markers.put(item.key, map.addMarker(options(item)));
+                continue;
+            }
+            if (before.latitude != item.latitude || before.longitude != item.longitude) {
+                marker.setPosition(new LatLng(item.latitude, item.longitude));
+            }
+            if (item.isCluster() && before.count != item.count) {
+                marker.setIcon(clusterIcon(item.count));
+                marker.setTitle(item.count + " trucks");
+            }
+        }
+
+        // Whatever was not produced this frame has left the map or joined a cluster
+        Iterator<Map.Entry<String, Marker>> it = markers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Marker> entry = it.next();
+            if (previous.containsKey(entry.getKey())) {
+                entry.getValue().remove();
+                it.remove();
+            }
+        }
+        TrackingMetrics.GLOBAL.record(TrackingMetrics.Timer.FLEET_REDRAW, System.nanoTime() - start);
+        DebugLog.d("FleetRenderer", "Fleet markers: ", markers.size());
+    }
+
+    private MarkerOptions options(FleetClusterer.Item item) {
+        MarkerOptions options = new MarkerOptions().position(new LatLng(item.latitude, item.longitude));
+        if (item.isCluster()) {
+            return options.icon(clusterIcon(item.count)).anchor(0.5f, 0.5f).title(item.count + " trucks");
+        }
+        return options.icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_AZURE))
+                .title(item.vehicleId);
+    }
+
+    // Circle labelled with the count, cached per label
+    private BitmapDescriptor clusterIcon(int count) {
+        int label = Math.min(count, MAX_LABELLED_COUNT + 1);
+        BitmapDescriptor icon = clusterIcons.get(label);
+        if (icon != null) return icon;
+
+        int size = Math.round(36 * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(0xE01565C0);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, paint);
+        paint.setColor(0xFFFFFFFF);
+        paint.setTextSize(14 * density);
+        paint.setTextAlign(Paint.Align.CENTER);
+        String text = label > MAX_LABELLED_COUNT ? MAX_LABELLED_COUNT + "+" : Integer.toString(label);
+        canvas.drawText(text, size / 2f, size / 2f - (paint.descent() + paint.ascent()) / 2, paint);
+
+        icon = BitmapDescriptorFactory.fromBitmap(bitmap);
+        clusterIcons.put(label, icon);
+        return icon;
+    }
+}
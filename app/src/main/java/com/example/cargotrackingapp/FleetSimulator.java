@@ -0,0 +1,232 @@
+package com.example.cargotrackingapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load simulator for the tracking pipeline: N virtual trucks, each replaying a
+// trace through its own ReplayLocationSource and FixProcessor, storing into
+// in-memory sinks (and optionally a journal file per truck) with the service's
+// batching settings. All trucks share one scheduler pool, which plays the part
+// of the per-device processing threads. Runs on a plain JVM.
+//
+// What is stored depends only on the traces, never on timing, so two runs of the
+// same traces store the same points; throughput and latency are what vary.
+public class FleetSimulator {
+
+    // The service's upload settings; maxAge is measured in trace time here
+    private static final int UPLOAD_BATCH_SIZE = 50;
+    private static final long UPLOAD_MAX_AGE_MS = 60000;
+
+    public static final class Report {
+        public final int trucks;
+        public final long delivered;
+        public final long skipped;
+        public final long accepted;
+        public final long rejected;
+        public final long profileChanges;
+        public final long writes;
+        public final long pointsWritten;
+        public final long elapsedNanos;
+        public final LatencyHistogram latency;
+        // Rejection reasons, fix-to-broadcast, fix-to-persisted and write times
+        public final TrackingMetrics.Snapshot metrics;
+
+        Report(int trucks, long delivered, long skipped, long accepted, long rejected, long profileChanges,
+               long writes, long pointsWritten, long elapsedNanos, LatencyHistogram latency,
+               TrackingMetrics.Snapshot metrics) {
+            this.trucks = trucks;
+            this.delivered = delivered;
+            this.skipped = skipped;
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.profileChanges = profileChanges;
+            this.writes = writes;
+            this.pointsWritten = pointsWritten;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+            this.metrics = metrics;
+        }
+
+        // Fixes processed per wall-clock second
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : delivered * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "trucks=" + trucks + " fixes=" + delivered + " (skipped by profile " + skipped + ")"
+                    + " accepted=" + accepted + " rejected=" + rejected + " profileChanges=" + profileChanges
+                    + " writes=" + writes + " points=" + pointsWritten
+                    + " elapsed=" + elapsedNanos / 1000000 + "ms throughput="
+                    + String.format("%.0f", getThroughput()) + " fixes/s latency: " + latency
+                    + " metrics: " + metrics.toJson();
+        }
+    }
+
+    // One simulated device: source, pipeline and sink
+    private final class Truck implements LocationSource.Listener, FixProcessor.Listener {
+        final ReplayLocationSource source;
+        final FixProcessor processor;
+        final InMemoryLocationSink sink;
+        final LocationJournal journal;
+        long now;
+
+        Truck(List<LocationPoint> trace, LocationJournal journal) {
+            this.journal = journal;
+            source = new ReplayLocationSource(trace, scheduler, speedUp, this::finish);
+            processor = FixProcessor.forTrucks(() -> now, this);
+            processor.setMetrics(metrics);
+            sink = new InMemoryLocationSink(retainPoints);
+            LocationBatchUploader.Sink target = new MeasuredSink(sink, metrics,
+                    TrackingMetrics.Timer.FIRESTORE_ROUND_TRIP, TrackingMetrics.Timer.FIX_TO_PERSISTED, () -> now);
+            if (journal != null) target = new JournalAcknowledgingSink(target, journal);
+            LocationBatchUploader uploader = new LocationBatchUploader(target, UPLOAD_BATCH_SIZE, UPLOAD_MAX_AGE_MS, () -> now);
+            if (journal != null) uploader.setJournal(journal);
+            processor.addUploader(uploader);
+            processor.setJournal(journal);
+            processor.setTrip(null, new TripSummary(), TripAnalyzer.forTrucks());
+        }
+
+        @Override
+        public void onLocation(LocationPoint fix) {
+            long due = source.getDueNanos();
+            metrics.increment(TrackingMetrics.Counter.FIXES_RECEIVED);
+            now = fix.timestamp;
+            processor.process(fix, due);
+            processor.flushIfDue();
+            latency.record(System.nanoTime() - due);
+        }
+
+        @Override
+        public void onAccepted(LocationPoint point) {
+        }
+
+        @Override
+        public void onProfileChanged(AdaptiveSamplingScheduler.Profile from, AdaptiveSamplingScheduler.Profile to,
+                                     double latitude, double longitude) {
+            source.start(to, this);
+        }
+
+        @Override
+        public void onGeofenceEvent(GeofenceEngine.Event event) {
+        }
+
+        void finish() {
+            processor.flush();
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    journalErrors.incrementAndGet();
+                }
+            }
+            finished.countDown();
+        }
+    }
+
+    private final List<List<LocationPoint>> traces;
+    private final int truckCount;
+    private final double speedUp;
+    private final int threads;
+    private boolean retainPoints = false;
+    private File journalDir;
+
+    private ScheduledExecutorService scheduler;
+    private CountDownLatch finished;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private TrackingMetrics metrics;
+    private final AtomicLong journalErrors = new AtomicLong();
+    private List<Truck> trucks;
+
+    // Truck i replays traces[i % traces.size()]; a speedUp of 0 replays as fast as possible
+    public FleetSimulator(List<List<LocationPoint>> traces, int truckCount, double speedUp, int threads) {
+        if (traces.isEmpty()) throw new IllegalArgumentException("At least one trace is needed");
+        if (truckCount <= 0 || threads <= 0) throw new IllegalArgumentException("truckCount and threads must be positive");
+        this.traces = traces;
+        this.truckCount = truckCount;
+        this.speedUp = speedUp;
+        this.threads = threads;
+    }
+
+    // Keep every stored point so runs can be compared; off by default to bound memory
+    public FleetSimulator setRetainPoints(boolean retainPoints) {
+        this.retainPoints = retainPoints;
+        return this;
+    }
+
+    // Journal each truck's points to a file in this directory, as the service does
+    public FleetSimulator setJournalDir(File journalDir) {
+        this.journalDir = journalDir;
+        return this;
+    }
+
+    // Replay every truck's trace to the end and report; blocks until done
+    public Report run() throws IOException, InterruptedException {
+        scheduler = Executors.newScheduledThreadPool(threads);
+        finished = new CountDownLatch(truckCount);
+        latency.reset();
+        metrics = new TrackingMetrics();
+        metrics.snapshot(System.currentTimeMillis());
+        trucks = new ArrayList<>(truckCount);
+        try {
+            for (int i = 0; i < truckCount; i++) {
+                LocationJournal journal = journalDir != null
+                        ? LocationJournal.open(new File(journalDir, "truck-" + i + ".journal")) : null;
+                trucks.add(new Truck(traces.get(i % traces.size()), journal));
+            }
+
+            // Spread the start times over the first recorded interval so the trucks do not report in lockstep
+            long start = System.nanoTime();
+            for (int i = 0; i < truckCount; i++) {
+                Truck truck = trucks.get(i);
+                long delay = speedUp == 0 ? 0 : (long) (firstInterval(traces.get(i % traces.size()))
+                        * 1e6 / speedUp * i / truckCount);
+                scheduler.schedule(() -> truck.source.start(AdaptiveSamplingScheduler.Profile.SLOW, truck),
+                        delay, TimeUnit.NANOSECONDS);
+            }
+            finished.await();
+            long elapsed = System.nanoTime() - start;
+            return report(elapsed);
+        } finally {
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static long firstInterval(List<LocationPoint> trace) {
+        return trace.size() < 2 ? 0 : Math.max(0, trace.get(1).timestamp - trace.get(0).timestamp);
+    }
+
+    private Report report(long elapsedNanos) {
+        long delivered = 0, skipped = 0, accepted = 0, rejected = 0, changes = 0, writes = 0, points = 0;
+        for (Truck truck : trucks) {
+            delivered += truck.source.getDeliveredCount();
+            skipped += truck.source.getSkippedCount();
+            accepted += truck.processor.getAcceptedCount();
+            rejected += truck.processor.getRejectedCount();
+            changes += truck.processor.getScheduler().getProfileChanges();
+            writes += truck.sink.getWriteCount();
+            points += truck.sink.getPointCount();
+        }
+        return new Report(truckCount, delivered, skipped, accepted, rejected, changes, writes, points,
+                elapsedNanos, latency, metrics.snapshot(System.currentTimeMillis()));
+    }
+
+    // Points stored for one truck, in write order; needs setRetainPoints(true)
+    public List<LocationPoint> getStoredPoints(int truck) {
+        return trucks.get(truck).sink.getPoints();
+    }
+
+    public long getJournalErrorCount() {
+        long errors = journalErrors.get();
+        for (Truck truck : trucks) errors += truck.processor.getJournalErrorCount();
+        return errors;
+    }
+}
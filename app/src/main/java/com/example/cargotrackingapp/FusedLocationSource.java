@@ -0,0 +1,59 @@
+package com.example.cargotrackingapp;
+
+import android.content.Context;
+import android.location.Location;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+// LocationSource backed by the fused location provider
+public class FusedLocationSource implements LocationSource {
+
+    private final FusedLocationProviderClient client;
+    private volatile Listener listener;
+
+    // One callback for the lifetime of the source, so re-requesting replaces the old request
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult locationResult) {
+            Listener target = listener;
+            if (locationResult == null || target == null) return;
+            for (Location location : locationResult.getLocations()) {
+                target.onLocation(new LocationPoint(location.getLatitude(), location.getLongitude(),
+                        location.getTime(),
+                        location.hasAccuracy() ? location.getAccuracy() : Float.NaN,
+                        location.hasSpeed() ? location.getSpeed() : Float.NaN));
+            }
+        }
+    };
+
+    public FusedLocationSource(Context context) {
+        client = LocationServices.getFusedLocationProviderClient(context);
+    }
+
+    // Ask for updates at the rate, power level and distance threshold of a sampling profile
+    @Override
+    public void start(AdaptiveSamplingScheduler.Profile profile, Listener listener) {
+        this.listener = listener;
+        int priority = profile.power == AdaptiveSamplingScheduler.Power.HIGH_ACCURACY
+                ? Priority.PRIORITY_HIGH_ACCURACY
+                : Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+        LocationRequest locationRequest = new LocationRequest.Builder(profile.intervalMillis)
+                .setPriority(priority)
+                .setMinUpdateIntervalMillis(profile.minIntervalMillis)
+                .setMinUpdateDistanceMeters(profile.minDistanceMeters)
+                .build();
+        // Deliver on the provider's thread; the listener only enqueues
+        client.requestLocationUpdates(locationRequest, Runnable::run, callback);
+    }
+
+    @Override
+    public void stop() {
+        client.removeLocationUpdates(callback);
+        listener = null;
+    }
+}
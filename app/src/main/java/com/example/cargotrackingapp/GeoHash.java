@@ -0,0 +1,218 @@
+package com.example.cargotrackingapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Geohash cell keys: longitude and latitude bits interleaved, five bits per base32
+// character, so a cell's key is a prefix of every key inside it and nearby cells
+// mostly share long prefixes. Keys are handled as longs (left-aligned to
+// MAX_PRECISION characters) for sorting and range scans, and as strings for storage.
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+    static final int BITS = MAX_PRECISION * 5;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    // Full-precision key: 60 bits, longitude first
+    public static long encode(double latitude, double longitude) {
+        long latBits = cellIndex(latitude, -90, 90, BITS / 2);
+        long lonBits = cellIndex(longitude, -180, 180, BITS / 2);
+        return interleave(lonBits) << 1 | interleave(latBits);
+    }
+
+    // Key truncated to precision characters, still left-aligned
+    public static long encode(double latitude, double longitude, int precision) {
+        return truncate(encode(latitude, longitude), precision);
+    }
+
+    public static String toString(long key, int precision) {
+        char[] chars = new char[precision];
+        for (int i = 0; i < precision; i++) {
+            chars[i] = BASE32[(int) (key >>> (BITS - 5 * (i + 1))) & 0x1F];
+        }
+        return new String(chars);
+    }
+
+    public static String encodeToString(double latitude, double longitude, int precision) {
+        return toString(encode(latitude, longitude), precision);
+    }
+
+    public static long fromString(String hash) {
+        long key = 0;
+        for (int i = 0; i < hash.length(); i++) {
+            int value = indexOf(hash.charAt(i));
+            if (value < 0) throw new IllegalArgumentException("Invalid geohash " + hash);
+            key |= (long) value << (BITS - 5 * (i + 1));
+        }
+        return key;
+    }
+
+    public static long truncate(long key, int precision) {
+        int shift = BITS - 5 * precision;
+        return shift >= 64 ? 0 : key >>> shift << shift;
+    }
+
+    // First key past the cell, i.e. the exclusive end of its range
+    public static long cellEnd(long cell, int precision) {
+        return cell + (1L << (BITS - 5 * precision));
+    }
+
+    // Cell bounds as {minLat, minLon, maxLat, maxLon}
+    public static double[] bounds(long cell, int precision) {
+        int bits = 5 * precision;
+        int lonBits = (bits + 1) / 2, latBits = bits / 2;
+        long value = cell >>> (BITS - bits);
+        long lon = 0, lat = 0;
+        // Bits alternate lon, lat, lon, ... from the most significant end
+        for (int i = 0; i < bits; i++) {
+            long bit = value >>> (bits - 1 - i) & 1;
+            if ((i & 1) == 0) lon = lon << 1 | bit;
+            else lat = lat << 1 | bit;
+        }
+        double latSize = 180.0 / (1L << latBits), lonSize = 360.0 / (1L << lonBits);
+        return new double[]{-90 + lat * latSize, -180 + lon * lonSize,
+                -90 + (lat + 1) * latSize, -180 + (lon + 1) * lonSize};
+    }
+
+    // Cells of the given precision intersecting the box, in key order
+    public static long[] cover(double minLat, double minLon, double maxLat, double maxLon, int precision) {
+        int bits = 5 * precision;
+        int lonBits = (bits + 1) / 2, latBits = bits / 2;
+        long latFrom = cellIndex(minLat, -90, 90, latBits), latTo = cellIndex(maxLat, -90, 90, latBits);
+        long lonFrom = cellIndex(minLon, -180, 180, lonBits), lonTo = cellIndex(maxLon, -180, 180, lonBits);
+        long count = (latTo - latFrom + 1) * (lonTo - lonFrom + 1);
+        if (count > Integer.MAX_VALUE) throw new IllegalArgumentException("Cover too large");
+
+        long[] cells = new long[(int) count];
+        int n = 0;
+        int shift = BITS - bits;
+        for (long lat = latFrom; lat <= latTo; lat++) {
+            for (long lon = lonFrom; lon <= lonTo; lon++) {
+                // Longitude takes the top bit: odd bit counts give it one extra bit
+                long value = lonBits > latBits
+                        ? interleave(lon) | interleave(lat) << 1
+                        : interleave(lon) << 1 | interleave(lat);
+                cells[n++] = value << shift;
+            }
+        }
+        Arrays.sort(cells);
+        return cells;
+    }
+
+    // Cells of the given precision that come within radiusMeters of the centre
+    public static long[] coverRadius(double latitude, double longitude, double radiusMeters, int precision) {
+        double[] box = boundingBox(latitude, longitude, radiusMeters);
+        long[] cells = cover(box[0], box[1], box[2], box[3], precision);
+        int n = 0;
+        for (long cell : cells) {
+            double[] b = bounds(cell, precision);
+            double nearestLat = Math.max(b[0], Math.min(b[2], latitude));
+            double nearestLon = Math.max(b[1], Math.min(b[3], longitude));
+            if (Geodesy.haversine(latitude, longitude, nearestLat, nearestLon) <= radiusMeters) cells[n++] = cell;
+        }
+        return Arrays.copyOf(cells, n);
+    }
+
+    // Cells of one precision, e.g. the values of a single cell-list query
+    public static final class Cover {
+        public final int precision;
+        public final long[] cells;
+
+        Cover(int precision, long[] cells) {
+            this.precision = precision;
+            this.cells = cells;
+        }
+
+        public List<String> keys() {
+            List<String> keys = new ArrayList<>(cells.length);
+            for (long cell : cells) keys.add(GeoHash.toString(cell, precision));
+            return keys;
+        }
+    }
+
+    // Radius cover at the finest of the given precisions (ascending) whose cover of
+    // the circle's bounding box needs at most maxCells cells; null when none does
+    public static Cover coverRadius(double latitude, double longitude, double radiusMeters,
+                                    int[] precisions, int maxCells) {
+        double[] box = boundingBox(latitude, longitude, radiusMeters);
+        int finest = precisionFor(box[0], box[1], box[2], box[3], maxCells);
+        for (int i = precisions.length - 1; i >= 0; i--) {
+            if (precisions[i] > finest) continue;
+            return new Cover(precisions[i], coverRadius(latitude, longitude, radiusMeters, precisions[i]));
+        }
+        return null;
+    }
+
+    // Finest precision whose cover of the box needs at most maxCells cells
+    public static int precisionFor(double minLat, double minLon, double maxLat, double maxLon, int maxCells) {
+        for (int precision = MAX_PRECISION; precision > 1; precision--) {
+            int bits = 5 * precision;
+            long lats = cellIndex(maxLat, -90, 90, bits / 2) - cellIndex(minLat, -90, 90, bits / 2) + 1;
+            long lons = cellIndex(maxLon, -180, 180, (bits + 1) / 2) - cellIndex(minLon, -180, 180, (bits + 1) / 2) + 1;
+            if (lats * lons <= maxCells) return precision;
+        }
+        return 1;
+    }
+
+    // Merge sorted cells of one precision into half-open key ranges {start, end},
+    // so runs of consecutive cells (e.g. complete parents) become a single scan
+    public static List<long[]> toRanges(long[] sortedCells, int precision) {
+        List<long[]> ranges = new ArrayList<>();
+        for (long cell : sortedCells) {
+            long end = cellEnd(cell, precision);
+            long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1] == cell) {
+                last[1] = end;
+            } else {
+                ranges.add(new long[]{cell, end});
+            }
+        }
+        return ranges;
+    }
+
+    // {minLat, minLon, maxLat, maxLon} enclosing a circle; clamped at the poles and
+    // widened to all longitudes when the circle reaches one
+    public static double[] boundingBox(double latitude, double longitude, double radiusMeters) {
+        double dLat = Math.toDegrees(radiusMeters / Geodesy.EARTH_RADIUS_M);
+        double minLat = latitude - dLat, maxLat = latitude + dLat;
+        if (minLat <= -90 || maxLat >= 90) {
+            return new double[]{Math.max(-90, minLat), -180, Math.min(90, maxLat), 180};
+        }
+        double dLon = Math.toDegrees(radiusMeters / (Geodesy.EARTH_RADIUS_M * Math.cos(Math.toRadians(Math.max(
+                Math.abs(minLat), Math.abs(maxLat))))));
+        if (dLon >= 180) return new double[]{minLat, -180, maxLat, 180};
+        // Boxes crossing the antimeridian are widened rather than split
+        double minLon = longitude - dLon, maxLon = longitude + dLon;
+        if (minLon < -180 || maxLon > 180) return new double[]{minLat, -180, maxLat, 180};
+        return new double[]{minLat, minLon, maxLat, maxLon};
+    }
+
+    private static long cellIndex(double value, double min, double max, int bits) {
+        long cells = 1L << bits;
+        long index = (long) Math.floor((value - min) / (max - min) * cells);
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    // Spread the low 32 bits of v so bit i lands on bit 2i
+    private static long interleave(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | v << 16) & 0x0000FFFF0000FFFFL;
+        v = (v | v << 8) & 0x00FF00FF00FF00FFL;
+        v = (v | v << 4) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | v << 2) & 0x3333333333333333L;
+        v = (v | v << 1) & 0x5555555555555555L;
+        return v;
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.cargotrackingapp;
+
+import java.util.Arrays;
+import java.util.List;
+
+// In-memory geohash index over track points for region and proximity queries on
+// on-device history. Points are kept in insertion order (their id) in primitive
+// arrays; a second pair of arrays holds (key, id) sorted by geohash key. New points
+// land in an unsorted tail that is sorted and merged in on the next query, so
+// appends stay O(1) and a query touches only the key ranges of its cell cover.
+public class GeoPointIndex {
+
+    // Cells per query cover; more cells means tighter ranges but more binary searches
+    private static final int MAX_QUERY_CELLS = 16;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private double[] lats = new double[INITIAL_CAPACITY];
+    private double[] lons = new double[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Sorted prefix [0, sortedCount) and unsorted tail [sortedCount, size)
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int sortedCount = 0;
+
+    // Add a point; returns its id
+    public int add(double latitude, double longitude, long timestamp) {
+        if (size == lats.length) grow();
+        lats[size] = latitude;
+        lons[size] = longitude;
+        times[size] = timestamp;
+        keys[size] = GeoHash.encode(latitude, longitude);
+        ids[size] = size;
+        return size++;
+    }
+
+    public void addAll(List<LocationPoint> points) {
+        for (LocationPoint point : points) add(point.latitude, point.longitude, point.timestamp);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int id) {
+        return lats[id];
+    }
+
+    public double getLongitude(int id) {
+        return lons[id];
+    }
+
+    public long getTimestamp(int id) {
+        return times[id];
+    }
+
+    public void clear() {
+        size = 0;
+        sortedCount = 0;
+    }
+
+    // Ids of points within radiusMeters of the centre and with fromTime <= timestamp < toTime,
+    // in ascending id order
+    public int[] queryRadius(double latitude, double longitude, double radiusMeters, long fromTime, long toTime) {
+        double[] box = GeoHash.boundingBox(latitude, longitude, radiusMeters);
+        int precision = GeoHash.precisionFor(box[0], box[1], box[2], box[3], MAX_QUERY_CELLS);
+        long[] cells = GeoHash.coverRadius(latitude, longitude, radiusMeters, precision);
+
+        Result result = new Result();
+        for (long[] range : GeoHash.toRanges(cells, precision)) {
+            scan(range[0], range[1], id -> {
+                if (times[id] >= fromTime && times[id] < toTime
+                        && Geodesy.haversine(latitude, longitude, lats[id], lons[id]) <= radiusMeters) {
+                    result.add(id);
+                }
+            });
+        }
+        return result.sorted();
+    }
+
+    // Ids of points inside the box with fromTime <= timestamp < toTime, in ascending id order
+    public int[] queryBox(double minLat, double minLon, double maxLat, double maxLon, long fromTime, long toTime) {
+        int precision = GeoHash.precisionFor(minLat, minLon, maxLat, maxLon, MAX_QUERY_CELLS);
+        long[] cells = GeoHash.cover(minLat, minLon, maxLat, maxLon, precision);
+
+        Result result = new Result();
+        for (long[] range : GeoHash.toRanges(cells, precision)) {
+            scan(range[0], range[1], id -> {
+                if (times[id] >= fromTime && times[id] < toTime
+                        && lats[id] >= minLat && lats[id] <= maxLat && lons[id] >= minLon && lons[id] <= maxLon) {
+                    result.add(id);
+                }
+            });
+        }
+        return result.sorted();
+    }
+
+    private interface IdVisitor {
+        void visit(int id);
+    }
+
+    // Visit every id whose key falls in [start, end)
+    private void scan(long start, long end, IdVisitor visitor) {
+        mergeTail();
+        int i = lowerBound(start);
+        while (i < sortedCount && keys[i] < end) {
+            visitor.visit(ids[i++]);
+        }
+    }
+
+    private int lowerBound(long key) {
+        int low = 0, high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Sort the tail and merge it into the sorted prefix
+    private void mergeTail() {
+        if (sortedCount == size) return;
+        sortPairs(keys, ids, sortedCount, size - 1);
+        if (sortedCount > 0 && keys[sortedCount - 1] > keys[sortedCount]) {
+            long[] mergedKeys = new long[keys.length];
+            int[] mergedIds = new int[ids.length];
+            int a = 0, b = sortedCount, out = 0;
+            while (a < sortedCount && b < size) {
+                if (keys[b] < keys[a]) {
+                    mergedKeys[out] = keys[b];
+                    mergedIds[out++] = ids[b++];
+                } else {
+                    mergedKeys[out] = keys[a];
+                    mergedIds[out++] = ids[a++];
+                }
+            }
+            while (a < sortedCount) {
+                mergedKeys[out] = keys[a];
+                mergedIds[out++] = ids[a++];
+            }
+            while (b < size) {
+                mergedKeys[out] = keys[b];
+                mergedIds[out++] = ids[b++];
+            }
+            keys = mergedKeys;
+            ids = mergedIds;
+        }
+        sortedCount = size;
+    }
+
+    // Quicksort of parallel key/id arrays over [low, high]
+    private static void sortPairs(long[] keys, int[] ids, int low, int high) {
+        while (low < high) {
+            long pivot = keys[(low + high) >>> 1];
+            int i = low, j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    long k = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = k;
+                    int id = ids[i];
+                    ids[i] = ids[j];
+                    ids[j] = id;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half to bound stack depth
+            if (j - low < high - i) {
+                sortPairs(keys, ids, low, j);
+                low = i;
+            } else {
+                sortPairs(keys, ids, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = lats.length * 2;
+        lats = Arrays.copyOf(lats, capacity);
+        lons = Arrays.copyOf(lons, capacity);
+        times = Arrays.copyOf(times, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+    }
+
+    // Growable id list
+    private static final class Result {
+        private int[] values = new int[16];
+        private int count = 0;
+
+        void add(int id) {
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);
+            values[count++] = id;
+        }
+
+        int[] sorted() {
+            int[] result = Arrays.copyOf(values, count);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.cargotrackingapp;
+
+// Distances between latitude/longitude points, without android.location.Location
+// so it runs per fix without allocating and on a plain JVM. Three methods trade
+// accuracy for speed (see GeodesyBenchmark for measured errors and throughput):
+//
+//   EQUIRECTANGULAR  flat projection at the mean latitude; one cos and one sqrt.
+//                    Within 0.1% of haversine up to tens of kilometres away from
+//                    the poles, which covers every fix-to-fix step.
+//   HAVERSINE        great circle on a sphere of the mean Earth radius; up to 0.6%
+//                    off the ellipsoid, at any distance.
+//   VINCENTY         iterative inverse on the WGS84 ellipsoid, to a fraction of a
+//                    millimetre; what Location.distanceBetween computes, and several
+//                    times slower than haversine.
+//
+// Bulk methods work on parallel arrays and write into caller-provided arrays.
+public final class Geodesy {
+
+    public enum Method {
+        EQUIRECTANGULAR,
+        HAVERSINE,
+        VINCENTY
+    }
+
+    // Mean Earth radius (IUGG), and the length of one degree of latitude on that sphere
+    public static final double EARTH_RADIUS_M = 6371008.8;
+    public static final double METRES_PER_DEGREE = EARTH_RADIUS_M * Math.PI / 180;
+
+    // WGS84 ellipsoid
+    private static final double WGS84_A = 6378137.0;
+    private static final double WGS84_F = 1 / 298.257223563;
+    private static final double WGS84_B = WGS84_A * (1 - WGS84_F);
+    private static final int VINCENTY_MAX_ITERATIONS = 100;
+    private static final double VINCENTY_EPSILON = 1e-12;
+
+    private Geodesy() {
+    }
+
+    public static double distance(Method method, double lat1, double lon1, double lat2, double lon2) {
+        switch (method) {
+            case EQUIRECTANGULAR:
+                return equirectangular(lat1, lon1, lat2, lon2);
+            case HAVERSINE:
+                return haversine(lat1, lon1, lat2, lon2);
+            default:
+                return vincenty(lat1, lon1, lat2, lon2);
+        }
+    }
+
+    public static double equirectangular(double lat1, double lon1, double lat2, double lon2) {
+        double dLon = lon2 - lon1;
+        if (dLon > 180) dLon -= 360;
+        else if (dLon < -180) dLon += 360;
+        double x = dLon * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = lat2 - lat1;
+        return Math.sqrt(x * x + y * y) * METRES_PER_DEGREE;
+    }
+
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2), sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Vincenty's inverse formula. It does not converge for nearly antipodal points;
+    // those fall back to haversine, which is within 0.6% there.
+    public static double vincenty(double lat1, double lon1, double lat2, double lon2) {
+        double l = Math.toRadians(lon2 - lon1);
+        double u1 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1), cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2), cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        double sinSigma, cosSigma, sigma, cosSqAlpha, cos2SigmaM;
+        int iterations = 0;
+        while (true) {
+            double sinLambda = Math.sin(lambda), cosLambda = Math.cos(lambda);
+            double t1 = cosU2 * sinLambda;
+            double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+            if (sinSigma == 0) return 0; // Coincident points
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            // Both points on the equator: cosSqAlpha is 0
+            cos2SigmaM = cosSqAlpha != 0 ? cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha : 0;
+            double c = WGS84_F / 16 * cosSqAlpha * (4 + WGS84_F * (4 - 3 * cosSqAlpha));
+            double previous = lambda;
+            lambda = l + (1 - c) * WGS84_F * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+            if (Math.abs(lambda - previous) < VINCENTY_EPSILON) break;
+            if (++iterations >= VINCENTY_MAX_ITERATIONS) return haversine(lat1, lon1, lat2, lon2);
+        }
+
+        double uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B) / (WGS84_B * WGS84_B);
+        double a = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+        return WGS84_B * a * (sigma - deltaSigma);
+    }
+
+    // Distance from each point to the next: out[i] is the step from i - 1 to i, out[0] is 0
+    public static void stepDistances(Method method, double[] lats, double[] lons, int count, double[] out) {
+        if (count == 0) return;
+        out[0] = 0;
+        for (int i = 1; i < count; i++) {
+            out[i] = distance(method, lats[i - 1], lons[i - 1], lats[i], lons[i]);
+        }
+    }
+
+    // Distance along the path up to each point: out[i] is the length from 0 to i
+    public static void cumulativeDistances(Method method, double[] lats, double[] lons, int count, double[] out) {
+        if (count == 0) return;
+        double total = 0;
+        out[0] = 0;
+        for (int i = 1; i < count; i++) {
+            total += distance(method, lats[i - 1], lons[i - 1], lats[i], lons[i]);
+            out[i] = total;
+        }
+    }
+
+    public static double pathLength(Method method, double[] lats, double[] lons, int count) {
+        double total = 0;
+        for (int i = 1; i < count; i++) {
+            total += distance(method, lats[i - 1], lons[i - 1], lats[i], lons[i]);
+        }
+        return total;
+    }
+}
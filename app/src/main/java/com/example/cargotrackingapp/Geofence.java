@@ -0,0 +1,126 @@
+package com.example.cargotrackingapp;
+
+// A depot or delivery zone: either a circle or a simple polygon. Containment and
+// boundary distance are computed in a local equirectangular frame around the
+// fence, which is accurate to well under a metre at fence scales.
+public final class Geofence {
+
+    public enum Shape {
+        CIRCLE,
+        POLYGON
+    }
+
+    public final String id;
+    public final String name;
+    public final Shape shape;
+
+    // Circle centre, or the polygon's reference point for the local frame
+    private final double originLat, originLon;
+    private final double radiusMeters;
+    // Polygon vertices in metres relative to the origin
+    private final double[] xs, ys;
+    private final double kx;
+
+    // Bounding box in degrees {minLat, minLon, maxLat, maxLon}
+    private final double[] bounds;
+
+    private Geofence(String id, String name, Shape shape, double originLat, double originLon,
+                     double radiusMeters, double[] xs, double[] ys, double[] bounds) {
+        this.id = id;
+        this.name = name;
+        this.shape = shape;
+        this.originLat = originLat;
+        this.originLon = originLon;
+        this.radiusMeters = radiusMeters;
+        this.xs = xs;
+        this.ys = ys;
+        this.kx = Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+        this.bounds = bounds;
+    }
+
+    public static Geofence circle(String id, String name, double latitude, double longitude, double radiusMeters) {
+        if (radiusMeters <= 0) throw new IllegalArgumentException("radius must be positive");
+        double dLat = radiusMeters / Geodesy.METRES_PER_DEGREE;
+        double dLon = radiusMeters / (Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+        return new Geofence(id, name, Shape.CIRCLE, latitude, longitude, radiusMeters, null, null,
+                new double[]{latitude - dLat, longitude - dLon, latitude + dLat, longitude + dLon});
+    }
+
+    // Vertices in order, without repeating the first one at the end
+    public static Geofence polygon(String id, String name, double[] lats, double[] lons) {
+        int n = lats.length;
+        if (n < 3 || lons.length != n) throw new IllegalArgumentException("polygon needs at least 3 vertices");
+        double minLat = lats[0], maxLat = lats[0], minLon = lons[0], maxLon = lons[0];
+        for (int i = 1; i < n; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLon = Math.min(minLon, lons[i]);
+            maxLon = Math.max(maxLon, lons[i]);
+        }
+        double originLat = (minLat + maxLat) / 2, originLon = (minLon + maxLon) / 2;
+        double kx = Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = (lons[i] - originLon) * kx;
+            ys[i] = (lats[i] - originLat) * Geodesy.METRES_PER_DEGREE;
+        }
+        return new Geofence(id, name, Shape.POLYGON, originLat, originLon, 0, xs, ys,
+                new double[]{minLat, minLon, maxLat, maxLon});
+    }
+
+    public double[] getBounds() {
+        return bounds.clone();
+    }
+
+    double getMinLat() {
+        return bounds[0];
+    }
+
+    double getMinLon() {
+        return bounds[1];
+    }
+
+    double getMaxLat() {
+        return bounds[2];
+    }
+
+    double getMaxLon() {
+        return bounds[3];
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return signedDistance(latitude, longitude) <= 0;
+    }
+
+    // Distance to the boundary in metres: negative inside, positive outside
+    public double signedDistance(double latitude, double longitude) {
+        double x = (longitude - originLon) * kx;
+        double y = (latitude - originLat) * Geodesy.METRES_PER_DEGREE;
+        if (shape == Shape.CIRCLE) return Math.sqrt(x * x + y * y) - radiusMeters;
+
+        boolean inside = false;
+        double nearestSq = Double.MAX_VALUE;
+        int n = xs.length;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = xs[i], yi = ys[i], xj = xs[j], yj = ys[j];
+            // Even-odd ray casting
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) inside = !inside;
+            nearestSq = Math.min(nearestSq, segmentDistanceSq(x, y, xj, yj, xi, yi));
+        }
+        double distance = Math.sqrt(nearestSq);
+        return inside ? -distance : distance;
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSq));
+        double ex = ax + t * dx - px, ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    @Override
+    public String toString() {
+        return "Geofence{" + id + " " + name + " " + shape + "}";
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.cargotrackingapp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Evaluates each fix against many fences. A uniform lat/lon grid maps every cell
+// to the fences whose bounds overlap it, so a fix only tests the
+// fences registered in its own cell plus the few it is currently inside.
+//
+// Transitions use hysteresis: a fence is entered when the fix is inside it, but
+// only exited once the fix is more than exitMarginMeters outside, so GPS jitter
+// along the boundary does not produce enter/exit storms. DWELL fires once when
+// the truck has been inside for dwellMillis.
+public class GeofenceEngine {
+
+    public enum Transition {
+        ENTER,
+        DWELL,
+        EXIT
+    }
+
+    public static final class Event {
+        public final Transition transition;
+        public final Geofence fence;
+        public final long timestamp;
+        public final double latitude;
+        public final double longitude;
+        public final long insideMillis; // Time since ENTER
+
+        Event(Transition transition, Geofence fence, long timestamp, double latitude, double longitude,
+              long insideMillis) {
+            this.transition = transition;
+            this.fence = fence;
+            this.timestamp = timestamp;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.insideMillis = insideMillis;
+        }
+
+        @Override
+        public String toString() {
+            return transition + " " + fence.name + " @" + timestamp;
+        }
+    }
+
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    private static final int[] NO_FENCES = new int[0];
+
+    private final double exitMarginMeters;
+    private final long dwellMillis;
+    private final double cellDegrees;
+
+    private Geofence[] fences = new Geofence[0];
+    private final Map<Long, int[]> grid = new HashMap<>();
+
+    // Per-fence state; enteredAt < 0 means outside
+    private long[] enteredAt = new long[0];
+    private boolean[] dwellReported = new boolean[0];
+    private int[] active = new int[4];
+    private int activeCount = 0;
+
+    private long fixes = 0;
+    private long candidateChecks = 0;
+
+    public GeofenceEngine(double exitMarginMeters, long dwellMillis, double cellDegrees) {
+        this.exitMarginMeters = exitMarginMeters;
+        this.dwellMillis = dwellMillis;
+        this.cellDegrees = cellDegrees;
+    }
+
+    // 25 m exit margin, 5 min dwell, cells of about 1 km
+    public static GeofenceEngine forDepots() {
+        return new GeofenceEngine(25, 5 * 60 * 1000L, 0.01);
+    }
+
+    // Replace the fence set; every fence starts out as not entered
+    public void setFences(List<Geofence> fenceList) {
+        fences = fenceList.toArray(new Geofence[0]);
+        enteredAt = new long[fences.length];
+        Arrays.fill(enteredAt, -1);
+        dwellReported = new boolean[fences.length];
+        activeCount = 0;
+        buildGrid();
+    }
+
+    // Evaluate one fix; returns the number of events emitted
+    public int onFix(long timestamp, double latitude, double longitude, Listener listener) {
+        fixes++;
+        int events = 0;
+
+        // Fences we are in: check for exit or dwell
+        for (int i = 0; i < activeCount; ) {
+            int id = active[i];
+            candidateChecks++;
+            if (fences[id].signedDistance(latitude, longitude) > exitMarginMeters) {
+                listener.onEvent(new Event(Transition.EXIT, fences[id], timestamp, latitude, longitude,
+                        timestamp - enteredAt[id]));
+                enteredAt[id] = -1;
+                active[i] = active[--activeCount];
+                events++;
+                continue;
+            }
+            if (!dwellReported[id] && timestamp - enteredAt[id] >= dwellMillis) {
+                dwellReported[id] = true;
+                listener.onEvent(new Event(Transition.DWELL, fences[id], timestamp, latitude, longitude,
+                        timestamp - enteredAt[id]));
+                events++;
+            }
+            i++;
+        }
+
+        // Nearby fences we are not in yet: check for entry
+        for (int id : grid.getOrDefault(cellKey(latitude, longitude), NO_FENCES)) {
+            if (enteredAt[id] >= 0) continue;
+            candidateChecks++;
+            if (fences[id].contains(latitude, longitude)) {
+                enteredAt[id] = timestamp;
+                dwellReported[id] = false;
+                if (activeCount == active.length) active = Arrays.copyOf(active, activeCount * 2);
+                active[activeCount++] = id;
+                listener.onEvent(new Event(Transition.ENTER, fences[id], timestamp, latitude, longitude, 0));
+                events++;
+            }
+        }
+        return events;
+    }
+
+    // Forget which fences are entered, e.g. when a new trip starts
+    public void reset() {
+        Arrays.fill(enteredAt, -1);
+        Arrays.fill(dwellReported, false);
+        activeCount = 0;
+    }
+
+    public int getFenceCount() {
+        return fences.length;
+    }
+
+    public int getInsideCount() {
+        return activeCount;
+    }
+
+    // Average number of fences tested per fix
+    public double getChecksPerFix() {
+        return fixes == 0 ? 0 : (double) candidateChecks / fixes;
+    }
+
+    // Register each fence in every cell its bounds overlap. Entry needs the fix to be
+    // inside the fence, so the bounds are enough; exits are checked on the active list.
+    private void buildGrid() {
+        grid.clear();
+        for (int id = 0; id < fences.length; id++) {
+            Geofence fence = fences[id];
+            long latFrom = cellIndex(fence.getMinLat()), latTo = cellIndex(fence.getMaxLat());
+            long lonFrom = cellIndex(fence.getMinLon()), lonTo = cellIndex(fence.getMaxLon());
+            for (long lat = latFrom; lat <= latTo; lat++) {
+                for (long lon = lonFrom; lon <= lonTo; lon++) {
+                    long key = lat << 32 | (lon & 0xFFFFFFFFL);
+                    int[] ids = grid.get(key);
+                    if (ids == null) {
+                        ids = new int[]{id};
+                    } else {
+                        ids = Arrays.copyOf(ids, ids.length + 1);
+                        ids[ids.length - 1] = id;
+                    }
+                    grid.put(key, ids);
+                }
+            }
+        }
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellIndex(latitude) << 32 | (cellIndex(longitude) & 0xFFFFFFFFL);
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellDegrees);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.cargotrackingapp;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads fence definitions from the fleet-wide "geofences" collection. A document is
+// either {name, type: "circle", center: GeoPoint, radius: metres} or
+// {name, type: "polygon", vertices: [GeoPoint, ...]}.
+public final class GeofenceLoader {
+
+    private static final String TAG = "GeofenceLoader";
+    public static final String COLLECTION = "geofences";
+
+    public interface Listener {
+        void onLoaded(List<Geofence> fences);
+
+        void onError(Exception e);
+    }
+
+    private GeofenceLoader() {
+    }
+
+    public static void load(FirebaseFirestore db, Listener listener) {
+        db.collection(COLLECTION).get()
+                .addOnSuccessListener(snapshot -> {
+                    List<Geofence> fences = new ArrayList<>(snapshot.size());
+                    for (QueryDocumentSnapshot doc : snapshot) {
+                        Geofence fence = toGeofence(doc);
+                        if (fence != null) fences.add(fence);
+                        else Log.w(TAG, "Invalid geofence document: " + doc.getId());
+                    }
+                    listener.onLoaded(fences);
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    private static Geofence toGeofence(DocumentSnapshot doc) {
+        String name = doc.getString("name");
+        if (name == null) name = doc.getId();
+        if ("circle".equals(doc.getString("type"))) {
+            GeoPoint center = doc.getGeoPoint("center");
+            Double radius = doc.getDouble("radius");
+            if (center == null || radius == null || radius <= 0) return null;
+            return Geofence.circle(doc.getId(), name, center.getLatitude(), center.getLongitude(), radius);
+        }
+        if ("polygon".equals(doc.getString("type"))) {
+            Object value = doc.get("vertices");
+            if (!(value instanceof List)) return null;
+            List<?> vertices = (List<?>) value;
+            if (vertices.size() < 3) return null;
+            double[] lats = new double[vertices.size()];
+            double[] lons = new double[vertices.size()];
+            for (int i = 0; i < vertices.size(); i++) {
+                if (!(vertices.get(i) instanceof GeoPoint)) return null;
+                GeoPoint vertex = (GeoPoint) vertices.get(i);
+                lats[i] = vertex.getLatitude();
+                lons[i] = vertex.getLongitude();
+            }
+            return Geofence.polygon(doc.getId(), name, lats, lons);
+        }
+        return null;
+    }
+}
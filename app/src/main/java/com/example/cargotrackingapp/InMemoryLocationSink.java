@@ -0,0 +1,49 @@
+package com.example.cargotrackingapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stand-in for the Firestore sink when the pipeline runs off-device: every batch
+// commits immediately and is counted, and the points can optionally be kept so
+// a replay can be compared with what was stored
+public class InMemoryLocationSink implements LocationBatchUploader.Sink {
+
+    private final boolean retainPoints;
+    private final List<LocationPoint> points = new ArrayList<>();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong pointCount = new AtomicLong();
+
+    public InMemoryLocationSink(boolean retainPoints) {
+        this.retainPoints = retainPoints;
+    }
+
+    @Override
+    public void write(List<LocationPoint> batch, LocationBatchUploader.Callback callback) {
+        writeCount.incrementAndGet();
+        pointCount.addAndGet(batch.size());
+        if (retainPoints) {
+            synchronized (points) {
+                points.addAll(batch);
+            }
+        }
+        callback.onComplete(true, null);
+    }
+
+    // Batches written, the equivalent of Firestore commits
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    public long getPointCount() {
+        return pointCount.get();
+    }
+
+    // Stored points in write order; empty unless retainPoints was set
+    public List<LocationPoint> getPoints() {
+        synchronized (points) {
+            return Collections.unmodifiableList(new ArrayList<>(points));
+        }
+    }
+}
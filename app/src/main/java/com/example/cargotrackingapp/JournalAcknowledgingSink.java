@@ -0,0 +1,40 @@
+package com.example.cargotrackingapp;
+
+import java.util.List;
+
+// Sink decorator that acknowledges journaled points once the wrapped sink has
+// committed them
+public class JournalAcknowledgingSink implements LocationBatchUploader.Sink {
+
+    private final LocationBatchUploader.Sink delegate;
+    private final LocationJournal journal;
+
+    public JournalAcknowledgingSink(LocationBatchUploader.Sink delegate, LocationJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public void write(List<LocationPoint> points, LocationBatchUploader.Callback callback) {
+        delegate.write(points, (success, error) -> {
+            if (success) acknowledge(points);
+            callback.onComplete(success, error);
+        });
+    }
+
+    // Acknowledge each contiguous run of sequences; the journal ignores runs that
+    // would skip over a gap
+    private void acknowledge(List<LocationPoint> points) {
+        long runStart = LocationPoint.NO_SEQUENCE;
+        long runEnd = LocationPoint.NO_SEQUENCE;
+        for (LocationPoint point : points) {
+            if (point.sequence == LocationPoint.NO_SEQUENCE) continue;
+            if (point.sequence != runEnd) {
+                if (runStart != LocationPoint.NO_SEQUENCE) journal.acknowledge(runStart, runEnd);
+                runStart = point.sequence;
+            }
+            runEnd = point.sequence + 1;
+        }
+        if (runStart != LocationPoint.NO_SEQUENCE) journal.acknowledge(runStart, runEnd);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.cargotrackingapp;
+
+// Constant-velocity Kalman filter over a local metric plane, used both to smooth
+// accepted fixes and to reject outliers. A reported speed is also applied as a
+// velocity measurement along the estimated heading.
+//
+// A fix is rejected when the speed needed to reach it from the last estimate,
+// after allowing for both positions' uncertainty, exceeds a limit. The limit is
+// the vehicle's maximum speed, tightened when the fix itself reports a low speed
+// so that GPS drift while parked does not pass. After several consecutive
+// rejections the filter assumes the vehicle really moved and restarts there.
+public class KalmanLocationFilter implements FixFilter {
+
+    private static final double DEFAULT_ACCURACY_M = 20;
+    private static final double REANCHOR_DISTANCE_M = 50000;
+    private static final int MAX_CONSECUTIVE_REJECTIONS = 5;
+    // Allowed speed when the fix reports one: reported * SLACK + MARGIN
+    private static final double SPEED_SLACK = 1.5;
+    private static final double SPEED_MARGIN_MPS = 10;
+    // Reported speed is applied along the current heading, once there is one
+    private static final double SPEED_VARIANCE = 1.0;
+    private static final double STATIONARY_SPEED_MPS = 0.5;
+    private static final double MIN_HEADING_SPEED_MPS = 2;
+
+    private final double maxAccuracy;
+    private final double maxSpeed;
+    private final double accelerationVariance;
+
+    // Local projection origin
+    private double originLat, originLon, kx;
+
+    // Per-axis state: position, velocity and covariance [p00 p01; p01 p11]
+    private double x, vx, px00, px01, px11;
+    private double y, vy, py00, py01, py11;
+
+    private boolean initialised = false;
+    private long lastTimestamp;
+    private int consecutiveRejections = 0;
+    private Rejection lastRejection = Rejection.NONE;
+
+    public KalmanLocationFilter(double maxAccuracyMeters, double maxSpeedMps, double accelerationNoise) {
+        this.maxAccuracy = maxAccuracyMeters;
+        this.maxSpeed = maxSpeedMps;
+        this.accelerationVariance = accelerationNoise * accelerationNoise;
+    }
+
+    // Defaults for road trucks: 100 m accuracy cut-off, 200 km/h, 1 m/s^2 manoeuvres
+    public static KalmanLocationFilter forTrucks() {
+        return new KalmanLocationFilter(100, 55, 1);
+    }
+
+    @Override
+    public boolean accept(long timestamp, double latitude, double longitude, float accuracy, float speed) {
+        if (latitude == 0 && longitude == 0) return reject(Rejection.NULL_ISLAND);
+        if (accuracy > maxAccuracy) return reject(Rejection.INACCURATE);
+        double r = Float.isNaN(accuracy) || accuracy <= 0 ? DEFAULT_ACCURACY_M : accuracy;
+
+        if (!initialised) {
+            start(timestamp, latitude, longitude, r);
+            return keep();
+        }
+        if (timestamp <= lastTimestamp) return reject(Rejection.OUT_OF_ORDER);
+
+        double dt = (timestamp - lastTimestamp) / 1000.0;
+        double mx = (longitude - originLon) * kx;
+        double my = (latitude - originLat) * Geodesy.METRES_PER_DEGREE;
+
+        // Speed needed to get here from the current estimate, giving both ends the benefit of the doubt
+        double sigma = Math.sqrt(Math.max(px00, py00));
+        double distance = Math.hypot(mx - x, my - y);
+        double impliedSpeed = Math.max(0, distance - r - sigma) / dt;
+        double limit = maxSpeed;
+        if (!Float.isNaN(speed) && speed >= 0) {
+            limit = Math.min(maxSpeed, speed * SPEED_SLACK + SPEED_MARGIN_MPS);
+        }
+        if (impliedSpeed > limit) {
+            if (++consecutiveRejections >= MAX_CONSECUTIVE_REJECTIONS) {
+                start(timestamp, latitude, longitude, r);
+                return keep();
+            }
+            lastRejection = Rejection.IMPLIED_SPEED;
+            return false;
+        }
+
+        predict(dt);
+        update(mx, my, r * r);
+        if (!Float.isNaN(speed) && speed >= 0) updateSpeed(speed);
+        lastTimestamp = timestamp;
+        if (Math.abs(x) > REANCHOR_DISTANCE_M || Math.abs(y) > REANCHOR_DISTANCE_M) reanchor();
+        return keep();
+    }
+
+    // Smoothed position after the last accepted fix
+    public double getLatitude() {
+        return originLat + y / Geodesy.METRES_PER_DEGREE;
+    }
+
+    public double getLongitude() {
+        return originLon + x / kx;
+    }
+
+    // Estimated 1-sigma position error in metres
+    public float getAccuracy() {
+        return (float) Math.sqrt(Math.max(px00, py00));
+    }
+
+    // Estimated speed in metres per second
+    public float getSpeed() {
+        return (float) Math.hypot(vx, vy);
+    }
+
+    @Override
+    public Rejection getLastRejection() {
+        return lastRejection;
+    }
+
+    @Override
+    public void reset() {
+        initialised = false;
+        consecutiveRejections = 0;
+        lastRejection = Rejection.NONE;
+    }
+
+    private void start(long timestamp, double latitude, double longitude, double accuracy) {
+        originLat = latitude;
+        originLon = longitude;
+        kx = Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        double variance = accuracy * accuracy;
+        x = 0;
+        y = 0;
+        vx = 0;
+        vy = 0;
+        // Velocity is unknown at the start, so give it a wide prior
+        px00 = py00 = variance;
+        px01 = py01 = 0;
+        px11 = py11 = maxSpeed * maxSpeed;
+        lastTimestamp = timestamp;
+        initialised = true;
+    }
+
+    private void predict(double dt) {
+        double dt2 = dt * dt;
+        double q00 = dt2 * dt2 / 4 * accelerationVariance;
+        double q01 = dt2 * dt / 2 * accelerationVariance;
+        double q11 = dt2 * accelerationVariance;
+
+        x += vx * dt;
+        double n00 = px00 + 2 * dt * px01 + dt2 * px11 + q00;
+        double n01 = px01 + dt * px11 + q01;
+        px11 += q11;
+        px00 = n00;
+        px01 = n01;
+
+        y += vy * dt;
+        n00 = py00 + 2 * dt * py01 + dt2 * py11 + q00;
+        n01 = py01 + dt * py11 + q01;
+        py11 += q11;
+        py00 = n00;
+        py01 = n01;
+    }
+
+    private void update(double mx, double my, double variance) {
+        double s = px00 + variance;
+        double k0 = px00 / s, k1 = px01 / s;
+        double innovation = mx - x;
+        x += k0 * innovation;
+        vx += k1 * innovation;
+        px11 -= k1 * px01;
+        px01 *= 1 - k0;
+        px00 *= 1 - k0;
+
+        s = py00 + variance;
+        k0 = py00 / s;
+        k1 = py01 / s;
+        innovation = my - y;
+        y += k0 * innovation;
+        vy += k1 * innovation;
+        py11 -= k1 * py01;
+        py01 *= 1 - k0;
+        py00 *= 1 - k0;
+    }
+
+    // Use the receiver's Doppler speed as a velocity measurement along the
+    // estimated heading; a stationary report pins the velocity to zero
+    private void updateSpeed(double speed) {
+        double current = Math.hypot(vx, vy);
+        double zx, zy;
+        if (speed < STATIONARY_SPEED_MPS) {
+            zx = 0;
+            zy = 0;
+        } else if (current >= MIN_HEADING_SPEED_MPS) {
+            zx = vx / current * speed;
+            zy = vy / current * speed;
+        } else {
+            return;
+        }
+
+        double s = px11 + SPEED_VARIANCE;
+        double k0 = px01 / s, k1 = px11 / s;
+        double innovation = zx - vx;
+        x += k0 * innovation;
+        vx += k1 * innovation;
+        px00 -= k0 * px01;
+        px01 -= k0 * px11;
+        px11 -= k1 * px11;
+
+        s = py11 + SPEED_VARIANCE;
+        k0 = py01 / s;
+        k1 = py11 / s;
+        innovation = zy - vy;
+        y += k0 * innovation;
+        vy += k1 * innovation;
+        py00 -= k0 * py01;
+        py01 -= k0 * py11;
+        py11 -= k1 * py11;
+    }
+
+    // Move the projection origin to the current estimate to keep distortion low
+    private void reanchor() {
+        double latitude = getLatitude();
+        double longitude = getLongitude();
+        originLat = latitude;
+        originLon = longitude;
+        kx = Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        x = 0;
+        y = 0;
+    }
+
+    private boolean keep() {
+        consecutiveRejections = 0;
+        lastRejection = Rejection.NONE;
+        return true;
+    }
+
+    private boolean reject(Rejection reason) {
+        lastRejection = reason;
+        return false;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.cargotrackingapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size log-linear histogram of non-negative values (nanoseconds in practice).
+// Values below 32 get a bucket each; above that every power of two is split into
+// 32 buckets, so a reported percentile is within ~3% of the true value. Recording
+// is lock-free and allocation-free, so many threads can share one instance.
+// Snapshots copy the buckets without stopping writers; subtracting an earlier
+// snapshot gives the distribution of one reporting interval.
+public class LatencyHistogram {
+
+    // Immutable copy of the bucket counts at one point in time
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long totalValue;
+
+        private Snapshot(long[] counts, long totalCount, long totalValue) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.totalValue = totalValue;
+        }
+
+        // What was recorded after an earlier snapshot of the same histogram
+        public Snapshot minus(Snapshot earlier) {
+            long[] delta = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+                count += delta[i];
+            }
+            return new Snapshot(delta, count, totalValue - earlier.totalValue);
+        }
+
+        public long getCount() {
+            return totalCount;
+        }
+
+        public long getMean() {
+            return totalCount == 0 ? 0 : totalValue / totalCount;
+        }
+
+        public long getPercentile(double percentile) {
+            return percentile(counts, totalCount, percentile, Long.MAX_VALUE);
+        }
+
+        // Upper bound of the highest non-empty bucket
+        public long getMax() {
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (counts[i] > 0) return highestValueIn(i);
+            }
+            return 0;
+        }
+    }
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_COUNT + shift * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+    }
+
+    // Largest value that falls in a bucket
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+        long mantissa = SUB_COUNT + (bucket - SUB_COUNT) % SUB_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public long getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : totalValue.get() / count;
+    }
+
+    // Value at or below which the given percentage (0-100) of recorded values fall,
+    // rounded up to its bucket's upper bound and capped at the maximum
+    public long getPercentile(double percentile) {
+        Snapshot snapshot = snapshot();
+        return percentile(snapshot.counts, snapshot.totalCount, percentile, maxValue.get());
+    }
+
+    // Counts are read bucket by bucket while writers carry on, so a snapshot taken
+    // under load may straddle a few concurrent records
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalValue.get());
+    }
+
+    private static long percentile(long[] counts, long count, double percentile, long max) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(highestValueIn(i), max);
+        }
+        return max;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        totalCount.set(0);
+        totalValue.set(0);
+        maxValue.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "n=" + getCount() + " p50=" + getPercentile(50) / 1000 + "us p95=" + getPercentile(95) / 1000
+                + "us p99=" + getPercentile(99) / 1000 + "us max=" + getMax() / 1000 + "us";
+    }
+}
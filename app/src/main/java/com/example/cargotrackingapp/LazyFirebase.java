@@ -0,0 +1,21 @@
+package com.example.cargotrackingapp;
+
+import android.content.Context;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+// Firebase is initialised on first use rather than by its content provider at
+// process start (the provider is removed in the manifest), so a cold start that
+// only shows local data never pays for it
+public final class LazyFirebase {
+
+    private LazyFirebase() {
+    }
+
+    // Safe to call from any thread; later calls return the same instance
+    public static FirebaseFirestore firestore(Context context) {
+        FirebaseApp.initializeApp(context.getApplicationContext());
+        return FirebaseFirestore.getInstance();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.cargotrackingapp;
+
+import android.database.SQLException;
+
+import java.util.List;
+
+// Uploader sink that mirrors batches into LocalTrackStore under the trip each point
+// was recorded in, the same partitioning FirestoreLocationSink uses on the server.
+// Writes are synchronous, so it should be driven from a background thread.
+public class LocalTrackSink implements LocationBatchUploader.Sink {
+
+    private final LocalTrackStore store;
+    private final String vehicleId;
+
+    public LocalTrackSink(LocalTrackStore store, String vehicleId) {
+        this.store = store;
+        this.vehicleId = vehicleId;
+    }
+
+    @Override
+    public void write(List<LocationPoint> points, LocationBatchUploader.Callback callback) {
+        try {
+            for (List<LocationPoint> run : LocationPoint.splitByTrip(points)) {
+                store.insert(vehicleId, run.get(0).tripId, run);
+            }
+            callback.onComplete(true, null);
+        } catch (SQLException e) {
+            callback.onComplete(false, e);
+        }
+    }
+}
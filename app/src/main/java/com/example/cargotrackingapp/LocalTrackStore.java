@@ -0,0 +1,165 @@
+package com.example.cargotrackingapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// On-device copy of the tracked points in SQLite, so history can be drawn offline
+// and only newer points need to be fetched from Firestore. Rows are indexed by
+// (vehicle, trip, timestamp) for trip replays and by full-precision geohash key
+// for bounding-box lookups, which become a few key range scans over the cover's
+// cells, the same scheme as GeoPointIndex. Writes are batched in one transaction.
+public class LocalTrackStore extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "tracks.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE = "points";
+    // Points not attributed to a trip; "" rather than NULL so the unique key holds
+    private static final String NO_TRIP = "";
+    // Cells per bounding-box cover, as in GeoPointIndex
+    private static final int MAX_QUERY_CELLS = 16;
+
+    private static final String COLUMNS = "latitude, longitude, timestamp, accuracy, speed";
+
+    private static LocalTrackStore instance;
+
+    public static synchronized LocalTrackStore getInstance(Context context) {
+        if (instance == null) instance = new LocalTrackStore(context.getApplicationContext(), DATABASE_NAME);
+        return instance;
+    }
+
+    // name may be null for an in-memory database, e.g. in benchmarks
+    LocalTrackStore(Context context, @Nullable String name) {
+        super(context, name, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "vehicle_id TEXT NOT NULL, "
+                + "trip_id TEXT NOT NULL, "
+                + "timestamp INTEGER NOT NULL, "
+                + "latitude REAL NOT NULL, "
+                + "longitude REAL NOT NULL, "
+                + "accuracy REAL, "
+                + "speed REAL, "
+                + "geohash INTEGER NOT NULL, "
+                + "PRIMARY KEY (vehicle_id, trip_id, timestamp)) WITHOUT ROWID");
+        db.execSQL("CREATE INDEX points_geohash ON " + TABLE + " (geohash)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    // Store points in one transaction; points already stored for the trip are ignored,
+    // so re-sent batches and overlapping server pages are harmless
+    public void insert(String vehicleId, @Nullable String tripId, List<LocationPoint> points) {
+        if (points.isEmpty()) return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try (SQLiteStatement statement = db.compileStatement("INSERT OR IGNORE INTO " + TABLE
+                + " (vehicle_id, trip_id, timestamp, latitude, longitude, accuracy, speed, geohash)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (LocationPoint point : points) {
+                statement.bindString(1, vehicleId);
+                statement.bindString(2, tripId != null ? tripId : NO_TRIP);
+                statement.bindLong(3, point.timestamp);
+                statement.bindDouble(4, point.latitude);
+                statement.bindDouble(5, point.longitude);
+                bindFloat(statement, 6, point.accuracy);
+                bindFloat(statement, 7, point.speed);
+                statement.bindLong(8, GeoHash.encode(point.latitude, point.longitude));
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // A trip's points newer than afterMillis, in time order
+    public List<LocationPoint> load(String vehicleId, @Nullable String tripId, long afterMillis) {
+        return load(vehicleId, tripId, afterMillis, -1);
+    }
+
+    // The first limit points after afterMillis (all of them when negative), so a long
+    // trip can be read back page by page
+    public List<LocationPoint> load(String vehicleId, @Nullable String tripId, long afterMillis, int limit) {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMNS + " FROM " + TABLE
+                        + " WHERE vehicle_id = ? AND trip_id = ? AND timestamp > ? ORDER BY timestamp LIMIT " + limit,
+                new String[]{vehicleId, tripId != null ? tripId : NO_TRIP, Long.toString(afterMillis)})) {
+            return readPoints(cursor);
+        }
+    }
+
+    // Timestamp of a trip's newest stored point, or Long.MIN_VALUE when there is none
+    public long getLastTimestamp(String vehicleId, @Nullable String tripId) {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT MAX(timestamp) FROM " + TABLE
+                        + " WHERE vehicle_id = ? AND trip_id = ?",
+                new String[]{vehicleId, tripId != null ? tripId : NO_TRIP})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : Long.MIN_VALUE;
+        }
+    }
+
+    // Points of any vehicle and trip inside the box with fromTime <= timestamp < toTime
+    public List<LocationPoint> queryBox(double minLat, double minLon, double maxLat, double maxLon,
+                                        long fromTime, long toTime) {
+        int precision = GeoHash.precisionFor(minLat, minLon, maxLat, maxLon, MAX_QUERY_CELLS);
+        List<long[]> ranges = GeoHash.toRanges(GeoHash.cover(minLat, minLon, maxLat, maxLon, precision), precision);
+
+        // Key ranges are computed longs, so they are inlined to keep each one an index range
+        StringBuilder where = new StringBuilder("(");
+        for (int i = 0; i < ranges.size(); i++) {
+            if (i > 0) where.append(" OR ");
+            where.append("(geohash >= ").append(ranges.get(i)[0])
+                    .append(" AND geohash < ").append(ranges.get(i)[1]).append(')');
+        }
+        where.append(") AND latitude BETWEEN ? AND ? AND longitude BETWEEN ? AND ?")
+                .append(" AND timestamp >= ? AND timestamp < ?");
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMNS + " FROM " + TABLE
+                        + " WHERE " + where + " ORDER BY timestamp",
+                new String[]{Double.toString(minLat), Double.toString(maxLat), Double.toString(minLon),
+                        Double.toString(maxLon), Long.toString(fromTime), Long.toString(toTime)})) {
+            return readPoints(cursor);
+        }
+    }
+
+    // Drop points older than the cutoff; returns how many were removed
+    public int deleteBefore(long cutoffMillis) {
+        return getWritableDatabase().delete(TABLE, "timestamp < ?", new String[]{Long.toString(cutoffMillis)});
+    }
+
+    public long getPointCount() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    private static List<LocationPoint> readPoints(Cursor cursor) {
+        List<LocationPoint> points = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            points.add(new LocationPoint(cursor.getDouble(0), cursor.getDouble(1), cursor.getLong(2),
+                    cursor.isNull(3) ? Float.NaN : cursor.getFloat(3),
+                    cursor.isNull(4) ? Float.NaN : cursor.getFloat(4)));
+        }
+        return points;
+    }
+
+    // Unknown accuracy or speed is stored as NULL
+    private static void bindFloat(SQLiteStatement statement, int index, float value) {
+        if (Float.isNaN(value)) statement.bindNull(index);
+        else statement.bindDouble(index, value);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.cargotrackingapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Write-behind buffer that collects fixes and hands them to a sink in batches.
+// A batch is flushed when it reaches maxBatchSize, when the oldest buffered point
+// is older than maxAgeMillis (checked via flushIfDue), or when flush() is called.
+// Only one batch is in flight at a time so the sink sees points in order.
+// The buffer is bounded: with a journal set, journaled points that do not fit are
+// left in the journal and read back once batches get through again; other points
+// are dropped oldest first.
+public class LocationBatchUploader {
+
+    // Destination for flushed batches (Firestore in production, a fake in tests)
+    public interface Sink {
+        void write(List<LocationPoint> points, Callback callback);
+    }
+
+    public interface Callback {
+        void onComplete(boolean success, Throwable error);
+    }
+
+    private final Sink sink;
+    private final int maxBatchSize;
+    private final long maxAgeMillis;
+    private final int maxBufferedPoints;
+    private final LongSupplier clock;
+    private LocationJournal journal;
+
+    private final List<LocationPoint> buffer = new ArrayList<>();
+    // First journaled point left in the journal for lack of room, or NO_SEQUENCE
+    private long deferredFrom = LocationPoint.NO_SEQUENCE;
+    private long oldestBufferedAt;
+    private boolean inFlight = false;
+    private boolean drainRequested = false;
+
+    // Counters
+    private final AtomicLong bufferedCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong deferredCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    public LocationBatchUploader(Sink sink, int maxBatchSize, long maxAgeMillis, LongSupplier clock) {
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("maxBatchSize must be positive");
+        this.sink = sink;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxBufferedPoints = maxBatchSize * 20; // Bound memory while the sink is failing
+        this.clock = clock;
+    }
+
+    // The journal the points' sequences refer to; points the buffer has no room
+    // for are read back from it rather than dropped
+    public synchronized void setJournal(LocationJournal journal) {
+        this.journal = journal;
+    }
+
+    // Queue a point, flushing if the batch is full
+    public void add(LocationPoint point) {
+        synchronized (this) {
+            if (isDeferrable(point) && (deferredFrom != LocationPoint.NO_SEQUENCE
+                    || buffer.size() >= maxBufferedPoints)) {
+                // Stays in the journal, behind any points already deferred
+                if (deferredFrom == LocationPoint.NO_SEQUENCE) deferredFrom = point.sequence;
+                deferredCount.incrementAndGet();
+                return;
+            }
+            if (buffer.isEmpty()) oldestBufferedAt = clock.getAsLong();
+            buffer.add(point);
+            bufferedCount.incrementAndGet();
+            trimToCapacity();
+            if (buffer.size() < maxBatchSize) return;
+        }
+        sendNextBatch();
+    }
+
+    // Flush if the oldest buffered point has waited longer than maxAgeMillis
+    public void flushIfDue() {
+        synchronized (this) {
+            if (buffer.isEmpty() || clock.getAsLong() - oldestBufferedAt < maxAgeMillis) return;
+        }
+        flush();
+    }
+
+    // Send everything buffered to the sink, one batch at a time
+    public void flush() {
+        synchronized (this) {
+            if (buffer.isEmpty()) return;
+            drainRequested = true;
+        }
+        sendNextBatch();
+    }
+
+    // Hand the head of the buffer to the sink unless a batch is already in flight;
+    // in that case the completion callback picks up where it left off
+    private void sendNextBatch() {
+        final List<LocationPoint> batch;
+        synchronized (this) {
+            if (buffer.isEmpty() || inFlight) return;
+            int count = Math.min(buffer.size(), maxBatchSize);
+            List<LocationPoint> head = buffer.subList(0, count);
+            batch = new ArrayList<>(head);
+            head.clear();
+            oldestBufferedAt = clock.getAsLong();
+            inFlight = true;
+        }
+        batchCount.incrementAndGet();
+        try {
+            sink.write(batch, (success, error) -> onBatchComplete(batch, success));
+        } catch (RuntimeException e) {
+            // A sink that throws instead of calling back must not leave the batch in flight
+            onBatchComplete(batch, false);
+        }
+    }
+
+    private void onBatchComplete(List<LocationPoint> batch, boolean success) {
+        boolean again;
+        synchronized (this) {
+            inFlight = false;
+            if (success) {
+                flushedCount.addAndGet(batch.size());
+                readBackDeferred();
+            } else {
+                // Put the batch back at the head so ordering is preserved on retry
+                failedCount.addAndGet(batch.size());
+                buffer.addAll(0, batch);
+                trimToCapacity();
+            }
+            if (buffer.isEmpty() || !success) drainRequested = false;
+            // A failed batch waits for the next trigger rather than retrying in a tight loop
+            again = success && (drainRequested || buffer.size() >= maxBatchSize);
+        }
+        if (again) sendNextBatch();
+    }
+
+    // Once the buffer exceeds its bound, hand the newest journaled points back to
+    // the journal, then drop the oldest of what is left over
+    private void trimToCapacity() {
+        int excess = buffer.size() - maxBufferedPoints;
+        while (excess > 0 && isDeferrable(buffer.get(buffer.size() - 1))) {
+            deferredFrom = buffer.remove(buffer.size() - 1).sequence;
+            deferredCount.incrementAndGet();
+            excess--;
+        }
+        if (excess > 0) {
+            buffer.subList(0, excess).clear();
+            droppedCount.addAndGet(excess);
+        }
+    }
+
+    // Refill the buffer from the journal, from the first deferred point on. Points
+    // appended meanwhile were deferred too, so once the journal has no more the
+    // buffer is in step with it again.
+    private void readBackDeferred() {
+        if (deferredFrom == LocationPoint.NO_SEQUENCE) return;
+        int room = maxBufferedPoints - buffer.size();
+        if (room <= 0) return;
+        if (buffer.isEmpty()) oldestBufferedAt = clock.getAsLong();
+        int read = journal.read(deferredFrom, room, (sequence, timestamp, latitude, longitude, accuracy, speed) -> {
+            buffer.add(new LocationPoint(latitude, longitude, timestamp, accuracy, speed, sequence,
+                    journal.getTripId(sequence)));
+            deferredFrom = sequence + 1;
+        });
+        if (read < room) deferredFrom = LocationPoint.NO_SEQUENCE;
+    }
+
+    private boolean isDeferrable(LocationPoint point) {
+        return journal != null && point.sequence != LocationPoint.NO_SEQUENCE;
+    }
+
+    public synchronized int getPendingCount() {
+        return buffer.size();
+    }
+
+    // Whether a batch was handed to the sink and has not completed yet; a drain
+    // between batches sends the next one from the completion, so never looks idle
+    public synchronized boolean isInFlight() {
+        return inFlight;
+    }
+
+    public long getBufferedCount() {
+        return bufferedCount.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    // Points left in the journal while the buffer was full; read back later, not lost
+    public long getDeferredCount() {
+        return deferredCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "buffered=" + getBufferedCount() + " flushed=" + getFlushedCount()
+                + " failed=" + getFailedCount() + " dropped=" + getDroppedCount() + " deferred=" + getDeferredCount()
+                + " batches=" + getBatchCount() + " pending=" + getPendingCount();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.cargotrackingapp;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+// In-process channel from LocationService to the UI. Accepted fixes are published
+// as LocationPoint objects on two streams: FIXES hands observers only the latest
+// one, enough for a position readout, while TRACK hands them every fix in order,
+// as a path needs.
+public final class LocationBus {
+
+    // About a quarter of an hour of fixes at the fastest sampling rate
+    private static final int TRACK_RETAINED = 1024;
+
+    public static final ConflatedStream<LocationPoint> FIXES = new ConflatedStream<>();
+    public static final OrderedStream<LocationPoint> TRACK = new OrderedStream<>(TRACK_RETAINED);
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN_EXECUTOR = MAIN_HANDLER::post;
+
+    private LocationBus() {
+    }
+
+    // Observe fixes on the main thread while the owner is started, like LiveData:
+    // subscribed on ON_START, with the latest fix first, and cancelled on ON_STOP
+    public static void observe(LifecycleOwner owner, ConflatedStream.Observer<LocationPoint> observer) {
+        bind(owner, () -> FIXES.subscribe(MAIN_EXECUTOR, observer));
+    }
+
+    // Observe every fix, in order, on the main thread while the owner is started;
+    // each ON_START begins with the fixes TRACK still retains
+    public static void observeTrack(LifecycleOwner owner, ConflatedStream.Observer<LocationPoint> observer) {
+        bind(owner, () -> TRACK.subscribe(MAIN_EXECUTOR, observer));
+    }
+
+    // Publish an accepted fix on both streams; safe to call from any thread
+    public static void publish(LocationPoint point) {
+        TRACK.publish(point);
+        FIXES.publish(point);
+    }
+
+    // Forget the last trip's fixes, so new observers do not start from them
+    public static void clear() {
+        TRACK.clear();
+        FIXES.clear();
+    }
+
+    private static void bind(LifecycleOwner owner, Supplier<ConflatedStream.Subscription> subscribe) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) return;
+        // Called back with ON_START at once if the owner is already started
+        lifecycle.addObserver(new DefaultLifecycleObserver() {
+            private ConflatedStream.Subscription subscription;
+
+            @Override
+            public void onStart(@NonNull LifecycleOwner source) {
+                subscription = subscribe.get();
+            }
+
+            @Override
+            public void onStop(@NonNull LifecycleOwner source) {
+                if (subscription != null) subscription.cancel();
+                subscription = null;
+            }
+
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                source.getLifecycle().removeObserver(this);
+            }
+        });
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.cargotrackingapp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// Append-only, memory-mapped journal of accepted fixes.
+//
+// Every record has a fixed size and is addressed by a monotonically increasing
+// sequence number. The header keeps three cursors: the sequence stored in slot 0
+// (base), the first sequence not yet acknowledged upstream (acked) and the next
+// sequence to write. Records carry a checksum over their sequence and payload, so
+// after a crash any records written past the last header update are recovered by
+// scanning forward, and stale or torn slots are ignored.
+//
+// Each record also keeps the id of the trip it was recorded in, so points replayed
+// after a crash or drained by the sync worker are stored with their own trip rather
+// than whichever one is current by then.
+//
+// Appends and reads go straight to the mapped buffer and, as long as the trip
+// stays the same, allocate nothing.
+public class LocationJournal implements Closeable {
+
+    // Receives records without boxing them into objects
+    public interface RecordVisitor {
+        void visit(long sequence, long timestamp, double latitude, double longitude,
+                   float accuracy, float speed);
+    }
+
+    private static final int MAGIC = 0x43544a31; // "CTJ1"
+    private static final int VERSION = 2;
+
+    // Header layout
+    private static final int HEADER_SIZE = 64;
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_RECORD_SIZE = 8;
+    private static final int OFF_BASE = 16;
+    private static final int OFF_ACKED = 24;
+    private static final int OFF_WRITE = 32;
+
+    // Record layout
+    static final int RECORD_SIZE = 64;
+    private static final int REC_TIMESTAMP = 0;
+    private static final int REC_LATITUDE = 8;
+    private static final int REC_LONGITUDE = 16;
+    private static final int REC_ACCURACY = 24;
+    private static final int REC_SPEED = 28;
+    private static final int REC_CHECK = 32;
+    // Length byte, then the trip id's UTF-8 bytes, zero padded to the end of the record
+    private static final int REC_TRIP = 40;
+    static final int MAX_TRIP_ID_BYTES = RECORD_SIZE - REC_TRIP - 1;
+
+    private static final int DEFAULT_CAPACITY = 16 * 1024; // records, 1 MB
+
+    private final File file;
+    private final int initialCapacity;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+
+    private long baseSequence;
+    private long ackedSequence;
+    private long writeSequence;
+
+    // Last trip id encoded and decoded, so a run of records of one trip reuses them
+    private String appendTripId;
+    private byte[] appendTripBytes = new byte[0];
+    private String readTripId;
+    private byte[] readTripBytes = new byte[0];
+
+    private LocationJournal(File file, int initialCapacity) {
+        this.file = file;
+        this.initialCapacity = initialCapacity;
+    }
+
+    public static LocationJournal open(File file) throws IOException {
+        return open(file, DEFAULT_CAPACITY);
+    }
+
+    // Open or create a journal; throws if the file exists but is not a journal
+    public static LocationJournal open(File file, int initialCapacity) throws IOException {
+        if (initialCapacity <= 0) throw new IllegalArgumentException("initialCapacity must be positive");
+        LocationJournal journal = new LocationJournal(file, initialCapacity);
+        try {
+            journal.load();
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    private void load() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        long length = raf.length();
+        if (length == 0) {
+            map(initialCapacity);
+            buffer.putInt(OFF_MAGIC, MAGIC);
+            buffer.putInt(OFF_VERSION, VERSION);
+            buffer.putInt(OFF_RECORD_SIZE, RECORD_SIZE);
+            writeHeader();
+            return;
+        }
+        if (length < HEADER_SIZE + RECORD_SIZE) throw new IOException("Journal too short: " + file);
+        map((int) ((length - HEADER_SIZE) / RECORD_SIZE));
+        if (buffer.getInt(OFF_MAGIC) != MAGIC || buffer.getInt(OFF_VERSION) != VERSION
+                || buffer.getInt(OFF_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IOException("Not a location journal: " + file);
+        }
+        baseSequence = buffer.getLong(OFF_BASE);
+        ackedSequence = buffer.getLong(OFF_ACKED);
+        writeSequence = buffer.getLong(OFF_WRITE);
+        if (baseSequence < 0 || ackedSequence < baseSequence || writeSequence < ackedSequence
+                || writeSequence - baseSequence > capacity) {
+            throw new IOException("Corrupt journal header: " + file);
+        }
+        recover();
+    }
+
+    // Pick up records that were written after the header was last updated
+    private void recover() {
+        while (writeSequence - baseSequence < capacity && isValid(writeSequence)) {
+            writeSequence++;
+        }
+        buffer.putLong(OFF_WRITE, writeSequence);
+    }
+
+    private void map(int records) throws IOException {
+        capacity = records;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) records * RECORD_SIZE);
+    }
+
+    // Append a fix that belongs to no trip and return its sequence number
+    public long append(long timestamp, double latitude, double longitude,
+                       float accuracy, float speed) throws IOException {
+        return append(null, timestamp, latitude, longitude, accuracy, speed);
+    }
+
+    // Append a fix recorded in the given trip, or in none when tripId is null, and
+    // return its sequence number. Trip ids are at most MAX_TRIP_ID_BYTES long in UTF-8.
+    public synchronized long append(String tripId, long timestamp, double latitude, double longitude,
+                                    float accuracy, float speed) throws IOException {
+        byte[] trip = encodeTrip(tripId);
+        if (writeSequence - baseSequence >= capacity) makeRoom();
+        long sequence = writeSequence;
+        int offset = offsetOf(sequence);
+        long latBits = Double.doubleToRawLongBits(latitude);
+        long lonBits = Double.doubleToRawLongBits(longitude);
+        int accBits = Float.floatToRawIntBits(accuracy);
+        int speedBits = Float.floatToRawIntBits(speed);
+        buffer.putLong(offset + REC_TIMESTAMP, timestamp);
+        buffer.putLong(offset + REC_LATITUDE, latBits);
+        buffer.putLong(offset + REC_LONGITUDE, lonBits);
+        buffer.putInt(offset + REC_ACCURACY, accBits);
+        buffer.putInt(offset + REC_SPEED, speedBits);
+        for (int i = REC_TRIP; i < RECORD_SIZE; i += 8) buffer.putLong(offset + i, 0);
+        buffer.put(offset + REC_TRIP, (byte) trip.length);
+        for (int i = 0; i < trip.length; i++) buffer.put(offset + REC_TRIP + 1 + i, trip[i]);
+        buffer.putLong(offset + REC_CHECK, checksum(sequence, timestamp, latBits, lonBits, accBits, speedBits,
+                tripChecksum(offset)));
+        writeSequence = sequence + 1;
+        buffer.putLong(OFF_WRITE, writeSequence);
+        return sequence;
+    }
+
+    // Visit up to maxRecords unacknowledged records starting at fromSequence
+    public synchronized int read(long fromSequence, int maxRecords, RecordVisitor visitor) {
+        long sequence = Math.max(fromSequence, ackedSequence);
+        int count = 0;
+        while (sequence < writeSequence && count < maxRecords) {
+            int offset = offsetOf(sequence);
+            visitor.visit(sequence,
+                    buffer.getLong(offset + REC_TIMESTAMP),
+                    Double.longBitsToDouble(buffer.getLong(offset + REC_LATITUDE)),
+                    Double.longBitsToDouble(buffer.getLong(offset + REC_LONGITUDE)),
+                    Float.intBitsToFloat(buffer.getInt(offset + REC_ACCURACY)),
+                    Float.intBitsToFloat(buffer.getInt(offset + REC_SPEED)));
+            sequence++;
+            count++;
+        }
+        return count;
+    }
+
+    // Trip the record at sequence was recorded in, or null for none; only valid for
+    // sequences read() still returns
+    public synchronized String getTripId(long sequence) {
+        int offset = offsetOf(sequence);
+        int length = buffer.get(offset + REC_TRIP) & 0xff;
+        if (length == 0) return null;
+        boolean same = length == readTripBytes.length;
+        for (int i = 0; same && i < length; i++) {
+            same = buffer.get(offset + REC_TRIP + 1 + i) == readTripBytes[i];
+        }
+        if (!same) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) bytes[i] = buffer.get(offset + REC_TRIP + 1 + i);
+            readTripBytes = bytes;
+            readTripId = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return readTripId;
+    }
+
+    // Mark [fromSequence, toSequence) as delivered upstream. The cursor only moves
+    // when the range starts at or before it, so a gap is never acknowledged.
+    public synchronized boolean acknowledge(long fromSequence, long toSequence) {
+        if (fromSequence > ackedSequence || toSequence <= ackedSequence) return false;
+        ackedSequence = Math.min(toSequence, writeSequence);
+        buffer.putLong(OFF_ACKED, ackedSequence);
+        return true;
+    }
+
+    // Move unacknowledged records to the front of the file and shrink it back to
+    // its initial size when they fit. Records are only moved into slots that hold
+    // acknowledged data, so a crash part way through leaves the old header valid;
+    // returns false when that is not yet possible.
+    public synchronized boolean compact() throws IOException {
+        long pending = writeSequence - ackedSequence;
+        long shift = ackedSequence - baseSequence;
+        if (shift == 0 || shift < pending) return false;
+        for (long sequence = ackedSequence; sequence < writeSequence; sequence++) {
+            int from = offsetOf(sequence);
+            int to = from - (int) shift * RECORD_SIZE;
+            for (int i = 0; i < RECORD_SIZE; i += 8) {
+                buffer.putLong(to + i, buffer.getLong(from + i));
+            }
+        }
+        baseSequence = ackedSequence;
+        buffer.putLong(OFF_BASE, baseSequence);
+        if (capacity > initialCapacity && pending <= initialCapacity / 2) {
+            buffer.force();
+            map(initialCapacity);
+            raf.setLength(HEADER_SIZE + (long) initialCapacity * RECORD_SIZE);
+        }
+        return true;
+    }
+
+    // Compact when enough has been acknowledged, otherwise grow the file
+    private void makeRoom() throws IOException {
+        if (!compact() || writeSequence - baseSequence >= capacity) {
+            map(capacity * 2);
+        }
+    }
+
+    // Force mapped pages to storage
+    public synchronized void sync() {
+        buffer.force();
+    }
+
+    public synchronized long getAckedSequence() {
+        return ackedSequence;
+    }
+
+    public synchronized long getWriteSequence() {
+        return writeSequence;
+    }
+
+    public synchronized long getPendingCount() {
+        return writeSequence - ackedSequence;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) buffer.force();
+        if (raf != null) raf.close();
+        buffer = null;
+        channel = null;
+        raf = null;
+    }
+
+    private void writeHeader() {
+        buffer.putLong(OFF_BASE, baseSequence);
+        buffer.putLong(OFF_ACKED, ackedSequence);
+        buffer.putLong(OFF_WRITE, writeSequence);
+    }
+
+    private int offsetOf(long sequence) {
+        return HEADER_SIZE + (int) (sequence - baseSequence) * RECORD_SIZE;
+    }
+
+    private boolean isValid(long sequence) {
+        int offset = offsetOf(sequence);
+        long stored = buffer.getLong(offset + REC_CHECK);
+        return stored != 0 && stored == checksum(sequence,
+                buffer.getLong(offset + REC_TIMESTAMP),
+                buffer.getLong(offset + REC_LATITUDE),
+                buffer.getLong(offset + REC_LONGITUDE),
+                buffer.getInt(offset + REC_ACCURACY),
+                buffer.getInt(offset + REC_SPEED),
+                tripChecksum(offset));
+    }
+
+    private byte[] encodeTrip(String tripId) {
+        if (tripId == null) return new byte[0];
+        if (!tripId.equals(appendTripId)) {
+            byte[] bytes = tripId.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0 || bytes.length > MAX_TRIP_ID_BYTES) {
+                throw new IllegalArgumentException("Trip id must be 1 to " + MAX_TRIP_ID_BYTES + " bytes: " + tripId);
+            }
+            appendTripBytes = bytes;
+            appendTripId = tripId;
+        }
+        return appendTripBytes;
+    }
+
+    // Hash of the record's trip field, folded into its checksum
+    private long tripChecksum(int offset) {
+        long h = 0;
+        for (int i = REC_TRIP; i < RECORD_SIZE; i += 8) h = mix(h ^ buffer.getLong(offset + i));
+        return h;
+    }
+
+    private static long checksum(long sequence, long timestamp, long latBits, long lonBits,
+                                 int accBits, int speedBits, long tripHash) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h ^ sequence);
+        h = mix(h ^ timestamp);
+        h = mix(h ^ latBits);
+        h = mix(h ^ lonBits);
+        h = mix(h ^ (((long) accBits << 32) | (speedBits & 0xffffffffL)));
+        h = mix(h ^ tripHash);
+        return h == 0 ? 1 : h;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.cargotrackingapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Immutable snapshot of an accepted location fix
+public final class LocationPoint {
+
+    public final double latitude;
+    public final double longitude;
+    public final long timestamp;
+    public final float accuracy;
+    public final float speed;
+    public final long sequence; // Journal sequence number, or NO_SEQUENCE
+    public final String tripId; // Trip the fix was recorded in, or null
+
+    public static final long NO_SEQUENCE = -1;
+
+    public LocationPoint(double latitude, double longitude, long timestamp, float accuracy, float speed) {
+        this(latitude, longitude, timestamp, accuracy, speed, NO_SEQUENCE);
+    }
+
+    public LocationPoint(double latitude, double longitude, long timestamp, float accuracy, float speed,
+                         long sequence) {
+        this(latitude, longitude, timestamp, accuracy, speed, sequence, null);
+    }
+
+    public LocationPoint(double latitude, double longitude, long timestamp, float accuracy, float speed,
+                         long sequence, String tripId) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = timestamp;
+        this.accuracy = accuracy;
+        this.speed = speed;
+        this.sequence = sequence;
+        this.tripId = tripId;
+    }
+
+    // Consecutive runs of points recorded in the same trip, in order; a batch only
+    // spans trips when it holds points replayed from an earlier one
+    public static List<List<LocationPoint>> splitByTrip(List<LocationPoint> points) {
+        List<List<LocationPoint>> runs = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= points.size(); i++) {
+            if (i < points.size() && Objects.equals(points.get(i).tripId, points.get(start).tripId)) continue;
+            runs.add(points.subList(start, i));
+            start = i;
+        }
+        return runs;
+    }
+
+    @Override
+    public String toString() {
+        return "LocationPoint{" + latitude + ", " + longitude + " @" + timestamp + "}";
+    }
+}
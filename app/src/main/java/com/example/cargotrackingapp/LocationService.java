@@ -3,78 +3,347 @@ package com.example.cargotrackingapp;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ServiceInfo;
-import android.location.Location;
 import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
-import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
-import androidx.core.app.NotificationCompat;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
-
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
-import com.google.android.gms.location.LocationServices;
-import com.google.android.gms.location.Priority;
+import androidx.annotation.VisibleForTesting;
+
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 public class LocationService extends Service {
 
     // Constants
     private static final String TAG = "LocationService";
     private static final String CHANNEL_ID = "location_channel";
+    private static final String ALERT_CHANNEL_ID = "tracking_alerts_channel";
     private static final int NOTIFICATION_ID = 1;
+    private static final int STOP_ALERT_ID = 2;
+    private static final int GEOFENCE_ALERT_ID = 3;
+    private static final long NOTIFICATION_INTERVAL_MS = 10000;
+    private static final int UPLOAD_BATCH_SIZE = 50;
+    private static final long UPLOAD_MAX_AGE_MS = 60000;
+    private static final int LOCAL_BATCH_SIZE = 25;
+    private static final long LOCAL_RETENTION_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final int JOURNAL_REPLAY_LIMIT = 500;
+    private static final String JOURNAL_FILE = "locations.journal";
+    private static final int FIX_QUEUE_CAPACITY = 32;
+    private static final String METRICS_FILE = "metrics.jsonl";
+    private static final long METRICS_INTERVAL_MS = 60000;
+    private static final long METRICS_MAX_BYTES = 256 * 1024;
+    private static final long SHUTDOWN_TIMEOUT_MS = 30000;
+    private static final long SHUTDOWN_POLL_MS = 250;
 
     // Action constants
     public static final String ACTION_START_TRACKING = "com.example.cargotracking.START_TRACKING";
     public static final String ACTION_STOP_TRACKING = "com.example.cargotracking.STOP_TRACKING";
-    public static final String ACTION_LOCATION_UPDATE = "com.example.cargotracking.LOCATION_UPDATE";
-    public static final String EXTRA_LATITUDE = "extra_latitude";
-    public static final String EXTRA_LONGITUDE = "extra_longitude";
+
+    // Where fixes come from and where point batches are uploaded; replaced in
+    // instrumented tests and on-device replays so the service runs without GPS or
+    // the Firestore point store. Upload sinks store points under their own trip,
+    // get the live trip for its summary, and complete on callbackExecutor.
+    interface Dependencies {
+        LocationSource createLocationSource(Context context);
+
+        LocationBatchUploader.Sink createUploadSink(Context context, String vehicleId, Supplier<TripSession> trip,
+                                                    Executor callbackExecutor);
+    }
+
+    private static final Dependencies DEFAULT_DEPENDENCIES = new Dependencies() {
+        @Override
+        public LocationSource createLocationSource(Context context) {
+            return new FusedLocationSource(context);
+        }
+
+        @Override
+        public LocationBatchUploader.Sink createUploadSink(Context context, String vehicleId,
+                                                          Supplier<TripSession> trip, Executor callbackExecutor) {
+            return new FirestoreLocationSink(LazyFirebase.firestore(context), vehicleId, trip, callbackExecutor);
+        }
+    };
+
+    @VisibleForTesting
+    static volatile Dependencies dependencies = DEFAULT_DEPENDENCIES;
 
     // Service components
-    private FusedLocationProviderClient fusedLocationClient;
-    private LocationCallback locationCallback;
+    private LocationSource locationSource;
     private FirebaseFirestore db;
-    private boolean isTracking = false;
+    private LocationBatchUploader uploader;
+    private LocationBatchUploader localUploader;
+    private LocalTrackStore localStore;
+    private LocalTrackSink localSink;
+    private String vehicleId;
+    private volatile TripSession tripSession;
+    private FixProcessor processor;
+    private TrackingNotifier notifier;
+    private volatile boolean isTracking = false;
+
+    // Fixes are received on the source's thread, processed on processingThread,
+    // and accepted fixes are published on LocationBus for the UI
+    private HandlerThread processingThread;
+    private Handler processingHandler;
+    private final BoundedFixQueue<LocationPoint> fixQueue = new BoundedFixQueue<>(FIX_QUEUE_CAPACITY);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Shared across service restarts and the sync worker
+    private static LocationJournal journal;
+    private static MetricsLog metricsLog;
+    // The service instance whose uploader owns the journal's unacknowledged records,
+    // or null; guarded by the class lock, which the sync worker's compaction takes too
+    private static LocationService journalOwner;
+    private final TrackingMetrics metrics = TrackingMetrics.GLOBAL;
+
+    // Periodically flush buffered points that have waited too long, and park a
+    // truck the distance filter has silenced
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            processor.tick();
+            processor.flushIfDue();
+            processingHandler.postDelayed(this, UPLOAD_MAX_AGE_MS / 4);
+        }
+    };
+
+    // Append what was recorded since the last snapshot to the metrics log
+    private final Runnable metricsTask = new Runnable() {
+        @Override
+        public void run() {
+            writeMetricsSnapshot();
+            processingHandler.postDelayed(this, METRICS_INTERVAL_MS);
+        }
+    };
+
+    // Process everything queued since the last drain
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drainScheduled.set(false);
+            LocationPoint fix;
+            while ((fix = fixQueue.poll()) != null) {
+                processor.getStats().record(PipelineStats.Stage.QUEUE, System.nanoTime() - fixQueue.getLastEnqueuedAt());
+                if (!processor.process(fix, fixQueue.getLastEnqueuedAt())) {
+                    DebugLog.d(TAG, "Ignoring location: ", processor.getFilter().getLastRejection());
+                }
+            }
+        }
+    };
+
+    // Runs on the source's thread: only enqueue, and wake the processing thread once per burst
+    private final LocationSource.Listener sourceListener = new LocationSource.Listener() {
+        @Override
+        public void onLocation(LocationPoint fix) {
+            metrics.increment(TrackingMetrics.Counter.FIXES_RECEIVED);
+            if (fixQueue.offer(fix, System.nanoTime())) {
+                metrics.increment(TrackingMetrics.Counter.DROPPED_QUEUE_FULL);
+            }
+            if (drainScheduled.compareAndSet(false, true)) {
+                processingHandler.post(drainTask);
+            }
+        }
+    };
+
+    // Android side effects of the pipeline, called on the processing thread
+    private final FixProcessor.Listener processorListener = new FixProcessor.Listener() {
+        @Override
+        public void onAccepted(LocationPoint point) {
+            notifier.updateLocation(point.latitude, point.longitude);
+            // The track gets every fix; position observers that fall behind only the newest
+            LocationBus.publish(point);
+            DebugLog.d(TAG, "Location update: ", point.latitude, point.longitude);
+        }
+
+        @Override
+        public void onProfileChanged(AdaptiveSamplingScheduler.Profile from, AdaptiveSamplingScheduler.Profile to,
+                                     double latitude, double longitude) {
+            try {
+                locationSource.start(to, sourceListener);
+                DebugLog.d(TAG, "Sampling profile changed: ", to);
+                notifyMotionChange(from, to, latitude, longitude);
+            } catch (SecurityException e) {
+                Log.e(TAG, "Error updating location request", e);
+            }
+        }
+
+        @Override
+        public void onGeofenceEvent(GeofenceEngine.Event event) {
+            LocationService.this.onGeofenceEvent(event);
+        }
+    };
+
+    // Store detected stops with the trip's events
+    private final TripAnalyzer.Listener tripListener = new TripAnalyzer.Listener() {
+        @Override
+        public void onStop(TripAnalyzer.Stop stop) {
+            TripSession session = tripSession;
+            if (session == null) return;
+            Map<String, Object> data = new HashMap<>();
+            data.put("transition", "STOP");
+            data.put("timestamp", stop.startTime);
+            data.put("endTime", stop.endTime);
+            data.put("latitude", stop.latitude);
+            data.put("longitude", stop.longitude);
+            data.put("insideMillis", stop.getDurationMillis());
+            session.events(db).add(data)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error storing stop", e));
+        }
+
+        @Override
+        public void onLeg(TripAnalyzer.Leg leg) {
+            if (DebugLog.ENABLED) {
+                Log.d(TAG, "Leg of " + Math.round(leg.distanceMeters) + " m in " + (leg.endTime - leg.startTime) / 1000 + " s");
+            }
+        }
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
 
-        // Initialize Firebase and location services
-        db = FirebaseFirestore.getInstance();
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
+        // Only what the main thread needs before startForeground: the location
+        // source, the processing thread and the notification channels
+        locationSource = dependencies.createLocationSource(this);
 
-        // Set up location callback
-        setupLocationCallback();
+        // Dedicated thread for filtering, storage and notifications
+        processingThread = new HandlerThread("LocationProcessing");
+        processingThread.start();
+        processingHandler = new Handler(processingThread.getLooper());
 
-        // Create notification channel for foreground service
+        // Create notification channels and the reusable notification for the foreground service
         createNotificationChannel();
+        notifier = new TrackingNotifier(this, processingHandler, CHANNEL_ID, ALERT_CHANNEL_ID,
+                NOTIFICATION_ID, NOTIFICATION_INTERVAL_MS);
+
+        // Firestore, the journal, the local store and the pipeline are set up on the
+        // processing thread; everything else posted there runs after this
+        processingHandler.post(this::initializePipeline);
     }
 
-    // Define how to handle location updates
-    private void setupLocationCallback() {
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(LocationResult locationResult) {
-                if (locationResult != null) {
-                    for (Location location : locationResult.getLocations()) {
-                        processLocationUpdate(location);
-                    }
-                }
+    // Called on the processing thread, first
+    private void initializePipeline() {
+        claimJournal(this);
+        db = LazyFirebase.firestore(this);
+
+        // Buffer fixes and upload them in batches, acknowledging them in the journal once committed
+        getJournal(this);
+        getMetricsLog(this);
+        vehicleId = VehicleIdentity.get(this);
+        LocationBatchUploader.Sink sink = new MeasuredSink(
+                dependencies.createUploadSink(this, vehicleId, () -> tripSession, processingHandler::post), metrics,
+                TrackingMetrics.Timer.FIRESTORE_ROUND_TRIP, TrackingMetrics.Timer.FIX_TO_PERSISTED,
+                System::currentTimeMillis);
+        if (journal != null) sink = new JournalAcknowledgingSink(sink, journal);
+        uploader = new LocationBatchUploader(sink, UPLOAD_BATCH_SIZE, UPLOAD_MAX_AGE_MS, System::currentTimeMillis);
+        if (journal != null) uploader.setJournal(journal);
+
+        // Mirror the same points into the on-device store, in transactions of LOCAL_BATCH_SIZE
+        localStore = LocalTrackStore.getInstance(this);
+        localSink = new LocalTrackSink(localStore, vehicleId);
+        localUploader = new LocationBatchUploader(new MeasuredSink(localSink, metrics,
+                TrackingMetrics.Timer.LOCAL_WRITE, null, System::currentTimeMillis),
+                LOCAL_BATCH_SIZE, UPLOAD_MAX_AGE_MS, System::currentTimeMillis);
+
+        // Filtering, trip statistics, geofences and sampling, storing into both uploaders
+        processor = FixProcessor.forTrucks(System::currentTimeMillis, processorListener);
+        processor.setJournal(journal);
+        processor.addUploader(uploader);
+        processor.addUploader(localUploader);
+
+        // Re-queue points a previous instance journaled but never got acknowledged
+        replayJournal();
+
+        // Depot and customer fences are evaluated on the processing thread once loaded
+        loadGeofences();
+    }
+
+    // Open the on-device journal, starting a fresh one if the file is unreadable
+    static synchronized LocationJournal getJournal(Context context) {
+        if (journal != null) return journal;
+        File file = new File(context.getFilesDir(), JOURNAL_FILE);
+        try {
+            journal = LocationJournal.open(file);
+        } catch (IOException e) {
+            Log.e(TAG, "Discarding unreadable location journal", e);
+            try {
+                if (file.delete()) journal = LocationJournal.open(file);
+            } catch (IOException retry) {
+                Log.e(TAG, "Location journal unavailable", retry);
             }
-        };
+        }
+        return journal;
+    }
+
+    // Whether a running service uploads the journal; the sync worker leaves it alone then
+    static synchronized boolean isJournalOwned() {
+        return journalOwner != null;
+    }
+
+    private static synchronized void claimJournal(LocationService owner) {
+        journalOwner = owner;
+    }
+
+    // Only the owner gives the journal up, so an instance shutting down cannot
+    // release one a newer instance has already claimed
+    private static synchronized void releaseJournal(LocationService owner) {
+        if (journalOwner == owner) journalOwner = null;
+    }
+
+    // Compact the journal for the sync worker unless a service has claimed it since
+    // the worker last checked; false if one has
+    static synchronized boolean compactJournalUnlessOwned() throws IOException {
+        if (journalOwner != null) return false;
+        if (journal != null) {
+            journal.compact();
+            journal.sync();
+        }
+        return true;
+    }
+
+    // Snapshots are appended while tracking and uploaded in bulk by the sync worker
+    static synchronized MetricsLog getMetricsLog(Context context) {
+        if (metricsLog == null) {
+            metricsLog = new MetricsLog(new File(context.getFilesDir(), METRICS_FILE), METRICS_MAX_BYTES);
+        }
+        return metricsLog;
+    }
+
+    // Called on the processing thread
+    private void writeMetricsSnapshot() {
+        TrackingMetrics.Snapshot snapshot = metrics.snapshot(System.currentTimeMillis());
+        if (snapshot.isEmpty()) return;
+        try {
+            metricsLog.append(snapshot.toJson());
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing metrics snapshot", e);
+        }
+    }
+
+    // Queue unacknowledged journal records for upload, each under the trip it was
+    // recorded in rather than the one this instance goes on to start
+    private void replayJournal() {
+        if (journal == null || journal.getPendingCount() == 0) return;
+        int replayed = journal.read(journal.getAckedSequence(), JOURNAL_REPLAY_LIMIT,
+                (sequence, timestamp, latitude, longitude, accuracy, speed) -> uploader.add(
+                        new LocationPoint(latitude, longitude, timestamp, accuracy, speed, sequence,
+                                journal.getTripId(sequence))));
+        Log.d(TAG, "Replaying " + replayed + " of " + journal.getPendingCount() + " journaled locations");
     }
 
     @Override
@@ -85,7 +354,8 @@ public class LocationService extends Service {
                 startLocationTracking();
             } else if (ACTION_STOP_TRACKING.equals(action)) {
                 stopLocationTracking();
-                stopSelf();
+                // After the stop has run there, unless a later start arrived meanwhile
+                processingHandler.post(() -> stopSelf(startId));
             }
         }
         return START_STICKY; // Service will restart if killed
@@ -93,14 +363,15 @@ public class LocationService extends Service {
 
     // Start tracking location updates
     private void startLocationTracking() {
-        LocationRequest locationRequest = new LocationRequest.Builder(10000) // Update every 10s
-                .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
-                .setMinUpdateIntervalMillis(5000) // Minimum 5s between updates
-                .build();
-
         try {
-            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+            fixQueue.clear();
+            LocationBus.clear(); // New observers must not start from the last trip's fix
+            processingHandler.post(() -> processor.reset());
+            locationSource.start(AdaptiveSamplingScheduler.Profile.SLOW, sourceListener);
             isTracking = true;
+            processingHandler.postDelayed(flushTask, UPLOAD_MAX_AGE_MS / 4);
+            processingHandler.postDelayed(metricsTask, METRICS_INTERVAL_MS);
+            processingHandler.post(this::startTrip);
             startForeground();
             Log.d(TAG, "Location tracking started");
         } catch (SecurityException e) {
@@ -108,55 +379,52 @@ public class LocationService extends Service {
         }
     }
 
-    // Stop tracking location updates
-    private void stopLocationTracking() {
-        fusedLocationClient.removeLocationUpdates(locationCallback);
-        isTracking = false;
-        stopForeground(true);
-        Log.d(TAG, "Location tracking stopped");
-    }
-
-    // Process a new location update
-    private void processLocationUpdate(Location location) {
-        // Filter out invalid or inaccurate locations
-        if (!isValidLocation(location)) return;
-
-        double latitude = location.getLatitude();
-        double longitude = location.getLongitude();
-
-        // Update UI and storage
-        updateNotification(latitude, longitude);
-        sendLocationUpdateNotification(latitude, longitude);
-        broadcastLocationUpdate(latitude, longitude);
-        saveLocationToFirestore(latitude, longitude);
-
-        Log.d(TAG, "Location update: " + latitude + ", " + longitude);
+    // Open a new trip partition; batches uploaded from now on are stored under it.
+    // Called on the processing thread.
+    private void startTrip() {
+        TripSession session = TripSession.create(db, vehicleId, tripListener);
+        session.document(db).set(session.startFields(System.currentTimeMillis()))
+                .addOnFailureListener(e -> Log.e(TAG, "Error recording trip start", e));
+        TripSession.setLastTripId(this, session.tripId);
+        processor.setTrip(session.tripId, session.summary, session.analyzer);
+        tripSession = session;
+        int pruned = localStore.deleteBefore(System.currentTimeMillis() - LOCAL_RETENTION_MS);
+        if (pruned > 0) Log.d(TAG, "Pruned " + pruned + " expired local points");
+        Log.d(TAG, "Started trip " + session.tripId);
     }
 
-    // Validate location data
-    private boolean isValidLocation(Location location) {
-        if (location.getLatitude() == 0 && location.getLongitude() == 0) {
-            Log.d(TAG, "Ignoring invalid location at 0,0");
-            return false;
-        }
-        if (location.hasAccuracy() && location.getAccuracy() > 100) {
-            Log.d(TAG, "Ignoring inaccurate location: " + location.getAccuracy() + "m");
-            return false;
-        }
-        return true;
+    // Record the end time and final summary of the current trip
+    private void finishTrip() {
+        TripSession session = tripSession;
+        if (session == null) return;
+        session.analyzer.finish();
+        session.document(db).set(session.endFields(System.currentTimeMillis()), SetOptions.merge())
+                .addOnFailureListener(e -> Log.e(TAG, "Error recording trip end", e));
+        Log.d(TAG, "Finished trip " + session.tripId + ": " + session.summary + ", " + session.analyzer);
     }
 
-    // Save location to Firestore
-    private void saveLocationToFirestore(double latitude, double longitude) {
-        Map<String, Object> locationData = new HashMap<>();
-        locationData.put("latitude", latitude);
-        locationData.put("longitude", longitude);
-        locationData.put("timestamp", System.currentTimeMillis());
-
-        db.collection("locations")
-                .add(locationData)
-                .addOnSuccessListener(doc -> Log.d(TAG, "Location saved: " + doc.getId()))
-                .addOnFailureListener(e -> Log.e(TAG, "Error saving location", e));
+    // Stop tracking location updates
+    private void stopLocationTracking() {
+        locationSource.stop();
+        isTracking = false;
+        processingHandler.removeCallbacks(flushTask);
+        processingHandler.removeCallbacks(metricsTask);
+        processingHandler.post(() -> {
+            if (!isTracking) notifier.cancelPending();
+            processor.flush(); // Push out whatever is still buffered
+            if (!isTracking) LocationBus.clear(); // After the last queued fix was published
+            if (journal != null) journal.sync();
+            finishTrip();
+            writeMetricsSnapshot();
+            Log.d(TAG, "Location tracking stopped, uploads: " + uploader + ", sampling: " + processor.getScheduler()
+                    + ", queue: depth=" + fixQueue.getDepth() + " max=" + fixQueue.getMaxDepth()
+                    + " dropped=" + fixQueue.getDroppedCount() + ", stages: " + processor.getStats()
+                    + ", journal errors: " + processor.getJournalErrorCount()
+                    + ", notifications: " + notifier.getThrottle());
+            // Only now, so no fix still queued ahead of the stop can re-post the
+            // notification; skipped if tracking was started again meanwhile
+            if (!isTracking) stopForeground(true);
+        });
     }
 
     // Create notification channel for Android O+
@@ -170,12 +438,19 @@ public class LocationService extends Service {
             channel.enableVibration(true);
 
             getSystemService(NotificationManager.class).createNotificationChannel(channel);
+
+            // Event alerts such as stops are kept apart from the ongoing status
+            NotificationChannel alerts = new NotificationChannel(ALERT_CHANNEL_ID,
+                    "Tracking Alerts",
+                    NotificationManager.IMPORTANCE_HIGH);
+            alerts.setDescription("Stops and other tracking events");
+            getSystemService(NotificationManager.class).createNotificationChannel(alerts);
         }
     }
 
     // Start service in foreground mode
     private void startForeground() {
-        Notification notification = createNotification("Tracking location...");
+        Notification notification = notifier.build("Tracking location...");
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
             startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
         } else {
@@ -183,53 +458,66 @@ public class LocationService extends Service {
         }
     }
 
-    // Update ongoing notification with current location
-    private void updateNotification(double latitude, double longitude) {
-        String text = String.format("Location: %.6f, %.6f", latitude, longitude);
-        Notification notification = createNotification(text);
-        getSystemService(NotificationManager.class).notify(NOTIFICATION_ID, notification);
-    }
-
-    // Create a notification with given text
-    private Notification createNotification(String text) {
-        Intent intent = new Intent(this, MainActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent, PendingIntent.FLAG_IMMUTABLE);
+    private void loadGeofences() {
+        GeofenceLoader.load(db, new GeofenceLoader.Listener() {
+            @Override
+            public void onLoaded(List<Geofence> fences) {
+                processingHandler.post(() -> {
+                    processor.getGeofences().setFences(fences);
+                    Log.d(TAG, "Loaded " + fences.size() + " geofences");
+                });
+            }
 
-        return new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setContentTitle("Cargo Tracking")
-                .setContentText(text)
-                .setSmallIcon(R.drawable.ic_location)
-                .setContentIntent(pendingIntent)
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-                .setOngoing(true)
-                .build();
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading geofences", e);
+            }
+        });
     }
 
-    // Send a separate notification for each location update
-    private void sendLocationUpdateNotification(double latitude, double longitude) {
-        String text = String.format("New location update: %.6f, %.6f", latitude, longitude);
-        Intent intent = new Intent(this, MainActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent, PendingIntent.FLAG_IMMUTABLE);
-
-        Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setContentTitle("Location Update")
-                .setContentText(text)
-                .setSmallIcon(R.drawable.ic_location)
-                .setContentIntent(pendingIntent)
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setAutoCancel(true)
-                .build();
+    // Store a geofence transition with the current trip and alert the driver
+    private void onGeofenceEvent(GeofenceEngine.Event event) {
+        DebugLog.d(TAG, "Geofence ", event);
+        TripSession session = tripSession;
+        if (session != null) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("fenceId", event.fence.id);
+            data.put("fenceName", event.fence.name);
+            data.put("transition", event.transition.name());
+            data.put("timestamp", event.timestamp);
+            data.put("latitude", event.latitude);
+            data.put("longitude", event.longitude);
+            data.put("insideMillis", event.insideMillis);
+            session.events(db).add(data)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error storing geofence event", e));
+        }
 
-        getSystemService(NotificationManager.class).notify((int) System.currentTimeMillis(), notification);
+        long minutes = event.insideMillis / 60000;
+        switch (event.transition) {
+            case ENTER:
+                notifier.notifyEvent(GEOFENCE_ALERT_ID, "Arrived", "Arrived at " + event.fence.name);
+                break;
+            case DWELL:
+                notifier.notifyEvent(GEOFENCE_ALERT_ID, "Waiting",
+                        "At " + event.fence.name + " for " + minutes + " min");
+                break;
+            case EXIT:
+                notifier.notifyEvent(GEOFENCE_ALERT_ID, "Departed",
+                        "Left " + event.fence.name + " after " + minutes + " min");
+                break;
+        }
     }
 
-    // Broadcast location update to MainActivity
-    private void broadcastLocationUpdate(double latitude, double longitude) {
-        Intent intent = new Intent(ACTION_LOCATION_UPDATE);
-        intent.putExtra(EXTRA_LATITUDE, latitude);
-        intent.putExtra(EXTRA_LONGITUDE, longitude);
-        LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
+    // Alert when the truck comes to a stop or starts moving again
+    private void notifyMotionChange(AdaptiveSamplingScheduler.Profile from, AdaptiveSamplingScheduler.Profile to,
+                                    double latitude, double longitude) {
+        if (to == AdaptiveSamplingScheduler.Profile.PARKED) {
+            notifier.notifyEvent(STOP_ALERT_ID, "Truck stopped",
+                    String.format("Stopped at %.6f, %.6f", latitude, longitude));
+        } else if (from == AdaptiveSamplingScheduler.Profile.PARKED) {
+            notifier.notifyEvent(STOP_ALERT_ID, "Truck moving",
+                    String.format("Moving again from %.6f, %.6f", latitude, longitude));
+        }
     }
 
     @Nullable
@@ -241,6 +529,26 @@ public class LocationService extends Service {
     @Override
     public void onDestroy() {
         if (isTracking) stopLocationTracking();
+        // After the final flush, which is queued ahead of this
+        Context context = getApplicationContext();
+        long deadline = SystemClock.uptimeMillis() + SHUTDOWN_TIMEOUT_MS;
+        processingHandler.post(() -> quitWhenUploaded(context, deadline));
         super.onDestroy();
     }
+
+    // Commit completions are delivered on the processing thread, so it stays up until
+    // the last batch has completed and its records are acknowledged. Then whatever
+    // is still unacknowledged is handed to the sync worker. Past the deadline the
+    // thread quits anyway; the worker's resend lands on the same segment ids.
+    private void quitWhenUploaded(Context context, long deadline) {
+        if (uploader != null && uploader.isInFlight() && SystemClock.uptimeMillis() < deadline) {
+            processingHandler.postDelayed(() -> quitWhenUploaded(context, deadline), SHUTDOWN_POLL_MS);
+            return;
+        }
+        releaseJournal(this);
+        if (journal != null && journal.getPendingCount() > 0) {
+            WorkManagerHelper.requestSync(context, WorkManagerHelper.SyncProfile.CATCH_UP);
+        }
+        processingThread.quitSafely();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.cargotrackingapp;
+
+// Where fixes come from: the fused provider on a device, or a recorded trace when
+// the pipeline is replayed off-device. Calling start() again replaces the current
+// request, which is how a new sampling profile is applied.
+public interface LocationSource {
+
+    interface Listener {
+        // Called on the source's own thread; unknown accuracy or speed is NaN
+        void onLocation(LocationPoint fix);
+    }
+
+    void start(AdaptiveSamplingScheduler.Profile profile, Listener listener);
+
+    void stop();
+}
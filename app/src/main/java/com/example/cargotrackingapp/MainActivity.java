@@ -8,40 +8,89 @@ import androidx.core.content.ContextCompat;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.location.Location;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
+import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
+import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.MarkerOptions;
-import com.google.android.gms.maps.model.PolylineOptions;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity implements OnMapReadyCallback {
 
     // Constants
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 1001;
+    private static final double DISPLAY_TOLERANCE_METERS = 3;
+    private static final int HISTORY_PAGE_SEGMENTS = 20;
+    private static final int LOCAL_PAGE_POINTS = 5000;
+    private static final int SNAPSHOT_MAX_POINTS = 2000;
+    private static final String SPILL_FILE = "track_spill.bin";
+    private static final String SNAPSHOT_FILE = "track_snapshot.bin";
+    private static final double[] PLAYBACK_SPEEDS = {1, 10, 60, 300, 1800};
+    private static final int PLAYBACK_STEPS = 1000;
+    private static final double NEARBY_RADIUS_METERS = 2000;
+    private static final long NEARBY_WINDOW_MS = 24L * 60 * 60 * 1000;
 
     // UI Components
-    private Button btnStartTracking, btnStopTracking;
+    private Button btnStartTracking, btnStopTracking, btnFleetView;
+    private Button btnPlayback, btnPlaybackSpeed;
+    private SeekBar seekPlayback;
     private TextView tvLatitude, tvLongitude;
     private GoogleMap mMap;
-
-    // Tracking data
-    private List<LatLng> trackingPoints = new ArrayList<>();
+    private TrackRenderer trackRenderer;
+
+    // Tracking data: a bounded store with levels of detail, the map showing displayTier
+    private TrackPointStore trackPoints;
+    private TrackSpillFile trackSpill;
+    private int displayTier = 0;
+    private int spillGeneration = 0;
+    private double[] displayLats, displayLons;
+    private int[] displayKept;
+    private final TripAnalyzer historyAnalyzer = TripAnalyzer.forTrucks();
+    private long heapBeforeLoad;
+    private TrackHistoryLoader historyLoader;
+    // Live fixes held back while a trip's history is restored, so the track stays in time order
+    private boolean restoringHistory = false;
+    private int restoreGeneration = 0;
+    private final List<LocationPoint> fixesDuringRestore = new ArrayList<>();
+    private final ExecutorService storeExecutor = Executors.newSingleThreadExecutor();
+    private final KalmanLocationFilter historyFilter = KalmanLocationFilter.forTrucks();
+
+    // Startup: the cached path of the last trip is shown until stored history replaces it
+    private TrackSnapshotCache trackSnapshot;
+    private TrackSnapshotCache.Snapshot pendingSnapshot;
+    private boolean snapshotShown = false;
+    private boolean restoringLocal = false;
+    private boolean fullyDrawnReported = false;
+    private boolean stopped = false;
+
+    // Fleet mode: every truck's latest position, followed live on top of the track
+    private final FleetPositions fleetPositions = new FleetPositions();
+    private FleetFeed fleetFeed;
+    private FleetRenderer fleetRenderer;
+
+    // Playback of the loaded trip, filled with the same filtered points as the track
+    private final TripPlayback tripPlayback = new TripPlayback();
+    private TripPlayer tripPlayer;
+    private int playbackSpeed = 2; // Index into PLAYBACK_SPEEDS
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -58,13 +107,21 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         setupButtonListeners();
 
         // Register receiver for location updates
-        registerLocationUpdateReceiver();
+        observeLocationUpdates();
+
+        // Show the last known position while the map is still loading
+        trackSnapshot = new TrackSnapshotCache(new File(getFilesDir(), SNAPSHOT_FILE));
+        restoreSnapshot();
     }
 
     // Initialize all UI components
     private void initializeUIComponents() {
         btnStartTracking = findViewById(R.id.btnStartTracking);
         btnStopTracking = findViewById(R.id.btnStopTracking);
+        btnFleetView = findViewById(R.id.btnFleetView);
+        btnPlayback = findViewById(R.id.btnPlayback);
+        btnPlaybackSpeed = findViewById(R.id.btnPlaybackSpeed);
+        seekPlayback = findViewById(R.id.seekPlayback);
         tvLatitude = findViewById(R.id.tvLatitude);
         tvLongitude = findViewById(R.id.tvLongitude);
     }
@@ -82,16 +139,117 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     private void setupButtonListeners() {
         btnStartTracking.setOnClickListener(v -> checkLocationPermissionAndStartTracking());
         btnStopTracking.setOnClickListener(v -> stopLocationTracking());
+        btnFleetView.setOnClickListener(v -> toggleFleetView());
+        btnPlayback.setOnClickListener(v -> togglePlayback());
+        btnPlaybackSpeed.setOnClickListener(v -> cyclePlaybackSpeed());
+        seekPlayback.setMax(PLAYBACK_STEPS);
+        seekPlayback.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                if (fromUser && preparePlayer()) tripPlayer.seek(playbackTimeAt(progress));
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+            }
+        });
+    }
+
+    // Show fixes from LocationService while the activity is started: the readout and
+    // marker only need the newest fix, the path needs every one of them. Fixes
+    // published while it is stopped are caught up from the local store on restart.
+    private void observeLocationUpdates() {
+        LocationBus.observe(this, point -> {
+            updateLocationUI(point.latitude, point.longitude);
+            if (mMap != null && !restoringHistory) {
+                trackRenderer.moveMarker(new LatLng(point.latitude, point.longitude));
+            }
+        });
+        LocationBus.observeTrack(this, point -> {
+            if (restoringHistory) {
+                fixesDuringRestore.add(point);
+            } else {
+                updateMapWithNewLocation(point);
+            }
+        });
     }
 
-    // Register broadcast receiver to receive location updates
-    private void registerLocationUpdateReceiver() {
-        LocationUpdateReceiver.registerReceiver(this, (latitude, longitude) -> {
-            updateLocationUI(latitude, longitude);
-            updateMapWithNewLocation(latitude, longitude);
+    // Read the path saved when the activity last stopped, off the main thread; it is
+    // drawn only if it belongs to the trip history will be loaded for
+    private void restoreSnapshot() {
+        storeExecutor.execute(() -> {
+            TrackSnapshotCache.Snapshot snapshot = trackSnapshot.read();
+            String tripId = TripSession.getLastTripId(this);
+            if (snapshot != null && !snapshot.tripId.equals(tripId)) snapshot = null;
+            TrackSnapshotCache.Snapshot restored = snapshot;
+            runOnUiThread(() -> {
+                if (isDestroyed()) return;
+                if (restored != null) {
+                    LocationPoint last = restored.getLastPosition();
+                    updateLocationUI(last.latitude, last.longitude);
+                    pendingSnapshot = restored;
+                    if (mMap != null) drawSnapshot();
+                }
+            });
+        });
+    }
+
+    // Draw the cached path until the local copy of the trip has been read back
+    private void drawSnapshot() {
+        List<LatLng> path = new ArrayList<>(pendingSnapshot.points.size());
+        for (LocationPoint point : pendingSnapshot.points) {
+            path.add(new LatLng(point.latitude, point.longitude));
+        }
+        pendingSnapshot = null;
+        if (trackPoints.size(0) > 0 || path.isEmpty()) return; // History or a live fix got there first
+        trackRenderer.addPoints(path);
+        snapshotShown = true;
+        reportFirstPosition();
+    }
+
+    // Save the displayed track so the next cold start can draw it at once; capped
+    // at SNAPSHOT_MAX_POINTS by taking the finest tier that fits, or the newest
+    // points of the coarsest tier
+    private void saveSnapshot() {
+        String tripId = TripSession.getLastTripId(this);
+        if (trackPoints == null || tripId == null || trackPoints.size(0) == 0) return;
+        int tier = 0;
+        while (tier < trackPoints.getTierCount() - 1 && trackPoints.size(tier) > SNAPSHOT_MAX_POINTS) tier++;
+        int size = trackPoints.size(tier);
+        int n = Math.min(size, SNAPSHOT_MAX_POINTS);
+        List<LocationPoint> points = new ArrayList<>(n + 1);
+        for (int i = size - n; i < size; i++) {
+            points.add(new LocationPoint(trackPoints.getLatitude(tier, i), trackPoints.getLongitude(tier, i),
+                    trackPoints.getTimestamp(tier, i), Float.NaN, Float.NaN));
+        }
+        // Coarse tiers lag behind the newest point; end the path there
+        int newest = trackPoints.size(0) - 1;
+        if (tier > 0 && trackPoints.getTimestamp(0, newest) != points.get(points.size() - 1).timestamp) {
+            points.add(new LocationPoint(trackPoints.getLatitude(0, newest), trackPoints.getLongitude(0, newest),
+                    trackPoints.getTimestamp(0, newest), Float.NaN, Float.NaN));
+        }
+        storeExecutor.execute(() -> {
+            try {
+                trackSnapshot.write(tripId, points);
+            } catch (IOException e) {
+                Log.d("MainActivity", "Error saving track snapshot", e);
+            }
         });
     }
 
+    // Time to first position: what a startup benchmark waits for. Called once a
+    // position or path is actually on the map, from the snapshot, the first
+    // history page or the first live fix.
+    private void reportFirstPosition() {
+        if (fullyDrawnReported) return;
+        fullyDrawnReported = true;
+        reportFullyDrawn();
+    }
+
     // Check for location permission before starting tracking
     private void checkLocationPermissionAndStartTracking() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
@@ -106,7 +264,12 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
 
     // Start the location tracking service
     private void startLocationTracking() {
-        trackingPoints.clear(); // Reset previous tracking points
+        cancelRestore(); // The new trip replaces whatever was being restored
+        clearTrackPoints(); // Reset previous tracking points
+        if (trackRenderer != null) trackRenderer.clear();
+        snapshotShown = false;
+        pendingSnapshot = null;
+        resetPlayback();
 
         Intent serviceIntent = new Intent(this, LocationService.class);
         serviceIntent.setAction(LocationService.ACTION_START_TRACKING);
@@ -137,7 +300,89 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         btnStopTracking.setEnabled(false);
         Toast.makeText(this, "Location tracking stopped", Toast.LENGTH_SHORT).show();
 
-        WorkManagerHelper.cancelWork(); // Cancel background sync
+        WorkManagerHelper.cancelWork(); // Cancel periodic background sync; the service requests a final drain
+    }
+
+    // Show or hide the whole fleet; markers are clustered per grid cell at low zoom
+    private void toggleFleetView() {
+        if (mMap == null) return;
+        if (fleetFeed == null) {
+            fleetRenderer = new FleetRenderer(mMap, fleetPositions, FleetClusterer.forMap(),
+                    getResources().getDisplayMetrics().density);
+            fleetFeed = new FleetFeed(LazyFirebase.firestore(this), fleetPositions, fleetRenderer::invalidate);
+            fleetFeed.start();
+            btnFleetView.setText("Hide Fleet");
+        } else {
+            fleetFeed.stop();
+            fleetRenderer.release();
+            fleetFeed = null;
+            fleetRenderer = null;
+            btnFleetView.setText("Show Fleet");
+        }
+    }
+
+    // Count the trucks that passed within NEARBY_RADIUS_METERS of a long-pressed place in the last day
+    private void findTrucksNear(LatLng place) {
+        new TrackRegionQuery(LazyFirebase.firestore(this)).findNear(place.latitude, place.longitude,
+                NEARBY_RADIUS_METERS, System.currentTimeMillis() - NEARBY_WINDOW_MS,
+                new TrackRegionQuery.Listener() {
+                    @Override
+                    public void onResult(Map<String, List<LocationPoint>> pointsByVehicle) {
+                        Toast.makeText(MainActivity.this, pointsByVehicle.size()
+                                + " truck(s) within 2 km in the last 24 h", Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.d("MainActivity", "Error searching trucks near " + place, e);
+                        Toast.makeText(MainActivity.this, "Nearby search failed", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    // Create the player over the trip loaded so far; false when there is nothing to play
+    private boolean preparePlayer() {
+        if (tripPlayer != null) return true;
+        if (mMap == null || tripPlayback.isEmpty()) return false;
+        tripPlayer = new TripPlayer(mMap, tripPlayback, ContextCompat.getColor(this, R.color.colorPlaybackTrail), 8,
+                this::onPlaybackProgress);
+        tripPlayer.setSpeed(PLAYBACK_SPEEDS[playbackSpeed]);
+        return true;
+    }
+
+    private void togglePlayback() {
+        if (!preparePlayer()) return;
+        if (tripPlayer.isPlaying()) tripPlayer.pause();
+        else tripPlayer.play();
+    }
+
+    private void cyclePlaybackSpeed() {
+        playbackSpeed = (playbackSpeed + 1) % PLAYBACK_SPEEDS.length;
+        btnPlaybackSpeed.setText((int) PLAYBACK_SPEEDS[playbackSpeed] + "x");
+        if (tripPlayer != null) tripPlayer.setSpeed(PLAYBACK_SPEEDS[playbackSpeed]);
+    }
+
+    // Called by the player on each frame it draws
+    private void onPlaybackProgress(long time, boolean playing) {
+        long span = tripPlayback.getEndTime() - tripPlayback.getStartTime();
+        seekPlayback.setProgress(span == 0 ? 0 : (int) ((time - tripPlayback.getStartTime()) * PLAYBACK_STEPS / span));
+        btnPlayback.setText(playing ? "Pause" : "Play");
+    }
+
+    private long playbackTimeAt(int step) {
+        long span = tripPlayback.getEndTime() - tripPlayback.getStartTime();
+        return tripPlayback.getStartTime() + span * step / PLAYBACK_STEPS;
+    }
+
+    // Drop the player and the loaded trip, e.g. before loading or recording another
+    private void resetPlayback() {
+        if (tripPlayer != null) tripPlayer.release();
+        tripPlayer = null;
+        tripPlayback.clear();
+        seekPlayback.setProgress(0);
+        seekPlayback.setEnabled(false);
+        btnPlayback.setEnabled(false);
+        btnPlayback.setText("Play");
     }
 
     // Update UI with new location coordinates
@@ -146,41 +391,96 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         tvLongitude.setText(String.format("Longitude: %.6f", longitude));
     }
 
-    // Update map with new location and draw path
-    private void updateMapWithNewLocation(double latitude, double longitude) {
+    // Store a live fix and extend the drawn path with it
+    private void updateMapWithNewLocation(LocationPoint point) {
         if (mMap == null) return;
 
-        LatLng newLocation = new LatLng(latitude, longitude);
+        // Outliers were already rejected and smoothed by the service's filter
+        int tiers = trackPoints.add(point.timestamp, point.latitude, point.longitude);
 
-        // Filter out unreasonable jumps in location
-        if (!trackingPoints.isEmpty()) {
-            LatLng lastPoint = trackingPoints.get(trackingPoints.size() - 1);
-            float[] results = new float[1];
-            Location.distanceBetween(lastPoint.latitude, lastPoint.longitude,
-                    latitude, longitude, results);
-            if (results[0] >= 1000) return; // Skip if more than 1km jump
+        // Update the path in place on the next frame; it only grows when the point
+        // is part of the displayed level of detail
+        if ((tiers & 1 << displayTier) != 0) {
+            trackRenderer.addPoint(new LatLng(point.latitude, point.longitude));
         }
+        reportFirstPosition();
+    }
 
-        trackingPoints.add(newLocation);
-
-        // Update map display
-        mMap.clear();
-        mMap.addMarker(new MarkerOptions().position(newLocation).title("Current Location"));
-        mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(newLocation, 15));
+    // Switch to the level of detail that suits the new zoom
+    private void onCameraIdle() {
+        CameraPosition camera = mMap.getCameraPosition();
+        if (fleetRenderer != null) fleetRenderer.setZoom(camera.zoom);
+        int tier = trackPoints.tierFor(TrackPointStore.metresPerPixel(camera.target.latitude, camera.zoom));
+        showSpilledDetail(tier);
+        if (tier == displayTier) return;
+        displayTier = tier;
+        // The cached path stays until stored history replaces it, drawn at this tier
+        if (snapshotShown) return;
+
+        List<LatLng> path = simplifyForDisplay(trackPoints.size(tier));
+        // Coarse tiers lag behind the newest point; end the path there
+        int newest = trackPoints.size(0) - 1;
+        if (newest >= 0 && !path.isEmpty() && trackPoints.getTimestamp(0, newest)
+                != trackPoints.getTimestamp(tier, trackPoints.size(tier) - 1)) {
+            path.add(new LatLng(trackPoints.getLatitude(0, newest), trackPoints.getLongitude(0, newest)));
+        }
+        trackRenderer.setPath(path);
+        DebugLog.d("MainActivity", "Showing detail tier ", tier);
+    }
 
-        // Draw path if we have multiple points
-        if (trackingPoints.size() > 1) {
-            PolylineOptions polylineOptions = new PolylineOptions()
-                    .addAll(trackingPoints)
-                    .width(5)
-                    .color(ContextCompat.getColor(this, R.color.colorPolyline));
-            mMap.addPolyline(polylineOptions);
+    // Full detail only holds the newest points; the spilled ones in view are read
+    // back from the spill file whenever the camera settles at that level
+    private void showSpilledDetail(int tier) {
+        int generation = ++spillGeneration;
+        if (tier != 0 || trackPoints.getSpilledCount() == 0) {
+            trackRenderer.setDetail(Collections.emptyList());
+            return;
         }
+        LatLngBounds view = mMap.getProjection().getVisibleRegion().latLngBounds;
+        // The store's oldest point continues the newest spilled one
+        LatLng joint = new LatLng(trackPoints.getLatitude(0, 0), trackPoints.getLongitude(0, 0));
+        storeExecutor.execute(() -> {
+            List<List<LatLng>> runs = new ArrayList<>();
+            try {
+                for (List<LocationPoint> run : trackSpill.loadWithin(view.southwest.latitude,
+                        view.southwest.longitude, view.northeast.latitude, view.northeast.longitude)) {
+                    List<LatLng> path = new ArrayList<>(run.size() + 1);
+                    for (LocationPoint point : run) path.add(new LatLng(point.latitude, point.longitude));
+                    if (run.get(run.size() - 1).timestamp == trackSpill.getLastTimestamp()) path.add(joint);
+                    runs.add(path);
+                }
+            } catch (IOException e) {
+                Log.d("MainActivity", "Error reading spilled track", e);
+            }
+            runOnUiThread(() -> {
+                if (isDestroyed() || generation != spillGeneration) return; // The camera has moved on
+                trackRenderer.setDetail(runs);
+            });
+        });
+    }
+
+    private void clearTrackPoints() {
+        if (trackPoints == null) return; // The map is not ready yet, nothing was stored
+        trackPoints.clear();
+        trackSpill.clear();
+        spillGeneration++; // Drop spilled detail still being read
+        trackRenderer.setDetail(Collections.emptyList());
     }
 
     @Override
     public void onMapReady(GoogleMap googleMap) {
+        // Bounded point storage, created here rather than in onCreate as it only
+        // feeds the map; older full-detail points spill to a file on the store thread
+        trackSpill = new TrackSpillFile(new File(getCacheDir(), SPILL_FILE), storeExecutor);
+        trackPoints = TrackPointStore.forMap(trackSpill);
+        displayLats = new double[trackPoints.getCapacity()];
+        displayLons = new double[trackPoints.getCapacity()];
+        displayKept = new int[trackPoints.getCapacity()];
+
         mMap = googleMap;
+        trackRenderer = new TrackRenderer(mMap, ContextCompat.getColor(this, R.color.colorPolyline), 5);
+        mMap.setOnCameraIdleListener(this::onCameraIdle);
+        mMap.setOnMapLongClickListener(this::findTrucksNear);
 
         // Enable location layer if permission granted
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
@@ -188,75 +488,203 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
             mMap.setMyLocationEnabled(true);
         }
 
-        loadTrackingDataFromFirestore(); // Load previous tracking data
+        if (pendingSnapshot != null) drawSnapshot();
+        loadTrackingData(); // Load previous tracking data
     }
 
-    // Load and display previous tracking data from Firestore
-    private void loadTrackingDataFromFirestore() {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("locations")
-                .orderBy("timestamp")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (!task.isSuccessful() || task.getResult().isEmpty()) {
-                        Log.d("MainActivity", "No data or error fetching from Firestore");
-                        return;
-                    }
+    // Load and display the most recent trip: what is stored on the device first,
+    // in pages so the first part of the track shows without waiting for the rest,
+    // then only newer segments from that trip's partition
+    private void loadTrackingData() {
+        heapBeforeLoad = usedHeapBytes();
+        historyFilter.reset();
+        historyAnalyzer.reset();
+        clearTrackPoints();
+        resetPlayback();
+
+        String tripId = TripSession.getLastTripId(this);
+        if (tripId == null) return; // Nothing recorded on this device yet
+
+        String vehicleId = VehicleIdentity.get(this);
+        LocalTrackStore store = LocalTrackStore.getInstance(this);
+        restoringLocal = true;
+        restoringHistory = true;
+        loadLocalPage(store, vehicleId, tripId, Long.MIN_VALUE, 0, true);
+    }
 
-                    trackingPoints.clear();
+    // Fixes are not observed while the activity is stopped: read what the service
+    // stored meanwhile from the local copy. The fixes the bus replays on restart are
+    // held back until then, and only those newer than the local copy are drawn.
+    private void catchUp() {
+        if (trackPoints == null || restoringHistory) return; // A restore in progress covers it
+        String tripId = TripSession.getLastTripId(this);
+        int size = trackPoints.size(0);
+        if (tripId == null || size == 0) return;
+        restoringHistory = true;
+        loadLocalPage(LocalTrackStore.getInstance(this), VehicleIdentity.get(this), tripId,
+                trackPoints.getTimestamp(0, size - 1), 0, false);
+    }
 
-                    // Explicitly use QueryDocumentSnapshot instead of 'var'
-                    for (QueryDocumentSnapshot doc : task.getResult()) {
-                        // Safely retrieve latitude and longitude with null checks
-                        Double latitude = doc.getDouble("latitude");
-                        Double longitude = doc.getDouble("longitude");
+    // History is in; draw the live fixes held back meanwhile, except those the
+    // restore already covered as they were stored before it read them
+    private void finishRestore() {
+        restoringHistory = false;
+        int size = trackPoints.size(0);
+        long lastRestored = size > 0 ? trackPoints.getTimestamp(0, size - 1) : Long.MIN_VALUE;
+        LocationPoint newest = null;
+        for (LocationPoint point : fixesDuringRestore) {
+            if (point.timestamp <= lastRestored) continue;
+            updateMapWithNewLocation(point);
+            lastRestored = point.timestamp;
+            newest = point;
+        }
+        fixesDuringRestore.clear();
+        if (newest != null) trackRenderer.moveMarker(new LatLng(newest.latitude, newest.longitude));
+    }
 
-                        if (latitude != null && longitude != null) {
-                            trackingPoints.add(new LatLng(latitude, longitude));
-                        } else {
-                            Log.w("MainActivity", "Invalid lat/lng data in document: " + doc.getId());
-                        }
+    // Abandon a restore still in progress; its remaining pages are ignored
+    private void cancelRestore() {
+        restoreGeneration++;
+        restoringHistory = false;
+        restoringLocal = false;
+        fixesDuringRestore.clear();
+        if (historyLoader != null) historyLoader.cancel();
+        historyLoader = null;
+    }
+
+    // Read the next page of the local copy on the store thread and add it; once a
+    // short page shows the local copy is exhausted, fetch what the server has beyond it,
+    // if fetchRemote is set. Pages are drawn as they come unless the cached path is
+    // showing, which is then replaced in one go.
+    private void loadLocalPage(LocalTrackStore store, String vehicleId, String tripId, long afterMillis, int loaded,
+                               boolean fetchRemote) {
+        int generation = restoreGeneration;
+        storeExecutor.execute(() -> {
+            List<LocationPoint> page = store.load(vehicleId, tripId, afterMillis, LOCAL_PAGE_POINTS);
+            runOnUiThread(() -> {
+                if (isDestroyed() || generation != restoreGeneration) return;
+                addHistoryPage(page);
+                long lastTimestamp = page.isEmpty() ? afterMillis : page.get(page.size() - 1).timestamp;
+                if (page.size() == LOCAL_PAGE_POINTS) {
+                    loadLocalPage(store, vehicleId, tripId, lastTimestamp, loaded + page.size(), fetchRemote);
+                    return;
+                }
+                restoringLocal = false;
+                if (snapshotShown && trackPoints.size(0) > 0) replaceSnapshot();
+                Log.d("MainActivity", "Loaded " + (loaded + page.size()) + " local points of trip " + tripId);
+                if (fetchRemote) {
+                    fetchHistoryDelta(store, vehicleId, tripId, lastTimestamp);
+                } else {
+                    finishRestore();
+                }
+            });
+        });
+    }
+
+    // Fetch segments newer than the local copy, storing them as they arrive
+    private void fetchHistoryDelta(LocalTrackStore store, String vehicleId, String tripId, long sinceMillis) {
+        FirebaseFirestore db = LazyFirebase.firestore(this);
+        historyLoader = new TrackHistoryLoader(TripSession.segments(db, vehicleId, tripId), HISTORY_PAGE_SEGMENTS);
+        historyLoader.load(sinceMillis,
+                new TrackHistoryLoader.Listener() {
+                    @Override
+                    public void onPage(List<LocationPoint> points) {
+                        storeExecutor.execute(() -> store.insert(vehicleId, tripId, points));
+                        addHistoryPage(points);
+                    }
+
+                    @Override
+                    public void onComplete(int totalPoints) {
+                        finishRestore();
+                        Log.d("MainActivity", "Loaded " + totalPoints + " new points of trip " + tripId);
+                        // Same stop/leg statistics the service computes live, rebuilt from history
+                        historyAnalyzer.finish();
+                        Log.d("MainActivity", "Trip stats: " + historyAnalyzer);
+                        Log.d("MainActivity", "Heap used before/after history load: "
+                                + heapBeforeLoad / 1024 + "KB/" + usedHeapBytes() / 1024 + "KB, track " + trackPoints);
                     }
 
-                    // Filter out unreasonable jumps in stored data
-                    List<LatLng> filteredPoints = filterTrackingPoints(trackingPoints);
-                    trackingPoints = filteredPoints;
-
-                    // Update map with stored data
-                    if (!trackingPoints.isEmpty()) {
-                        LatLng lastPoint = trackingPoints.get(trackingPoints.size() - 1);
-                        mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(lastPoint, 15));
-                        if (trackingPoints.size() > 1) {
-                            mMap.addPolyline(new PolylineOptions()
-                                    .addAll(trackingPoints)
-                                    .width(5)
-                                    .color(ContextCompat.getColor(this, R.color.colorPolyline)));
-                        }
+                    @Override
+                    public void onError(Exception e) {
+                        finishRestore(); // Carry on with what the device had
+                        Log.d("MainActivity", "Error fetching from Firestore", e);
                     }
                 });
     }
 
-    // Filter tracking points to remove outliers
-    private List<LatLng> filterTrackingPoints(List<LatLng> points) {
-        List<LatLng> filtered = new ArrayList<>();
-        LatLng previous = null;
+    // Filter, store, simplify and draw one page of stored history
+    private void addHistoryPage(List<LocationPoint> page) {
+        if (page.isEmpty()) return;
+        for (LocationPoint point : page) {
+            historyAnalyzer.add(point.timestamp, point.latitude, point.longitude, point.speed);
+        }
+        // Reject outliers in stored data, then drop vertices too close to see
+        int displayed = filterTrackingPoints(page);
+        // The trip can be played from its first page on
+        if (!tripPlayback.isEmpty()) {
+            if (tripPlayer != null) tripPlayer.onPointsAdded();
+            btnPlayback.setEnabled(true);
+            seekPlayback.setEnabled(true);
+        }
+        if (snapshotShown) {
+            if (!restoringLocal) replaceSnapshot();
+            return;
+        }
+        List<LatLng> filteredPoints = simplifyForDisplay(displayed);
+        if (filteredPoints.isEmpty()) return;
+        trackRenderer.addPoints(filteredPoints);
+        reportFirstPosition();
+    }
 
-        for (LatLng point : points) {
-            if (previous == null || isReasonableDistance(previous, point)) {
-                filtered.add(point);
-                previous = point;
+    // Swap the cached path for the stored history read so far
+    private void replaceSnapshot() {
+        snapshotShown = false;
+        trackRenderer.clear();
+        trackRenderer.addPoints(simplifyForDisplay(trackPoints.size(displayTier)));
+    }
+
+    // Run stored points through the same filter the service uses for live fixes and
+    // into the track store and the playback; the filter carries its state across
+    // pages. Returns how many points reached the displayed tier.
+    private int filterTrackingPoints(List<LocationPoint> points) {
+        long start = System.nanoTime();
+        int displayed = 0;
+        for (LocationPoint point : points) {
+            if (historyFilter.accept(point.timestamp, point.latitude, point.longitude,
+                    point.accuracy, point.speed)) {
+                int tiers = trackPoints.add(point.timestamp, historyFilter.getLatitude(), historyFilter.getLongitude());
+                tripPlayback.add(point.timestamp, historyFilter.getLatitude(), historyFilter.getLongitude());
+                if ((tiers & 1 << displayTier) != 0) displayed++;
             } else {
-                Log.d("MainActivity", "Filtered out distant point: " + point);
+                DebugLog.d("MainActivity", "Filtered out point: ", historyFilter.getLastRejection());
             }
         }
-        return filtered;
+        TrackingMetrics.GLOBAL.record(TrackingMetrics.Timer.HISTORY_FILTER, System.nanoTime() - start);
+        return displayed;
     }
 
-    // Check if distance between two points is reasonable (less than 10km)
-    private boolean isReasonableDistance(LatLng p1, LatLng p2) {
-        float[] results = new float[1];
-        Location.distanceBetween(p1.latitude, p1.longitude, p2.latitude, p2.longitude, results);
-        return results[0] < 10000;
+    // Simplify the newest count points of the displayed tier so the map is not
+    // handed tens of thousands of vertices
+    private List<LatLng> simplifyForDisplay(int count) {
+        int size = trackPoints.size(displayTier);
+        int n = Math.min(count, size);
+        for (int i = 0; i < n; i++) {
+            displayLats[i] = trackPoints.getLatitude(displayTier, size - n + i);
+            displayLons[i] = trackPoints.getLongitude(displayTier, size - n + i);
+        }
+        int kept = TrackSimplifier.douglasPeucker(displayLats, displayLons, n, DISPLAY_TOLERANCE_METERS, displayKept);
+
+        List<LatLng> simplified = new ArrayList<>(kept + 1);
+        for (int i = 0; i < kept; i++) {
+            simplified.add(new LatLng(displayLats[displayKept[i]], displayLons[displayKept[i]]));
+        }
+        if (DebugLog.ENABLED) Log.d("MainActivity", "Simplified path from " + n + " to " + kept + " points");
+        return simplified;
+    }
+
+    private static long usedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
     }
 
     @Override
@@ -270,9 +698,29 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (stopped) catchUp();
+        stopped = false;
+        if (fleetFeed != null) fleetFeed.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopped = true;
+        saveSnapshot();
+        if (fleetFeed != null) fleetFeed.stop(); // No fleet traffic while not visible
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        LocationUpdateReceiver.unregisterReceiver(this);
+        if (trackRenderer != null) trackRenderer.release();
+        if (fleetRenderer != null) fleetRenderer.release();
+        if (tripPlayer != null) tripPlayer.release();
+        if (historyLoader != null) historyLoader.cancel();
+        storeExecutor.shutdown();
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.cargotrackingapp;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+// Sink decorator that times each write from hand-off to completion. When a
+// persisted timer is given, each committed point also records how long it was
+// buffered before committing, measured on the uploader's clock.
+public class MeasuredSink implements LocationBatchUploader.Sink {
+
+    private final LocationBatchUploader.Sink delegate;
+    private final TrackingMetrics metrics;
+    private final TrackingMetrics.Timer roundTrip;
+    private final TrackingMetrics.Timer persisted;
+    private final LongSupplier clock;
+
+    // persisted may be null to time the writes only
+    public MeasuredSink(LocationBatchUploader.Sink delegate, TrackingMetrics metrics, TrackingMetrics.Timer roundTrip,
+                        TrackingMetrics.Timer persisted, LongSupplier clock) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.roundTrip = roundTrip;
+        this.persisted = persisted;
+        this.clock = clock;
+    }
+
+    @Override
+    public void write(List<LocationPoint> points, LocationBatchUploader.Callback callback) {
+        long start = System.nanoTime();
+        delegate.write(points, (success, error) -> {
+            metrics.record(roundTrip, System.nanoTime() - start);
+            if (persisted != null) {
+                if (success) {
+                    long now = clock.getAsLong();
+                    for (LocationPoint point : points) {
+                        metrics.record(persisted, (now - point.timestamp) * 1000000);
+                    }
+                    metrics.add(TrackingMetrics.Counter.POINTS_PERSISTED, points.size());
+                } else {
+                    metrics.add(TrackingMetrics.Counter.POINTS_FAILED, points.size());
+                }
+            }
+            callback.onComplete(success, error);
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.cargotrackingapp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Local file of metrics snapshots, one JSON line each, for export and bulk upload.
+// The file is capped: once it passes maxBytes it becomes the ".old" file, replacing
+// the previous one. An upload takes the lines it sends into a ".pending" file and
+// deletes it only once the upload has committed, so new snapshots keep being
+// appended meanwhile and a failed upload is retried with the same lines.
+public class MetricsLog {
+
+    private final File current;
+    private final File old;
+    private final File pending;
+    private final long maxBytes;
+
+    public MetricsLog(File file, long maxBytes) {
+        this.current = file;
+        this.old = new File(file.getPath() + ".old");
+        this.pending = new File(file.getPath() + ".pending");
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized void append(String line) throws IOException {
+        if (current.length() > maxBytes) {
+            if (old.exists() && !old.delete()) throw new IOException("Cannot delete " + old);
+            if (!current.renameTo(old)) throw new IOException("Cannot rotate " + current);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(current, true), StandardCharsets.UTF_8)) {
+            writer.write(line);
+            writer.write('\n');
+        }
+    }
+
+    // Lines waiting for upload, oldest first. Lines left over from a failed upload
+    // come back as they were; otherwise everything logged so far is moved aside.
+    public synchronized List<String> takePending() throws IOException {
+        if (!pending.exists()) {
+            if (old.length() + current.length() == 0) return new ArrayList<>();
+            try (OutputStream out = new FileOutputStream(pending)) {
+                copy(old, out);
+                copy(current, out);
+            }
+            if (old.exists() && !old.delete()) throw new IOException("Cannot delete " + old);
+            if (current.exists() && !current.delete()) throw new IOException("Cannot delete " + current);
+        }
+        return readLines(pending);
+    }
+
+    // The pending lines were uploaded
+    public synchronized void commitPending() throws IOException {
+        if (pending.exists() && !pending.delete()) throw new IOException("Cannot delete " + pending);
+    }
+
+    // Everything still on disk, e.g. for exporting to a bug report
+    public synchronized List<String> readAll() throws IOException {
+        List<String> lines = readLines(pending);
+        lines.addAll(readLines(old));
+        lines.addAll(readLines(current));
+        return lines;
+    }
+
+    private static void copy(File file, OutputStream out) throws IOException {
+        if (!file.exists()) return;
+        byte[] buffer = new byte[8192];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) out.write(buffer, 0, n);
+        }
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!file.exists()) return lines;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.cargotrackingapp;
+
+// Coalesces frequent updates into at most one post per interval. The first update
+// after a quiet period goes out immediately; updates arriving inside the interval
+// collapse into a single deferred post carrying the latest content.
+public class NotificationThrottle {
+
+    // Returned by offer when a deferred post is already scheduled
+    public static final long ALREADY_SCHEDULED = -1;
+
+    private final long minIntervalMillis;
+    private long lastPostedAt;
+    private boolean posted = false;
+    private boolean deferred = false;
+
+    private long offered = 0;
+    private long postCount = 0;
+
+    public NotificationThrottle(long minIntervalMillis) {
+        if (minIntervalMillis < 0) throw new IllegalArgumentException("interval must not be negative");
+        this.minIntervalMillis = minIntervalMillis;
+    }
+
+    // Register an update. Returns 0 if it should be posted now, the delay after which
+    // a deferred post should run, or ALREADY_SCHEDULED if one is pending.
+    public synchronized long offer(long nowMillis) {
+        offered++;
+        if (deferred) return ALREADY_SCHEDULED;
+        long wait = posted ? lastPostedAt + minIntervalMillis - nowMillis : 0;
+        if (wait <= 0) {
+            markPosted(nowMillis);
+            return 0;
+        }
+        deferred = true;
+        return wait;
+    }
+
+    // Called when a deferred post actually runs
+    public synchronized void onDeferredPost(long nowMillis) {
+        deferred = false;
+        markPosted(nowMillis);
+    }
+
+    // Forget the rate history, e.g. when tracking restarts
+    public synchronized void reset() {
+        posted = false;
+        deferred = false;
+    }
+
+    public synchronized boolean isDeferred() {
+        return deferred;
+    }
+
+    public synchronized long getOfferedCount() {
+        return offered;
+    }
+
+    public synchronized long getPostCount() {
+        return postCount;
+    }
+
+    private void markPosted(long nowMillis) {
+        posted = true;
+        lastPostedAt = nowMillis;
+        postCount++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "offered=" + offered + " posted=" + postCount;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.cargotrackingapp;
+
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Typed in-process stream that hands every value to every subscriber, in publish
+// order, unlike ConflatedStream. Published values go into one ring holding the most
+// recent ones; each subscriber keeps a cursor into it and one delivery task on its
+// own executor that catches up on everything published since it last ran, so
+// publishing allocates nothing. New subscribers start with the retained values, which
+// lets one that comes back after a pause fill the gap. A subscriber that falls more
+// than the ring's capacity behind skips the overwritten values; they are counted.
+public class OrderedStream<T> {
+
+    private final CopyOnWriteArrayList<Subscriber<T>> subscribers = new CopyOnWriteArrayList<>();
+    private final Object[] ring;
+    // Guarded by this: values published so far, and the index of the first one still retained
+    private long published = 0;
+    private long first = 0;
+
+    public OrderedStream(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        ring = new Object[capacity];
+    }
+
+    // Hand a value to every subscriber; safe to call from any thread
+    public void publish(T value) {
+        synchronized (this) {
+            ring[(int) (published % ring.length)] = value;
+            published++;
+            first = Math.max(first, published - ring.length);
+        }
+        for (Subscriber<T> subscriber : subscribers) subscriber.schedule();
+    }
+
+    // Forget the retained values, e.g. when tracking stops; subscribers skip any
+    // they have not been handed yet
+    public synchronized void clear() {
+        Arrays.fill(ring, null);
+        first = published;
+    }
+
+    // Deliver the retained values, then every new one, to the observer on the
+    // executor until the subscription is cancelled
+    public ConflatedStream.Subscription subscribe(Executor executor, ConflatedStream.Observer<T> observer) {
+        Subscriber<T> subscriber = new Subscriber<>(this, executor, observer);
+        synchronized (this) {
+            subscriber.cursor = first;
+        }
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return subscriber;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    // Values the subscription skipped because it fell more than a ring behind
+    public long getSkippedCount(ConflatedStream.Subscription subscription) {
+        Subscriber<?> subscriber = (Subscriber<?>) subscription;
+        synchronized (this) {
+            return subscriber.skipped;
+        }
+    }
+
+    // Value at the subscriber's cursor, advancing it; null once it has caught up
+    @SuppressWarnings("unchecked")
+    private synchronized T next(Subscriber<T> subscriber) {
+        if (subscriber.cursor < first) {
+            subscriber.skipped += first - subscriber.cursor;
+            subscriber.cursor = first;
+        }
+        if (subscriber.cursor == published) return null;
+        return (T) ring[(int) (subscriber.cursor++ % ring.length)];
+    }
+
+    private static final class Subscriber<T> implements ConflatedStream.Subscription, Runnable {
+        private final OrderedStream<T> stream;
+        private final Executor executor;
+        private final ConflatedStream.Observer<T> observer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean cancelled = false;
+        // Guarded by the stream
+        long cursor;
+        long skipped = 0;
+
+        Subscriber(OrderedStream<T> stream, Executor executor, ConflatedStream.Observer<T> observer) {
+            this.stream = stream;
+            this.executor = executor;
+            this.observer = observer;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            scheduled.set(false);
+            T value;
+            while (!cancelled && (value = stream.next(this)) != null) {
+                observer.onUpdate(value);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            stream.subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.cargotrackingapp;
+
+import java.util.Arrays;
+
+// Per-stage latency counters for the location processing pipeline
+public class PipelineStats {
+
+    public enum Stage {
+        QUEUE,
+        FILTER,
+        GEOFENCE,
+        NOTIFY,
+        STORE
+    }
+
+    private final long[] counts = new long[Stage.values().length];
+    private final long[] totalNanos = new long[Stage.values().length];
+    private final long[] maxNanos = new long[Stage.values().length];
+
+    public synchronized void record(Stage stage, long nanos) {
+        int i = stage.ordinal();
+        counts[i]++;
+        totalNanos[i] += nanos;
+        if (nanos > maxNanos[i]) maxNanos[i] = nanos;
+    }
+
+    public synchronized long getCount(Stage stage) {
+        return counts[stage.ordinal()];
+    }
+
+    public synchronized long getMeanNanos(Stage stage) {
+        int i = stage.ordinal();
+        return counts[i] == 0 ? 0 : totalNanos[i] / counts[i];
+    }
+
+    public synchronized long getMaxNanos(Stage stage) {
+        return maxNanos[stage.ordinal()];
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(totalNanos, 0);
+        Arrays.fill(maxNanos, 0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(stage).append(": n=").append(getCount(stage))
+                    .append(" mean=").append(getMeanNanos(stage) / 1000).append("us")
+                    .append(" max=").append(getMaxNanos(stage) / 1000).append("us");
+        }
+        return sb.toString();
+    }
+}
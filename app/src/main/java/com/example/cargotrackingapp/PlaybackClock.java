@@ -0,0 +1,72 @@
+package com.example.cargotrackingapp;
+
+// Trip time for playback, derived from frame times instead of advanced by a fixed
+// step per frame, so dropped frames never slow playback down. While playing, trip
+// time runs at speed times real time from the last anchor; every change of state
+// re-anchors at the current frame. Time stays within [start, end] and playback
+// pauses itself at the end. All times in and out are trip milliseconds, except
+// nowNanos, which is the frame clock (System.nanoTime or Choreographer frame time).
+public class PlaybackClock {
+
+    private long start, end;
+    private long anchorTime;
+    private long anchorNanos;
+    private boolean playing = false;
+    private double speed = 1;
+
+    // The playable span; may grow while the trip loads
+    public void setRange(long start, long end, long nowNanos) {
+        long time = getTime(nowNanos);
+        this.start = start;
+        this.end = end;
+        anchor(time, nowNanos);
+    }
+
+    public void play(long nowNanos) {
+        long time = getTime(nowNanos);
+        if (time >= end) time = start; // Play again from the beginning
+        anchor(time, nowNanos);
+        playing = true;
+    }
+
+    public void pause(long nowNanos) {
+        anchor(getTime(nowNanos), nowNanos);
+        playing = false;
+    }
+
+    public void seek(long time, long nowNanos) {
+        anchor(time, nowNanos);
+    }
+
+    // Multiple of real time, e.g. 60 plays a minute of the trip per second
+    public void setSpeed(double speed, long nowNanos) {
+        if (speed <= 0) throw new IllegalArgumentException("Speed must be positive: " + speed);
+        anchor(getTime(nowNanos), nowNanos);
+        this.speed = speed;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    // Trip time at the given frame; playback stops once it reaches the end
+    public long getTime(long nowNanos) {
+        if (!playing) return anchorTime;
+        long time = anchorTime + (long) ((nowNanos - anchorNanos) / 1e6 * speed);
+        if (time >= end) {
+            anchor(end, nowNanos);
+            playing = false;
+            return end;
+        }
+        return time;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    private void anchor(long time, long nowNanos) {
+        anchorTime = Math.max(start, Math.min(end, time));
+        anchorNanos = nowNanos;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.cargotrackingapp;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// LocationSource that plays a recorded trace back on a shared scheduler, with the
+// trace's own timing divided by speedUp; a speedUp of 0 delivers each fix as soon
+// as the previous one has been handled. Like the fused provider, it only delivers
+// a fix once the requested profile's interval has passed and the truck has moved
+// its minimum distance since the last delivered fix, so adaptive sampling changes
+// what reaches the pipeline. Delivery times are planned against the start of the
+// replay rather than the previous delivery, so a listener that falls behind shows
+// up as latency instead of stretching the trace.
+public class ReplayLocationSource implements LocationSource {
+
+    private final List<LocationPoint> trace;
+    private final ScheduledExecutorService scheduler;
+    private final double speedUp;
+    private final Runnable onFinished;
+
+    private AdaptiveSamplingScheduler.Profile profile;
+    private Listener listener;
+    private boolean running = false;
+    private boolean started = false;
+    private ScheduledFuture<?> pending;
+
+    private long startNanos;
+    private int next = 0;
+    private LocationPoint lastDelivered;
+    private long dueNanos;
+    private long deliveredCount = 0;
+    private long skippedCount = 0;
+
+    private final Runnable deliverTask = this::deliverNext;
+
+    // onFinished runs on the scheduler after the last fix has been handled
+    public ReplayLocationSource(List<LocationPoint> trace, ScheduledExecutorService scheduler, double speedUp,
+                                Runnable onFinished) {
+        if (speedUp < 0) throw new IllegalArgumentException("speedUp must not be negative");
+        this.trace = trace;
+        this.scheduler = scheduler;
+        this.speedUp = speedUp;
+        this.onFinished = onFinished;
+    }
+
+    // The first call starts the replay; later calls only change the profile
+    @Override
+    public synchronized void start(AdaptiveSamplingScheduler.Profile profile, Listener listener) {
+        this.profile = profile;
+        this.listener = listener;
+        if (started) return;
+        started = running = true;
+        startNanos = System.nanoTime();
+        scheduleNext();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (pending != null) pending.cancel(false);
+    }
+
+    private void deliverNext() {
+        LocationPoint fix;
+        Listener target;
+        synchronized (this) {
+            if (!running) return;
+            fix = trace.get(next++);
+            lastDelivered = fix;
+            deliveredCount++;
+            target = listener;
+        }
+        target.onLocation(fix);
+        synchronized (this) {
+            scheduleNext();
+        }
+    }
+
+    // Skip ahead to the next fix the current profile would deliver and schedule it
+    private void scheduleNext() {
+        if (!running) return;
+        while (next < trace.size() && !wouldDeliver(trace.get(next))) {
+            next++;
+            skippedCount++;
+        }
+        if (next >= trace.size()) {
+            running = false;
+            scheduler.execute(onFinished);
+            return;
+        }
+        long now = System.nanoTime();
+        if (speedUp == 0) {
+            dueNanos = now;
+        } else {
+            long traceMillis = trace.get(next).timestamp - trace.get(0).timestamp;
+            dueNanos = Math.max(dueNanos, startNanos + (long) (traceMillis * 1e6 / speedUp));
+        }
+        pending = scheduler.schedule(deliverTask, dueNanos - now, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean wouldDeliver(LocationPoint fix) {
+        if (lastDelivered == null) return true;
+        return fix.timestamp - lastDelivered.timestamp >= profile.intervalMillis
+                && Geodesy.equirectangular(lastDelivered.latitude, lastDelivered.longitude,
+                fix.latitude, fix.longitude) >= profile.minDistanceMeters;
+    }
+
+    // System.nanoTime() at which the fix being delivered was due, for latency measurement
+    public synchronized long getDueNanos() {
+        return dueNanos;
+    }
+
+    public synchronized long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    // Recorded fixes the requested profile filtered out
+    public synchronized long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+}
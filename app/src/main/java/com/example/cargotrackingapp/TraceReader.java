@@ -0,0 +1,154 @@
+package com.example.cargotrackingapp;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+// Reads recorded GPS traces for replay, in file order:
+//  - GPX: every <trkpt> with its <time>, plus <speed> (GPX 1.0 or a track point
+//    extension) and <hdop>, which is turned into an accuracy of hdop * 5 m
+//  - CSV: timestamp,latitude,longitude[,accuracy,speed] with the timestamp in epoch
+//    millis or ISO-8601; a header line, blank lines and # comments are skipped
+// Missing accuracy or speed is NaN, as from the fused provider.
+public final class TraceReader {
+
+    // Typical user-equivalent range error of a phone receiver
+    private static final float METRES_PER_HDOP = 5;
+
+    private TraceReader() {
+    }
+
+    // Picks the format from the file extension
+    public static List<LocationPoint> read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            if (file.getName().toLowerCase().endsWith(".gpx")) return readGpx(in);
+            return readCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    public static List<LocationPoint> readCsv(Reader reader) throws IOException {
+        List<LocationPoint> points = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split(",");
+            if (points.isEmpty() && lineNumber == 1 && !looksNumeric(fields[0])) continue; // Header
+            if (fields.length < 3) throw new IOException("Line " + lineNumber + ": expected at least 3 fields");
+            try {
+                points.add(new LocationPoint(
+                        Double.parseDouble(fields[1].trim()),
+                        Double.parseDouble(fields[2].trim()),
+                        parseTime(fields[0].trim()),
+                        fields.length > 3 ? parseOptional(fields[3]) : Float.NaN,
+                        fields.length > 4 ? parseOptional(fields[4]) : Float.NaN));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return points;
+    }
+
+    public static List<LocationPoint> readGpx(InputStream in) throws IOException {
+        GpxHandler handler = new GpxHandler();
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.newSAXParser().parse(in, handler);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid GPX: " + e.getMessage(), e);
+        }
+        return handler.points;
+    }
+
+    private static boolean looksNumeric(String field) {
+        String value = field.trim();
+        return !value.isEmpty() && (Character.isDigit(value.charAt(0)) || value.charAt(0) == '-');
+    }
+
+    private static long parseTime(String value) {
+        if (value.indexOf('T') >= 0) return Instant.parse(value).toEpochMilli();
+        return Long.parseLong(value);
+    }
+
+    private static float parseOptional(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? Float.NaN : Float.parseFloat(trimmed);
+    }
+
+    private static final class GpxHandler extends DefaultHandler {
+        final List<LocationPoint> points = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private boolean inPoint = false;
+        private double latitude, longitude;
+        private long time;
+        private float accuracy, speed;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            text.setLength(0);
+            if (!"trkpt".equals(localName)) return;
+            try {
+                latitude = Double.parseDouble(attributes.getValue("lat"));
+                longitude = Double.parseDouble(attributes.getValue("lon"));
+            } catch (NullPointerException | NumberFormatException e) {
+                throw new SAXException("Track point without a valid lat/lon");
+            }
+            time = Long.MIN_VALUE;
+            accuracy = speed = Float.NaN;
+            inPoint = true;
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (!inPoint) return;
+            String value = text.toString().trim();
+            try {
+                switch (localName) {
+                    case "time":
+                        time = Instant.parse(value).toEpochMilli();
+                        break;
+                    case "speed":
+                        speed = Float.parseFloat(value);
+                        break;
+                    case "hdop":
+                        accuracy = Float.parseFloat(value) * METRES_PER_HDOP;
+                        break;
+                    case "trkpt":
+                        if (time == Long.MIN_VALUE) throw new SAXException("Track point without a time");
+                        points.add(new LocationPoint(latitude, longitude, time, accuracy, speed));
+                        inPoint = false;
+                        break;
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new SAXException("Invalid " + localName + ": " + value);
+            }
+            text.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.cargotrackingapp;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Pages through stored track segments in time order with startAfter/limit, decoding
+// each page of segments and handing its points to the listener as soon as it arrives
+public class TrackHistoryLoader {
+
+    private static final String TAG = "TrackHistoryLoader";
+
+    public interface Listener {
+        void onPage(List<LocationPoint> points);
+
+        void onComplete(int totalPoints);
+
+        void onError(Exception e);
+    }
+
+    private final Query segments;
+    private final int pageSize;
+    private boolean cancelled = false;
+
+    // Read one segment partition, e.g. TripSession.segments(...); pageSize counts segments
+    public TrackHistoryLoader(Query segments, int pageSize) {
+        this.segments = segments;
+        this.pageSize = pageSize;
+    }
+
+    // Load points with timestamp > sinceMillis
+    public void load(long sinceMillis, Listener listener) {
+        cancelled = false;
+        requestPage(baseQuery(sinceMillis), sinceMillis, null, 0, listener);
+    }
+
+    // Stop requesting further pages
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private Query baseQuery(long sinceMillis) {
+        return segments.whereGreaterThan("endTime", sinceMillis)
+                .orderBy("endTime")
+                .limit(pageSize);
+    }
+
+    private void requestPage(Query base, long sinceMillis, @Nullable DocumentSnapshot cursor, int loaded,
+                             Listener listener) {
+        Query query = cursor == null ? base : base.startAfter(cursor);
+        query.get()
+                .addOnSuccessListener(snapshot -> {
+                    if (cancelled) return;
+                    List<LocationPoint> points = toPoints(snapshot, sinceMillis);
+                    int total = loaded + points.size();
+                    if (!points.isEmpty()) listener.onPage(points);
+
+                    if (snapshot.size() < pageSize) {
+                        listener.onComplete(total);
+                    } else {
+                        DocumentSnapshot last = snapshot.getDocuments().get(snapshot.size() - 1);
+                        requestPage(base, sinceMillis, last, total, listener);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (!cancelled) listener.onError(e);
+                });
+    }
+
+    // Decode every segment in the page, keeping points newer than sinceMillis in time order
+    private static List<LocationPoint> toPoints(QuerySnapshot snapshot, long sinceMillis) {
+        List<LocationPoint> points = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : snapshot) {
+            Blob blob = doc.getBlob("points");
+            if (blob == null) {
+                Log.w(TAG, "Segment without points: " + doc.getId());
+                continue;
+            }
+            try {
+                for (LocationPoint point : TrackSegmentCodec.decode(blob.toBytes())) {
+                    if (point.timestamp > sinceMillis) points.add(point);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Invalid segment data in document: " + doc.getId(), e);
+            }
+        }
+        // Segments are ordered by their end time; a retried batch can overlap its neighbours
+        Collections.sort(points, (a, b) -> Long.compare(a.timestamp, b.timestamp));
+        return points;
+    }
+}
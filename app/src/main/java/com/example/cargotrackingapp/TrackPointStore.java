@@ -0,0 +1,209 @@
+package com.example.cargotrackingapp;
+
+// Bounded in-memory track for the map, held in primitive ring buffers instead of
+// a list of LatLng objects. Tier 0 keeps every point; each coarser tier keeps a
+// point only when it is at least its spacing away from that tier's previous
+// point, so the same capacity covers a much longer stretch of road at lower
+// detail. The map draws the tier that matches its zoom level.
+//
+// When tier 0 is full its oldest points are handed to the Spill in chunks and
+// dropped; coarser tiers simply overwrite their oldest points. Memory use is
+// fixed at construction whatever the length of the session.
+public class TrackPointStore {
+
+    // Receives the oldest full-detail points, in time order, before they are dropped
+    public interface Spill {
+        void write(long[] times, double[] lats, double[] lons, int count);
+    }
+
+    // Ground resolution of a web mercator map at zoom 0 on the equator
+    private static final double METRES_PER_PIXEL_ZOOM_0 = 156543.03392;
+    // A tier is detailed enough while its spacing stays under this many pixels
+    private static final double LOD_PIXELS = 2;
+
+    private final Tier[] tiers;
+    private final Spill spill;
+    private final int spillChunk;
+    private final long[] spillTimes;
+    private final double[] spillLats, spillLons;
+    private long addedCount = 0;
+    private long spilledCount = 0;
+
+    // spacingsMeters must start at 0 (full detail) and increase; spill may be null
+    public TrackPointStore(int capacity, double[] spacingsMeters, Spill spill) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacity too small: " + capacity);
+        if (spacingsMeters.length == 0 || spacingsMeters[0] != 0) {
+            throw new IllegalArgumentException("Tier 0 must keep every point");
+        }
+        tiers = new Tier[spacingsMeters.length];
+        for (int i = 0; i < tiers.length; i++) {
+            if (i > 0 && spacingsMeters[i] <= spacingsMeters[i - 1]) {
+                throw new IllegalArgumentException("Tier spacings must increase");
+            }
+            tiers[i] = new Tier(capacity, spacingsMeters[i]);
+        }
+        this.spill = spill;
+        spillChunk = spill != null ? Math.max(1, capacity / 8) : 0;
+        spillTimes = new long[spillChunk];
+        spillLats = new double[spillChunk];
+        spillLons = new double[spillChunk];
+    }
+
+    // 20000 points per tier, from every fix down to one every 2.5 km: about 2.9 MB
+    public static TrackPointStore forMap(Spill spill) {
+        return new TrackPointStore(20000, new double[]{0, 10, 40, 160, 640, 2560}, spill);
+    }
+
+    // Add the next point in time order; returns a bit mask of the tiers that kept it
+    public int add(long timestamp, double latitude, double longitude) {
+        addedCount++;
+        Tier full = tiers[0];
+        if (full.size == full.capacity && spill != null) spillOldest();
+        int kept = 0;
+        for (int i = 0; i < tiers.length; i++) {
+            if (tiers[i].offer(timestamp, latitude, longitude)) kept |= 1 << i;
+        }
+        return kept;
+    }
+
+    public int getTierCount() {
+        return tiers.length;
+    }
+
+    public double getSpacing(int tier) {
+        return tiers[tier].spacingMeters;
+    }
+
+    public int size(int tier) {
+        return tiers[tier].size;
+    }
+
+    // Points are indexed from the oldest (0) to the newest (size - 1)
+    public double getLatitude(int tier, int index) {
+        Tier t = tiers[tier];
+        return t.lats[t.slot(index)];
+    }
+
+    public double getLongitude(int tier, int index) {
+        Tier t = tiers[tier];
+        return t.lons[t.slot(index)];
+    }
+
+    public long getTimestamp(int tier, int index) {
+        Tier t = tiers[tier];
+        return t.times[t.slot(index)];
+    }
+
+    public int getCapacity() {
+        return tiers[0].capacity;
+    }
+
+    // Coarsest tier whose spacing is still under a couple of pixels at this resolution
+    public int tierFor(double metresPerPixel) {
+        double limit = metresPerPixel * LOD_PIXELS;
+        int tier = 0;
+        while (tier + 1 < tiers.length && tiers[tier + 1].spacingMeters <= limit) tier++;
+        return tier;
+    }
+
+    // Ground size of one screen pixel at a map zoom level and latitude
+    public static double metresPerPixel(double latitude, double zoom) {
+        return METRES_PER_PIXEL_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
+    public void clear() {
+        for (Tier tier : tiers) tier.clear();
+        addedCount = 0;
+        spilledCount = 0;
+    }
+
+    public long getAddedCount() {
+        return addedCount;
+    }
+
+    public long getSpilledCount() {
+        return spilledCount;
+    }
+
+    // Bytes held by the ring buffers and spill scratch space
+    public long getFootprintBytes() {
+        long perPoint = 8 + 8 + 8;
+        return (long) tiers.length * tiers[0].capacity * perPoint + (long) spillChunk * perPoint;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("added=").append(addedCount).append(" spilled=").append(spilledCount);
+        for (int i = 0; i < tiers.length; i++) {
+            sb.append(" t").append(i).append('=').append(tiers[i].size);
+        }
+        return sb.append(" footprint=").append(getFootprintBytes() / 1024).append("KB").toString();
+    }
+
+    // Hand the oldest chunk of full-detail points to the spill and drop them
+    private void spillOldest() {
+        Tier full = tiers[0];
+        int count = Math.min(spillChunk, full.size);
+        for (int i = 0; i < count; i++) {
+            int slot = full.slot(i);
+            spillTimes[i] = full.times[slot];
+            spillLats[i] = full.lats[slot];
+            spillLons[i] = full.lons[slot];
+        }
+        spill.write(spillTimes, spillLats, spillLons, count);
+        full.dropOldest(count);
+        spilledCount += count;
+    }
+
+    private static final class Tier {
+        final int capacity;
+        final double spacingMeters;
+        final long[] times;
+        final double[] lats, lons;
+        int head = 0; // Slot of the oldest point
+        int size = 0;
+        // Last kept point, remembered even after the ring drops it
+        boolean hasLast = false;
+        double lastLat, lastLon;
+
+        Tier(int capacity, double spacingMeters) {
+            this.capacity = capacity;
+            this.spacingMeters = spacingMeters;
+            times = new long[capacity];
+            lats = new double[capacity];
+            lons = new double[capacity];
+        }
+
+        boolean offer(long timestamp, double latitude, double longitude) {
+            if (hasLast && spacingMeters > 0
+                    && Geodesy.equirectangular(lastLat, lastLon, latitude, longitude) < spacingMeters) {
+                return false;
+            }
+            if (size == capacity) dropOldest(1);
+            int slot = slot(size++);
+            times[slot] = timestamp;
+            lats[slot] = latitude;
+            lons[slot] = longitude;
+            hasLast = true;
+            lastLat = latitude;
+            lastLon = longitude;
+            return true;
+        }
+
+        int slot(int index) {
+            int slot = head + index;
+            return slot < capacity ? slot : slot - capacity;
+        }
+
+        void dropOldest(int count) {
+            head = slot(count);
+            size -= count;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+            hasLast = false;
+        }
+    }
+}
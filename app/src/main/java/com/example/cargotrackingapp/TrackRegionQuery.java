@@ -0,0 +1,90 @@
+package com.example.cargotrackingapp;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Finds stored segments that passed near a place, e.g. "which trucks came within
+// 2 km of the depot today". The radius is turned into the geohash cells covering
+// it at the finest stored precision that fits one array-contains-any query;
+// decoded points are then post-filtered by exact distance and time.
+public class TrackRegionQuery {
+
+    private static final String TAG = "TrackRegionQuery";
+
+    // Firestore's limit on array-contains-any values
+    private static final int MAX_QUERY_CELLS = 30;
+
+    public interface Listener {
+        // Matching points by vehicle id, each list in time order
+        void onResult(Map<String, List<LocationPoint>> pointsByVehicle);
+
+        void onError(Exception e);
+    }
+
+    private final FirebaseFirestore db;
+
+    public TrackRegionQuery(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    // Points within radiusMeters of the centre recorded after sinceMillis
+    public void findNear(double latitude, double longitude, double radiusMeters, long sinceMillis,
+                         Listener listener) {
+        // Finest stored precision whose cover fits in one query
+        GeoHash.Cover cover = GeoHash.coverRadius(latitude, longitude, radiusMeters,
+                FirestoreLocationSink.CELL_PRECISIONS, MAX_QUERY_CELLS);
+        if (cover == null) {
+            listener.onError(new IllegalArgumentException("Radius too large: " + radiusMeters + " m"));
+            return;
+        }
+
+        // Every vehicle's and trip's segments, across partitions
+        db.collectionGroup(TripSession.SEGMENTS)
+                .whereArrayContainsAny(FirestoreLocationSink.cellField(cover.precision), cover.keys())
+                .whereGreaterThan("endTime", sinceMillis)
+                .get()
+                .addOnSuccessListener(snapshot -> listener.onResult(
+                        filter(snapshot, latitude, longitude, radiusMeters, sinceMillis)))
+                .addOnFailureListener(listener::onError);
+    }
+
+    private static Map<String, List<LocationPoint>> filter(QuerySnapshot snapshot, double latitude,
+                                                           double longitude, double radiusMeters,
+                                                           long sinceMillis) {
+        Map<String, List<LocationPoint>> result = new HashMap<>();
+        for (QueryDocumentSnapshot doc : snapshot) {
+            String vehicleId = doc.getString("vehicleId");
+            Blob blob = doc.getBlob("points");
+            if (vehicleId == null || blob == null) continue;
+            try {
+                for (LocationPoint point : TrackSegmentCodec.decode(blob.toBytes())) {
+                    if (point.timestamp > sinceMillis && Geodesy.haversine(
+                            latitude, longitude, point.latitude, point.longitude) <= radiusMeters) {
+                        List<LocationPoint> points = result.get(vehicleId);
+                        if (points == null) {
+                            points = new ArrayList<>();
+                            result.put(vehicleId, points);
+                        }
+                        points.add(point);
+                    }
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Invalid segment data in document: " + doc.getId(), e);
+            }
+        }
+        for (List<LocationPoint> points : result.values()) {
+            points.sort((a, b) -> Long.compare(a.timestamp, b.timestamp));
+        }
+        return result;
+    }
+}
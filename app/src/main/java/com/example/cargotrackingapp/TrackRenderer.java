@@ -0,0 +1,191 @@
+package com.example.cargotrackingapp;
+
+import android.view.Choreographer;
+
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Draws the tracked path with a persistent marker and polylines that are updated
+// in place. The path is split into fixed-size segments: only the newest segment
+// is ever re-uploaded to the map, and updates are applied at most once per frame.
+// Stretches read back from elsewhere, such as spilled detail, are drawn as
+// separate lines beside the path.
+public class TrackRenderer implements Choreographer.FrameCallback {
+
+    private static final int SEGMENT_POINTS = 500;
+    private static final float CAMERA_ZOOM = 15;
+
+    private final GoogleMap map;
+    private final int color;
+    private final float width;
+
+    private final List<Polyline> frozenSegments = new ArrayList<>();
+    private Polyline activeSegment;
+    private final List<Polyline> detailLines = new ArrayList<>();
+    private List<LatLng> activePoints = new ArrayList<>();
+    private Marker marker;
+
+    // Points and marker position received since the last frame
+    private final List<LatLng> pendingPoints = new ArrayList<>();
+    private LatLng pendingMarker;
+    private boolean followCamera = false;
+    private boolean frameScheduled = false;
+
+    public TrackRenderer(GoogleMap map, int color, float width) {
+        this.map = map;
+        this.color = color;
+        this.width = width;
+    }
+
+    // Queue a new live point for the path; it is drawn on the next frame. The
+    // marker follows the live position separately, through moveMarker.
+    public void addPoint(LatLng point) {
+        pendingPoints.add(point);
+        scheduleFrame();
+    }
+
+    // Queue a batch of points, e.g. a page of stored history
+    public void addPoints(List<LatLng> points) {
+        if (points.isEmpty()) return;
+        pendingPoints.addAll(points);
+        pendingMarker = points.get(points.size() - 1);
+        followCamera = true;
+        scheduleFrame();
+    }
+
+    // Move the marker to a live position without extending the path
+    public void moveMarker(LatLng position) {
+        pendingMarker = position;
+        followCamera = true;
+        scheduleFrame();
+    }
+
+    // Replace the drawn path, e.g. with another level of detail; the marker and camera stay put
+    public void setPath(List<LatLng> points) {
+        removePath();
+        pendingPoints.clear();
+        pendingPoints.addAll(points);
+        scheduleFrame();
+    }
+
+    // Replace the extra stretches of detail, one line per run of points
+    public void setDetail(List<List<LatLng>> runs) {
+        removeDetail();
+        for (List<LatLng> run : runs) {
+            if (run.size() < 2) continue;
+            detailLines.add(map.addPolyline(new PolylineOptions().addAll(run).width(width).color(color)));
+        }
+    }
+
+    // Remove the path and marker from the map
+    public void clear() {
+        removePath();
+        removeDetail();
+        if (marker != null) marker.remove();
+        marker = null;
+        pendingPoints.clear();
+        pendingMarker = null;
+    }
+
+    // Stop frame callbacks, e.g. when the activity is destroyed
+    public void release() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        frameScheduled = false;
+        pendingPoints.clear();
+        pendingMarker = null;
+    }
+
+    public int getSegmentCount() {
+        return frozenSegments.size() + (activeSegment != null ? 1 : 0);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        long start = System.nanoTime();
+        frameScheduled = false;
+        if (!pendingPoints.isEmpty()) {
+            appendPoints(pendingPoints);
+            pendingPoints.clear();
+            flushActiveSegment();
+        }
+        if (pendingMarker != null) {
+            LatLng last = pendingMarker;
+            pendingMarker = null;
+            updateMarker(last);
+            if (followCamera) {
+                map.moveCamera(CameraUpdateFactory.newLatLngZoom(last, CAMERA_ZOOM));
+                followCamera = false;
+            }
+        }
+        TrackingMetrics.GLOBAL.record(TrackingMetrics.Timer.MAP_REDRAW, System.nanoTime() - start);
+    }
+
+    private void removePath() {
+        for (Polyline segment : frozenSegments) segment.remove();
+        frozenSegments.clear();
+        if (activeSegment != null) activeSegment.remove();
+        activeSegment = null;
+        activePoints = new ArrayList<>();
+    }
+
+    private void removeDetail() {
+        for (Polyline line : detailLines) line.remove();
+        detailLines.clear();
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) return;
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    // Add points to the active segment, freezing it whenever it fills up
+    private void appendPoints(List<LatLng> points) {
+        for (LatLng point : points) {
+            if (activePoints.size() >= SEGMENT_POINTS) {
+                freezeActiveSegment();
+            }
+            activePoints.add(point);
+        }
+    }
+
+    // Push the full active segment to the map once and start a new one that
+    // shares its last point, so the line stays continuous
+    private void freezeActiveSegment() {
+        flushActiveSegment();
+        if (activeSegment != null) frozenSegments.add(activeSegment);
+        LatLng joint = activePoints.get(activePoints.size() - 1);
+        activeSegment = null;
+        activePoints = new ArrayList<>(SEGMENT_POINTS);
+        activePoints.add(joint);
+    }
+
+    // Upload the active segment's points to the map
+    private void flushActiveSegment() {
+        if (activePoints.size() < 2) return;
+        if (activeSegment == null) {
+            activeSegment = map.addPolyline(new PolylineOptions()
+                    .addAll(activePoints)
+                    .width(width)
+                    .color(color));
+        } else {
+            activeSegment.setPoints(activePoints);
+        }
+    }
+
+    private void updateMarker(LatLng position) {
+        if (marker == null) {
+            marker = map.addMarker(new MarkerOptions().position(position).title("Current Location"));
+        } else {
+            marker.setPosition(position);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.cargotrackingapp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Compact binary format for a run of track points. Coordinates are stored as
+// fixed-point 1e-6 degrees (about 11 cm), timestamps in milliseconds; both are
+// delta-encoded against the previous point and written as zigzag varints, the
+// same idea as the Google polyline algorithm without its ASCII expansion.
+// Accuracy and speed are quantized to 0.1 m and 0.1 m/s, with 0 meaning unknown.
+//
+// Layout: version, count, then per point dt, dlat, dlon, accuracy, speed.
+// The first point's deltas are taken against zero.
+public final class TrackSegmentCodec {
+
+    static final int FORMAT_VERSION = 1;
+    private static final double COORDINATE_SCALE = 1e6;
+    private static final float QUANTITY_SCALE = 10;
+    private static final long MAX_QUANTITY = (1 << 28) - 1; // Fits a 4-byte varint
+    private static final int MAX_POINT_BYTES = 10 + 10 + 10 + 4 + 4;
+    private static final int MAX_HEADER_BYTES = 1 + 5;
+
+    private TrackSegmentCodec() {
+    }
+
+    // Encode points in order; the list may be empty
+    public static byte[] encode(List<LocationPoint> points) {
+        Writer out = new Writer(MAX_HEADER_BYTES + points.size() * MAX_POINT_BYTES);
+        out.writeHeader(points.size());
+        for (LocationPoint point : points) {
+            out.writePoint(point.timestamp, point.latitude, point.longitude, point.accuracy, point.speed);
+        }
+        return out.toByteArray();
+    }
+
+    // Encode the first count entries of parallel arrays; accuracies and speeds may be null
+    public static byte[] encode(long[] times, double[] lats, double[] lons,
+                                float[] accuracies, float[] speeds, int count) {
+        Writer out = new Writer(MAX_HEADER_BYTES + count * MAX_POINT_BYTES);
+        out.writeHeader(count);
+        for (int i = 0; i < count; i++) {
+            out.writePoint(times[i], lats[i], lons[i],
+                    accuracies != null ? accuracies[i] : Float.NaN,
+                    speeds != null ? speeds[i] : Float.NaN);
+        }
+        return out.toByteArray();
+    }
+
+    // Decode a segment produced by encode
+    public static List<LocationPoint> decode(byte[] data) throws IOException {
+        Reader in = new Reader(data);
+        int version = (int) in.readVarint();
+        if (version != FORMAT_VERSION) throw new IOException("Unsupported segment version " + version);
+        long count = in.readVarint();
+        if (count > data.length) throw new IOException("Corrupt segment: count " + count);
+
+        List<LocationPoint> points = new ArrayList<>((int) count);
+        long time = 0, lat = 0, lon = 0;
+        for (int i = 0; i < count; i++) {
+            time += in.readSignedVarint();
+            lat += in.readSignedVarint();
+            lon += in.readSignedVarint();
+            float accuracy = dequantize(in.readVarint());
+            float speed = dequantize(in.readVarint());
+            points.add(new LocationPoint(lat / COORDINATE_SCALE, lon / COORDINATE_SCALE, time, accuracy, speed));
+        }
+        if (in.position != data.length) throw new IOException("Corrupt segment: trailing bytes");
+        return points;
+    }
+
+    // Number of points in a segment without decoding it
+    public static int count(byte[] data) throws IOException {
+        Reader in = new Reader(data);
+        int version = (int) in.readVarint();
+        if (version != FORMAT_VERSION) throw new IOException("Unsupported segment version " + version);
+        return (int) in.readVarint();
+    }
+
+    static long toFixed(double degrees) {
+        return Math.round(degrees * COORDINATE_SCALE);
+    }
+
+    private static long quantize(float value) {
+        if (Float.isNaN(value)) return 0;
+        return Math.min(MAX_QUANTITY, Math.round(Math.max(0, value) * QUANTITY_SCALE) + 1);
+    }
+
+    private static float dequantize(long value) {
+        return value == 0 ? Float.NaN : (value - 1) / QUANTITY_SCALE;
+    }
+
+    private static final class Writer {
+        private final byte[] buffer;
+        private int position = 0;
+        private long time = 0, lat = 0, lon = 0;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeHeader(int count) {
+            writeVarint(FORMAT_VERSION);
+            writeVarint(count);
+        }
+
+        void writePoint(long timestamp, double latitude, double longitude, float accuracy, float speed) {
+            long fixedLat = toFixed(latitude);
+            long fixedLon = toFixed(longitude);
+            writeSignedVarint(timestamp - time);
+            writeSignedVarint(fixedLat - lat);
+            writeSignedVarint(fixedLon - lon);
+            writeVarint(quantize(accuracy));
+            writeVarint(quantize(speed));
+            time = timestamp;
+            lat = fixedLat;
+            lon = fixedLon;
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63)); // Zigzag: small magnitudes stay short
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position = 0;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        long readSignedVarint() throws IOException {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= data.length) throw new IOException("Corrupt segment: truncated");
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Corrupt segment: varint too long");
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.cargotrackingapp;
+
+import java.util.Arrays;
+
+// Polyline simplification over primitive latitude/longitude arrays.
+//
+// Points are projected onto a local equirectangular plane (metres) around the
+// first point, which is accurate to well under a metre over the extent of a
+// single route. Batch methods write the indices of kept points into an int[] and
+// return how many were kept; the first and last points are always kept.
+public final class TrackSimplifier {
+
+    private TrackSimplifier() {
+    }
+
+    // Douglas-Peucker: keep every point further than toleranceMeters from the
+    // simplified line. Iterative, so it is safe on million-point traces.
+    public static int douglasPeucker(double[] lats, double[] lons, int count, double toleranceMeters,
+                                     int[] outIndices) {
+        if (count <= 2) return copyAll(count, outIndices);
+
+        double kx = Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(lats[0]));
+        double toleranceSq = toleranceMeters * toleranceMeters;
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        // Explicit stack of [first, last] ranges
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            if (last - first < 2) continue;
+
+            double ax = lons[first] * kx, ay = lats[first] * Geodesy.METRES_PER_DEGREE;
+            double bx = lons[last] * kx, by = lats[last] * Geodesy.METRES_PER_DEGREE;
+            double maxDistSq = -1;
+            int maxIndex = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(lons[i] * kx, lats[i] * Geodesy.METRES_PER_DEGREE, ax, ay, bx, by);
+                if (d > maxDistSq) {
+                    maxDistSq = d;
+                    maxIndex = i;
+                }
+            }
+            if (maxDistSq > toleranceSq) {
+                keep[maxIndex] = true;
+                if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = first;
+                stack[top++] = maxIndex;
+                stack[top++] = maxIndex;
+                stack[top++] = last;
+            }
+        }
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) outIndices[kept++] = i;
+        }
+        return kept;
+    }
+
+    // Visvalingam-Whyatt: repeatedly drop the point whose triangle with its
+    // neighbours has the smallest area, until every remaining triangle is larger
+    // than toleranceMeters squared.
+    public static int visvalingam(double[] lats, double[] lons, int count, double toleranceMeters,
+                                  int[] outIndices) {
+        if (count <= 2) return copyAll(count, outIndices);
+
+        double kx = Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(lats[0]));
+        double minArea = toleranceMeters * toleranceMeters;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = lons[i] * kx;
+            ys[i] = lats[i] * Geodesy.METRES_PER_DEGREE;
+        }
+
+        int[] prev = new int[count];
+        int[] next = new int[count];
+        double[] area = new double[count];
+        for (int i = 0; i < count; i++) {
+            prev[i] = i - 1;
+            next[i] = i + 1;
+        }
+
+        // Indexed min-heap of interior points keyed by triangle area
+        int[] heap = new int[count];
+        int[] heapPos = new int[count];
+        int size = 0;
+        for (int i = 1; i < count - 1; i++) {
+            area[i] = triangleArea(xs, ys, i - 1, i, i + 1);
+            heap[size] = i;
+            heapPos[i] = size;
+            size++;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) siftDown(heap, heapPos, area, size, i);
+
+        boolean[] removed = new boolean[count];
+        double lastRemoved = 0;
+        while (size > 0) {
+            int point = heap[0];
+            // Areas never shrink below the last removed one, which keeps the order stable
+            double effective = Math.max(area[point], lastRemoved);
+            if (effective >= minArea) break;
+            lastRemoved = effective;
+
+            size--;
+            heap[0] = heap[size];
+            heapPos[heap[0]] = 0;
+            siftDown(heap, heapPos, area, size, 0);
+            removed[point] = true;
+
+            int p = prev[point], n = next[point];
+            next[p] = n;
+            prev[n] = p;
+            if (p > 0) updateArea(p, xs, ys, prev, next, area, heap, heapPos, size);
+            if (n < count - 1) updateArea(n, xs, ys, prev, next, area, heap, heapPos, size);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!removed[i]) outIndices[kept++] = i;
+        }
+        return kept;
+    }
+
+    // Copy the kept points into new arrays, e.g. after douglasPeucker
+    public static double[] select(double[] values, int[] indices, int keptCount) {
+        double[] out = new double[keptCount];
+        for (int i = 0; i < keptCount; i++) out[i] = values[indices[i]];
+        return out;
+    }
+
+    private static void updateArea(int i, double[] xs, double[] ys, int[] prev, int[] next, double[] area,
+                                   int[] heap, int[] heapPos, int size) {
+        double old = area[i];
+        area[i] = triangleArea(xs, ys, prev[i], i, next[i]);
+        if (area[i] < old) {
+            siftUp(heap, heapPos, area, heapPos[i]);
+        } else {
+            siftDown(heap, heapPos, area, size, heapPos[i]);
+        }
+    }
+
+    private static void siftUp(int[] heap, int[] heapPos, double[] area, int i) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (area[heap[parent]] <= area[item]) break;
+            heap[i] = heap[parent];
+            heapPos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = item;
+        heapPos[item] = i;
+    }
+
+    private static void siftDown(int[] heap, int[] heapPos, double[] area, int size, int i) {
+        int item = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && area[heap[child + 1]] < area[heap[child]]) child++;
+            if (area[heap[child]] >= area[item]) break;
+            heap[i] = heap[child];
+            heapPos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = item;
+        heapPos[item] = i;
+    }
+
+    private static double triangleArea(double[] xs, double[] ys, int a, int b, int c) {
+        return Math.abs((xs[b] - xs[a]) * (ys[c] - ys[a]) - (xs[c] - xs[a]) * (ys[b] - ys[a])) / 2;
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        if (t < 0) t = 0;
+        else if (t > 1) t = 1;
+        double ex = px - (ax + t * dx), ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    private static int copyAll(int count, int[] outIndices) {
+        for (int i = 0; i < count; i++) outIndices[i] = i;
+        return count;
+    }
+
+    // Incremental simplifier for live tracks. Each new point is checked against
+    // the line from the last committed vertex; once any point in between strays
+    // further than the tolerance, the previous point is committed. The window is
+    // bounded so the per-point cost stays constant.
+    public static final class Streaming {
+
+        private final double toleranceSq;
+        private final int maxWindow;
+
+        // Committed vertices
+        private double[] vertexLats = new double[256];
+        private double[] vertexLons = new double[256];
+        private int vertexCount = 0;
+
+        // Points since the last committed vertex, projected to metres
+        private final double[] windowX;
+        private final double[] windowY;
+        private final double[] windowLats;
+        private final double[] windowLons;
+        private int windowSize = 0;
+        private double kx = Double.NaN;
+
+        public Streaming(double toleranceMeters, int maxWindow) {
+            if (maxWindow < 2) throw new IllegalArgumentException("maxWindow must be at least 2");
+            this.toleranceSq = toleranceMeters * toleranceMeters;
+            this.maxWindow = maxWindow;
+            this.windowX = new double[maxWindow];
+            this.windowY = new double[maxWindow];
+            this.windowLats = new double[maxWindow];
+            this.windowLons = new double[maxWindow];
+        }
+
+        // Add a point; returns true when a new vertex was committed
+        public boolean add(double latitude, double longitude) {
+            if (vertexCount == 0) {
+                kx = Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+                commit(latitude, longitude);
+                return true;
+            }
+            double x = longitude * kx, y = latitude * Geodesy.METRES_PER_DEGREE;
+            double ax = vertexLons[vertexCount - 1] * kx, ay = vertexLats[vertexCount - 1] * Geodesy.METRES_PER_DEGREE;
+
+            boolean exceeded = windowSize == maxWindow;
+            for (int i = 0; i < windowSize && !exceeded; i++) {
+                exceeded = segmentDistanceSq(windowX[i], windowY[i], ax, ay, x, y) > toleranceSq;
+            }
+            if (exceeded) {
+                // The previous point becomes a vertex and the new point starts the window
+                int last = windowSize - 1;
+                commit(windowLats[last], windowLons[last]);
+                windowSize = 0;
+            }
+            windowX[windowSize] = x;
+            windowY[windowSize] = y;
+            windowLats[windowSize] = latitude;
+            windowLons[windowSize] = longitude;
+            windowSize++;
+            return exceeded;
+        }
+
+        // Committed vertices, not including the pending tail
+        public int getVertexCount() {
+            return vertexCount;
+        }
+
+        public double getLatitude(int i) {
+            return vertexLats[i];
+        }
+
+        public double getLongitude(int i) {
+            return vertexLons[i];
+        }
+
+        // Whether there is an uncommitted latest point to draw after the vertices
+        public boolean hasTail() {
+            return windowSize > 0;
+        }
+
+        public double getTailLatitude() {
+            return windowLats[windowSize - 1];
+        }
+
+        public double getTailLongitude() {
+            return windowLons[windowSize - 1];
+        }
+
+        // Commit the tail so the vertices describe the whole track
+        public void finish() {
+            if (windowSize > 0) {
+                commit(windowLats[windowSize - 1], windowLons[windowSize - 1]);
+                windowSize = 0;
+            }
+        }
+
+        public void reset() {
+            vertexCount = 0;
+            windowSize = 0;
+        }
+
+        private void commit(double latitude, double longitude) {
+            if (vertexCount == vertexLats.length) {
+                vertexLats = Arrays.copyOf(vertexLats, vertexCount * 2);
+                vertexLons = Arrays.copyOf(vertexLons, vertexCount * 2);
+            }
+            vertexLats[vertexCount] = latitude;
+            vertexLons[vertexCount] = longitude;
+            vertexCount++;
+        }
+    }
+}
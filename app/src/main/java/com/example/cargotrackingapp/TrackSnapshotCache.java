@@ -0,0 +1,74 @@
+package com.example.cargotrackingapp;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+// Small file holding the simplified path last shown on the map, so a cold start
+// can draw the track and the last known position before the map store, SQLite
+// or Firestore are touched. Written whole to a temporary file and renamed, so a
+// reader sees either the previous snapshot or the new one.
+public class TrackSnapshotCache {
+
+    private static final int MAGIC = 0x43545331; // "CTS1"
+
+    public static final class Snapshot {
+        public final String tripId;
+        public final List<LocationPoint> points; // Oldest first, never empty
+
+        Snapshot(String tripId, List<LocationPoint> points) {
+            this.tripId = tripId;
+            this.points = points;
+        }
+
+        public LocationPoint getLastPosition() {
+            return points.get(points.size() - 1);
+        }
+    }
+
+    private final File file;
+
+    public TrackSnapshotCache(File file) {
+        this.file = file;
+    }
+
+    public void write(String tripId, List<LocationPoint> points) throws IOException {
+        if (points.isEmpty()) {
+            clear();
+            return;
+        }
+        byte[] segment = TrackSegmentCodec.encode(points);
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(tripId);
+            out.writeInt(segment.length);
+            out.write(segment);
+        }
+        if (!temp.renameTo(file)) throw new IOException("Cannot replace " + file);
+    }
+
+    // The saved snapshot, or null when there is none or it is unreadable
+    public Snapshot read() {
+        if (!file.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) return null;
+            String tripId = in.readUTF();
+            byte[] segment = new byte[in.readInt()];
+            in.readFully(segment);
+            List<LocationPoint> points = TrackSegmentCodec.decode(segment);
+            return points.isEmpty() ? null : new Snapshot(tripId, points);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public void clear() {
+        file.delete();
+    }
+}
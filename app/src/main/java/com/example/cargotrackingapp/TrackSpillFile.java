@@ -0,0 +1,129 @@
+package com.example.cargotrackingapp;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Local file that takes the full-detail points TrackPointStore drops from memory.
+// Each spilled chunk is appended as its bounding box and one length-prefixed
+// TrackSegmentCodec segment, so the map can read back only the chunks in view.
+//
+// The store spills from whatever thread adds to it, on the map the main thread, so
+// write() and clear() only copy the chunk and hand the file work to the executor.
+// Reads are meant to run on that same executor; the lock only keeps a read from
+// seeing a half-appended chunk when they do not.
+public class TrackSpillFile implements TrackPointStore.Spill {
+
+    private final File file;
+    private final Executor executor;
+    private volatile IOException lastError;
+    private volatile long lastTimestamp = Long.MIN_VALUE;
+
+    // Writes to the file on the calling thread
+    public TrackSpillFile(File file) {
+        this(file, Runnable::run);
+    }
+
+    // Writes to the file on the executor, which must run tasks in order
+    public TrackSpillFile(File file, Executor executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    @Override
+    public void write(long[] times, double[] lats, double[] lons, int count) {
+        // The store reuses its scratch arrays for the next chunk
+        long[] chunkTimes = Arrays.copyOf(times, count);
+        double[] chunkLats = Arrays.copyOf(lats, count);
+        double[] chunkLons = Arrays.copyOf(lons, count);
+        executor.execute(() -> append(chunkTimes, chunkLats, chunkLons));
+    }
+
+    private synchronized void append(long[] times, double[] lats, double[] lons) {
+        int count = times.length;
+        double minLat = Double.MAX_VALUE, minLon = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLon = Math.min(minLon, lons[i]);
+            maxLon = Math.max(maxLon, lons[i]);
+        }
+        byte[] segment = TrackSegmentCodec.encode(times, lats, lons, null, null, count);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeDouble(minLat);
+            out.writeDouble(minLon);
+            out.writeDouble(maxLat);
+            out.writeDouble(maxLon);
+            out.writeInt(segment.length);
+            out.write(segment);
+            lastTimestamp = times[count - 1];
+        } catch (IOException e) {
+            // The points are still stored remotely; only the local full-detail copy is lost
+            lastError = e;
+        }
+    }
+
+    // Spilled points in chunks whose bounding box meets the given one, oldest first.
+    // Consecutive matching chunks are joined, so each run is one continuous stretch
+    // of road; other chunks are skipped without decoding.
+    public synchronized List<List<LocationPoint>> loadWithin(double minLat, double minLon,
+                                                             double maxLat, double maxLon) throws IOException {
+        List<List<LocationPoint>> runs = new ArrayList<>();
+        if (!file.exists()) return runs;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            List<LocationPoint> run = null;
+            while (true) {
+                double segMinLat = in.readDouble(), segMinLon = in.readDouble();
+                double segMaxLat = in.readDouble(), segMaxLon = in.readDouble();
+                int length = in.readInt();
+                if (segMaxLat < minLat || segMinLat > maxLat || segMaxLon < minLon || segMinLon > maxLon) {
+                    in.skipBytes(length);
+                    run = null;
+                    continue;
+                }
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                if (run == null) {
+                    run = new ArrayList<>();
+                    runs.add(run);
+                }
+                run.addAll(TrackSegmentCodec.decode(segment));
+            }
+        } catch (EOFException e) {
+            // End of file, or a truncated last chunk from an interrupted write
+        }
+        return runs;
+    }
+
+    // Time of the newest point written to the file, which the store's oldest point
+    // follows once pending writes are done
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    // Error from the most recent failed write, or null
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    // Delete the file once the writes queued before have run
+    public void clear() {
+        executor.execute(this::delete);
+    }
+
+    private synchronized void delete() {
+        file.delete();
+        lastError = null;
+        lastTimestamp = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.cargotrackingapp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histograms for the tracking hot paths: ingest, filtering,
+// map rendering and upload. Recording is lock-free and allocation-free, so it can
+// stay on in release builds. snapshot() returns what was recorded since the
+// previous snapshot, in a compact form for the metrics log and bulk upload.
+public class TrackingMetrics {
+
+    public enum Counter {
+        FIXES_RECEIVED,
+        FIXES_ACCEPTED,
+        // Dropped before processing: the queue was full
+        DROPPED_QUEUE_FULL,
+        // Rejected by the filter, one per FixFilter.Rejection
+        REJECTED_NULL_ISLAND,
+        REJECTED_INACCURATE,
+        REJECTED_OUT_OF_ORDER,
+        REJECTED_IMPLIED_SPEED,
+        POINTS_PERSISTED,
+        POINTS_FAILED,
+        JOURNAL_ERRORS
+    }
+
+    public enum Timer {
+        // From a fix's own timestamp to its acceptance, e.g. delivery delay of batched fixes
+        FIX_AGE,
+        // From a fix arriving from the source to its publication on the UI bus
+        FIX_TO_BROADCAST,
+        // From a point being stored to its batch committing in Firestore
+        FIX_TO_PERSISTED,
+        // One Firestore batch commit
+        FIRESTORE_ROUND_TRIP,
+        // One transaction into the on-device store
+        LOCAL_WRITE,
+        // Applying pending points or a new detail tier to the map
+        MAP_REDRAW,
+        // Filtering a page of history into the map store
+        HISTORY_FILTER,
+        // Clustering the fleet and applying the marker changes of one frame
+        FLEET_REDRAW
+    }
+
+    // Shared by the service, the map and the sync worker
+    public static final TrackingMetrics GLOBAL = new TrackingMetrics();
+
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final LatencyHistogram[] timers = new LatencyHistogram[Timer.values().length];
+
+    // State at the previous snapshot
+    private final long[] lastCounts = new long[Counter.values().length];
+    private final LatencyHistogram.Snapshot[] lastTimers = new LatencyHistogram.Snapshot[Timer.values().length];
+    private long lastSnapshotAt;
+
+    public TrackingMetrics() {
+        for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new LatencyHistogram();
+            lastTimers[i] = timers[i].snapshot();
+        }
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public void add(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    public void rejected(FixFilter.Rejection rejection) {
+        switch (rejection) {
+            case NULL_ISLAND:
+                increment(Counter.REJECTED_NULL_ISLAND);
+                break;
+            case INACCURATE:
+                increment(Counter.REJECTED_INACCURATE);
+                break;
+            case OUT_OF_ORDER:
+                increment(Counter.REJECTED_OUT_OF_ORDER);
+                break;
+            case IMPLIED_SPEED:
+                increment(Counter.REJECTED_IMPLIED_SPEED);
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void record(Timer timer, long nanos) {
+        timers[timer.ordinal()].record(nanos);
+    }
+
+    // Running totals since the process started
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    public LatencyHistogram getHistogram(Timer timer) {
+        return timers[timer.ordinal()];
+    }
+
+    // Everything recorded since the previous call; intervals never overlap
+    public synchronized Snapshot snapshot(long nowMillis) {
+        long[] counts = new long[lastCounts.length];
+        for (int i = 0; i < counts.length; i++) {
+            long total = counters[i].sum();
+            counts[i] = total - lastCounts[i];
+            lastCounts[i] = total;
+        }
+        LatencyHistogram.Snapshot[] intervals = new LatencyHistogram.Snapshot[timers.length];
+        for (int i = 0; i < intervals.length; i++) {
+            LatencyHistogram.Snapshot current = timers[i].snapshot();
+            intervals[i] = current.minus(lastTimers[i]);
+            lastTimers[i] = current;
+        }
+        long start = lastSnapshotAt == 0 ? nowMillis : lastSnapshotAt;
+        lastSnapshotAt = nowMillis;
+        return new Snapshot(start, nowMillis, counts, intervals);
+    }
+
+    // One reporting interval: counter increments and per-timer percentiles
+    public static final class Snapshot {
+        public final long startMillis;
+        public final long endMillis;
+        private final long[] counts;
+        private final LatencyHistogram.Snapshot[] timers;
+
+        Snapshot(long startMillis, long endMillis, long[] counts, LatencyHistogram.Snapshot[] timers) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.counts = counts;
+            this.timers = timers;
+        }
+
+        public long getCount(Counter counter) {
+            return counts[counter.ordinal()];
+        }
+
+        public LatencyHistogram.Snapshot getTimer(Timer timer) {
+            return timers[timer.ordinal()];
+        }
+
+        public boolean isEmpty() {
+            for (long count : counts) if (count != 0) return false;
+            for (LatencyHistogram.Snapshot timer : timers) if (timer.getCount() != 0) return false;
+            return true;
+        }
+
+        // One JSON line; zero counters and empty timers are left out, and each timer
+        // is [count, p50, p90, p99, max] in microseconds
+        public String toJson() {
+            StringBuilder sb = new StringBuilder(256);
+            sb.append("{\"start\":").append(startMillis).append(",\"end\":").append(endMillis);
+            sb.append(",\"counters\":{");
+            boolean first = true;
+            for (Counter counter : Counter.values()) {
+                long count = counts[counter.ordinal()];
+                if (count == 0) continue;
+                if (!first) sb.append(',');
+                sb.append('"').append(counter.name()).append("\":").append(count);
+                first = false;
+            }
+            sb.append("},\"timers\":{");
+            first = true;
+            for (Timer timer : Timer.values()) {
+                LatencyHistogram.Snapshot snapshot = timers[timer.ordinal()];
+                if (snapshot.getCount() == 0) continue;
+                if (!first) sb.append(',');
+                sb.append('"').append(timer.name()).append("\":[").append(snapshot.getCount())
+                        .append(',').append(snapshot.getPercentile(50) / 1000)
+                        .append(',').append(snapshot.getPercentile(90) / 1000)
+                        .append(',').append(snapshot.getPercentile(99) / 1000)
+                        .append(',').append(snapshot.getMax() / 1000).append(']');
+                first = false;
+            }
+            return sb.append("}}").toString();
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+}
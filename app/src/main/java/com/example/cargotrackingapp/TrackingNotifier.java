@@ -0,0 +1,113 @@
+package com.example.cargotrackingapp;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.core.app.NotificationCompat;
+
+// Owns the foreground notification and tracking alerts. One builder and content
+// intent are created up front and reused; location text updates are coalesced to
+// at most one NotificationManager call per interval, posted on the given handler,
+// and the text is only formatted for updates that are actually posted. Builders
+// are shared between threads, so every build happens under the lock.
+public class TrackingNotifier {
+
+    private final NotificationManager manager;
+    private final Handler handler;
+    private final int notificationId;
+    private final NotificationThrottle throttle;
+    private final NotificationCompat.Builder ongoingBuilder;
+    private final NotificationCompat.Builder alertBuilder;
+
+    // Latest position waiting for a deferred post
+    private volatile double pendingLatitude, pendingLongitude;
+    // Set by cancelPending once tracking stops, cleared by build
+    private volatile boolean stopped = false;
+
+    private final Runnable deferredPost = new Runnable() {
+        @Override
+        public void run() {
+            if (stopped) return;
+            throttle.onDeferredPost(SystemClock.elapsedRealtime());
+            postLocation();
+        }
+    };
+
+    public TrackingNotifier(Context context, Handler handler, String channelId, String alertChannelId,
+                            int notificationId, long minIntervalMillis) {
+        this.manager = context.getSystemService(NotificationManager.class);
+        this.handler = handler;
+        this.notificationId = notificationId;
+        this.throttle = new NotificationThrottle(minIntervalMillis);
+
+        Intent intent = new Intent(context, MainActivity.class);
+        PendingIntent contentIntent = PendingIntent.getActivity(context, 0, intent, PendingIntent.FLAG_IMMUTABLE);
+
+        ongoingBuilder = new NotificationCompat.Builder(context, channelId)
+                .setContentTitle("Cargo Tracking")
+                .setSmallIcon(R.drawable.ic_location)
+                .setContentIntent(contentIntent)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setOnlyAlertOnce(true) // Text updates must not buzz
+                .setOngoing(true);
+
+        alertBuilder = new NotificationCompat.Builder(context, alertChannelId)
+                .setSmallIcon(R.drawable.ic_location)
+                .setContentIntent(contentIntent)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true);
+    }
+
+    // Notification to pass to startForeground
+    public synchronized Notification build(String text) {
+        throttle.reset();
+        stopped = false;
+        return ongoingBuilder.setContentText(text).build();
+    }
+
+    // Show the latest position, at most once per interval; ignored after cancelPending
+    public void updateLocation(double latitude, double longitude) {
+        if (stopped) return;
+        pendingLatitude = latitude;
+        pendingLongitude = longitude;
+        long delay = throttle.offer(SystemClock.elapsedRealtime());
+        if (delay == 0) {
+            postLocation();
+        } else if (delay > 0) {
+            handler.postDelayed(deferredPost, delay);
+        }
+    }
+
+    // Raise a one-off alert for a tracking event; alerts of the same kind share
+    // an id so a repeated event replaces the previous one
+    public synchronized void notifyEvent(int eventId, String title, String text) {
+        manager.notify(eventId, alertBuilder
+                .setContentTitle(title)
+                .setContentText(text)
+                .setWhen(System.currentTimeMillis())
+                .build());
+    }
+
+    // Drop any deferred update and ignore later ones until the next build, e.g.
+    // when tracking stops and fixes are still queued
+    public void cancelPending() {
+        stopped = true;
+        handler.removeCallbacks(deferredPost);
+        throttle.reset();
+    }
+
+    public NotificationThrottle getThrottle() {
+        return throttle;
+    }
+
+    private synchronized void postLocation() {
+        String text = String.format("Location: %.6f, %.6f", pendingLatitude, pendingLongitude);
+        manager.notify(notificationId, ongoingBuilder.setContentText(text).build());
+    }
+}
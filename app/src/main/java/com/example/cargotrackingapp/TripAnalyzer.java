@@ -0,0 +1,289 @@
+package com.example.cargotrackingapp;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Streaming stop/leg segmentation with running trip statistics. A stop is a period
+// of at least minStopMillis during which every fix stays within stopRadiusMeters of
+// the fix that started it; the track between stops is a leg. Only the current
+// candidate stop is kept, so memory is O(1) however long the trip is.
+//
+// Time and distance between fixes are held as "pending" while a candidate stop is
+// still shorter than minStopMillis, then booked as stopped or moving once known.
+public class TripAnalyzer {
+
+    public static final class Stop {
+        public final long startTime;
+        public final long endTime;
+        public final double latitude;
+        public final double longitude;
+
+        Stop(long startTime, long endTime, double latitude, double longitude) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public long getDurationMillis() {
+            return endTime - startTime;
+        }
+    }
+
+    public static final class Leg {
+        public final long startTime;
+        public final long endTime;
+        public final double distanceMeters;
+
+        Leg(long startTime, long endTime, double distanceMeters) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.distanceMeters = distanceMeters;
+        }
+    }
+
+    public interface Listener {
+        void onStop(Stop stop);
+
+        void onLeg(Leg leg);
+    }
+
+    private static final Listener NO_LISTENER = new Listener() {
+        @Override
+        public void onStop(Stop stop) {
+        }
+
+        @Override
+        public void onLeg(Leg leg) {
+        }
+    };
+
+    private final double stopRadiusMeters;
+    private final long minStopMillis;
+    private final Listener listener;
+
+    private int fixCount = 0;
+    private long firstTime, lastTime;
+    private double lastLat, lastLon;
+
+    // Candidate stop: anchored at the first fix that every later fix stayed near
+    private long anchorTime;
+    private double anchorLat, anchorLon;
+    private boolean stopped = false;
+    private long pendingMillis = 0;
+    private double pendingMeters = 0;
+
+    // Current leg
+    private long legStart;
+    private double legMeters = 0;
+
+    // Trip totals
+    private long movingMillis = 0, stoppedMillis = 0;
+    private double movingMeters = 0, stoppedMeters = 0;
+    private double maxSpeed = 0;
+    private int stopCount = 0, legCount = 0;
+    private long longestStopMillis = 0;
+
+    public TripAnalyzer(double stopRadiusMeters, long minStopMillis, Listener listener) {
+        this.stopRadiusMeters = stopRadiusMeters;
+        this.minStopMillis = minStopMillis;
+        this.listener = listener;
+    }
+
+    public TripAnalyzer(double stopRadiusMeters, long minStopMillis) {
+        this(stopRadiusMeters, minStopMillis, NO_LISTENER);
+    }
+
+    // Stops of 3 minutes or more within 50 m, the scale of a delivery or a red light queue
+    public static TripAnalyzer forTrucks(Listener listener) {
+        return new TripAnalyzer(50, 3 * 60 * 1000L, listener);
+    }
+
+    public static TripAnalyzer forTrucks() {
+        return forTrucks(NO_LISTENER);
+    }
+
+    // Add the next fix in time order; speed may be NaN when not reported
+    public synchronized void add(long timestamp, double latitude, double longitude, float speed) {
+        if (fixCount++ == 0) {
+            firstTime = lastTime = anchorTime = legStart = timestamp;
+            lastLat = anchorLat = latitude;
+            lastLon = anchorLon = longitude;
+            return;
+        }
+        if (timestamp < lastTime) return; // Out of order; the filter normally drops these
+
+        long previousTime = lastTime;
+        long dt = timestamp - previousTime;
+        double step = Geodesy.equirectangular(lastLat, lastLon, latitude, longitude);
+        double stepSpeed = !Float.isNaN(speed) ? speed : dt > 0 ? step * 1000 / dt : 0;
+        lastTime = timestamp;
+        lastLat = latitude;
+        lastLon = longitude;
+
+        if (Geodesy.equirectangular(anchorLat, anchorLon, latitude, longitude) <= stopRadiusMeters) {
+            // Still near the anchor: part of a (candidate) stop
+            if (stopped) {
+                stoppedMillis += dt;
+                stoppedMeters += step;
+                return;
+            }
+            pendingMillis += dt;
+            pendingMeters += step;
+            if (timestamp - anchorTime >= minStopMillis) {
+                // Confirmed: the leg ends where the stop began
+                stopped = true;
+                stoppedMillis += pendingMillis;
+                stoppedMeters += pendingMeters;
+                pendingMillis = 0;
+                pendingMeters = 0;
+                closeLeg(anchorTime);
+            }
+            return;
+        }
+
+        // Left the radius
+        if (stopped) {
+            // The stop ended at the last fix inside it
+            closeStop(previousTime);
+            legStart = previousTime;
+        } else {
+            // The candidate was too short: it was all movement
+            movingMillis += pendingMillis;
+            movingMeters += pendingMeters;
+            legMeters += pendingMeters;
+        }
+        pendingMillis = 0;
+        pendingMeters = 0;
+        movingMillis += dt;
+        movingMeters += step;
+        legMeters += step;
+        maxSpeed = Math.max(maxSpeed, stepSpeed);
+        anchorTime = timestamp;
+        anchorLat = latitude;
+        anchorLon = longitude;
+    }
+
+    // Close the open stop or leg at the end of the trip
+    public synchronized void finish() {
+        if (fixCount == 0) return;
+        if (stopped) {
+            closeStop(lastTime);
+        } else {
+            movingMillis += pendingMillis;
+            movingMeters += pendingMeters;
+            legMeters += pendingMeters;
+            pendingMillis = 0;
+            pendingMeters = 0;
+            closeLeg(lastTime);
+        }
+        anchorTime = legStart = lastTime;
+        anchorLat = lastLat;
+        anchorLon = lastLon;
+    }
+
+    public synchronized void reset() {
+        fixCount = 0;
+        stopped = false;
+        pendingMillis = movingMillis = stoppedMillis = longestStopMillis = 0;
+        pendingMeters = movingMeters = stoppedMeters = legMeters = maxSpeed = 0;
+        stopCount = legCount = 0;
+    }
+
+    // Analyse one complete trip
+    public static TripAnalyzer analyze(List<LocationPoint> points) {
+        TripAnalyzer analyzer = forTrucks();
+        for (LocationPoint point : points) {
+            analyzer.add(point.timestamp, point.latitude, point.longitude, point.speed);
+        }
+        analyzer.finish();
+        return analyzer;
+    }
+
+    // Reprocess many trips in bulk; trips are independent, so they are analysed in parallel
+    public static Map<String, TripAnalyzer> analyzeAll(Map<String, List<LocationPoint>> trips) {
+        return trips.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> analyze(entry.getValue())));
+    }
+
+    public synchronized long getDurationMillis() {
+        return fixCount == 0 ? 0 : lastTime - firstTime;
+    }
+
+    public synchronized long getMovingMillis() {
+        return movingMillis;
+    }
+
+    // Time in confirmed stops, i.e. dwell time
+    public synchronized long getStoppedMillis() {
+        return stoppedMillis;
+    }
+
+    public synchronized double getDistanceMeters() {
+        return movingMeters + stoppedMeters + pendingMeters;
+    }
+
+    public synchronized double getMovingDistanceMeters() {
+        return movingMeters;
+    }
+
+    // Moving distance over moving time, in m/s
+    public synchronized double getAverageMovingSpeed() {
+        return movingMillis == 0 ? 0 : movingMeters * 1000 / movingMillis;
+    }
+
+    public synchronized double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public synchronized int getStopCount() {
+        return stopCount;
+    }
+
+    public synchronized int getLegCount() {
+        return legCount;
+    }
+
+    public synchronized long getLongestStopMillis() {
+        return longestStopMillis;
+    }
+
+    // Snapshot in the shape stored on the trip document
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("movingMillis", movingMillis);
+        data.put("stoppedMillis", stoppedMillis);
+        data.put("movingDistanceMeters", movingMeters);
+        data.put("averageMovingSpeed", getAverageMovingSpeed());
+        data.put("maxSpeed", maxSpeed);
+        data.put("stopCount", stopCount);
+        data.put("legCount", legCount);
+        data.put("longestStopMillis", longestStopMillis);
+        return data;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "moving=" + movingMillis / 1000 + "s stopped=" + stoppedMillis / 1000 + "s"
+                + " distance=" + Math.round(getDistanceMeters()) + "m stops=" + stopCount + " legs=" + legCount
+                + " avg=" + String.format("%.1f", getAverageMovingSpeed()) + "m/s max="
+                + String.format("%.1f", maxSpeed) + "m/s";
+    }
+
+    private void closeStop(long endTime) {
+        stopped = false;
+        stopCount++;
+        longestStopMillis = Math.max(longestStopMillis, endTime - anchorTime);
+        listener.onStop(new Stop(anchorTime, endTime, anchorLat, anchorLon));
+    }
+
+    private void closeLeg(long endTime) {
+        if (endTime > legStart || legMeters > 0) {
+            legCount++;
+            listener.onLeg(new Leg(legStart, endTime, legMeters));
+        }
+        legMeters = 0;
+    }
+}
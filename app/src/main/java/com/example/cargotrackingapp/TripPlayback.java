@@ -0,0 +1,125 @@
+package com.example.cargotrackingapp;
+
+import java.util.Arrays;
+
+// A whole trip held for playback in growable primitive arrays sorted by time, so
+// hundreds of thousands of points cost 24 bytes each and no objects. Seeking is
+// a binary search over the timestamps; positions between fixes are interpolated
+// linearly. Points can be appended while the trip is still loading, and
+// playback may run over what has arrived so far. Confined to one thread.
+public class TripPlayback {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] lats = new double[INITIAL_CAPACITY];
+    private double[] lons = new double[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Append the next point; points not after the last one are ignored, as the
+    // arrays must stay strictly increasing in time for the search
+    public boolean add(long timestamp, double latitude, double longitude) {
+        if (size > 0 && timestamp <= times[size - 1]) return false;
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lons = Arrays.copyOf(lons, capacity);
+        }
+        times[size] = timestamp;
+        lats[size] = latitude;
+        lons[size] = longitude;
+        size++;
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getStartTime() {
+        return size > 0 ? times[0] : 0;
+    }
+
+    public long getEndTime() {
+        return size > 0 ? times[size - 1] : 0;
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public double getLatitude(int index) {
+        return lats[index];
+    }
+
+    public double getLongitude(int index) {
+        return lons[index];
+    }
+
+    // Index of the last point at or before timestamp, or -1 when it is before the trip
+    public int indexAt(long timestamp) {
+        int i = Arrays.binarySearch(times, 0, size, timestamp);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    // Writes the position at timestamp into out[0] (latitude) and out[1]
+    // (longitude), interpolated between the fixes around it and clamped to the
+    // ends of the trip; returns the index of the fix at or before it
+    public int positionAt(long timestamp, double[] out) {
+        if (size == 0) throw new IllegalStateException("No points");
+        int i = indexAt(timestamp);
+        if (i < 0) {
+            out[0] = lats[0];
+            out[1] = lons[0];
+            return 0;
+        }
+        if (i == size - 1) {
+            out[0] = lats[i];
+            out[1] = lons[i];
+            return i;
+        }
+        double f = (double) (timestamp - times[i]) / (times[i + 1] - times[i]);
+        out[0] = lats[i] + (lats[i + 1] - lats[i]) * f;
+        out[1] = lons[i] + (lons[i + 1] - lons[i]) * f;
+        return i;
+    }
+
+    // Copies the fixes in (fromTime, toTime] into outLats/outLons, every n-th one
+    // so at most maxPoints are copied, always ending with the newest; returns how
+    // many were copied. The cost depends on maxPoints, not on the window's length.
+    public int window(long fromTime, long toTime, int maxPoints, double[] outLats, double[] outLons) {
+        int first = indexAt(fromTime) + 1;
+        int last = indexAt(toTime);
+        int count = last - first + 1;
+        if (count <= 0 || maxPoints <= 0) return 0;
+        int stride = (count + maxPoints - 1) / maxPoints;
+        int n = 0;
+        // Stride back from the newest fix so the trail always reaches it
+        int offset = (count - 1) % stride;
+        for (int i = first + offset; i <= last; i += stride) {
+            outLats[n] = lats[i];
+            outLons[n] = lons[i];
+            n++;
+        }
+        return n;
+    }
+
+    public long getFootprintBytes() {
+        return (long) times.length * (8 + 8 + 8);
+    }
+
+    @Override
+    public String toString() {
+        return "TripPlayback{points=" + size + ", " + (getEndTime() - getStartTime()) / 1000 + " s, "
+                + getFootprintBytes() / 1024 + " KB}";
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.cargotrackingapp;
+
+import android.view.Choreographer;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Plays a TripPlayback on the map: a marker at the interpolated position and a
+// trail of the last TRAIL_MILLIS behind it. Driven by Choreographer frames while
+// playing, with trip time taken from PlaybackClock. Only the trail window is
+// drawn, decimated to TRAIL_MAX_POINTS, and the polyline is only rebuilt when the
+// window has moved past a fix, so the cost of a frame does not grow with the
+// trip. Must be used on the main thread.
+public class TripPlayer implements Choreographer.FrameCallback {
+
+    private static final long TRAIL_MILLIS = 15 * 60 * 1000;
+    private static final int TRAIL_MAX_POINTS = 1000;
+
+    public interface Listener {
+        // Called every frame while playing, and after a seek
+        void onProgress(long time, boolean playing);
+    }
+
+    private final GoogleMap map;
+    private final TripPlayback playback;
+    private final PlaybackClock clock = new PlaybackClock();
+    private final Listener listener;
+    private final int color;
+    private final float width;
+
+    private Marker marker;
+    private Polyline trail;
+    private int trailFirst = -1, trailLast = -1;
+    private final double[] position = new double[2];
+    private final double[] trailLats = new double[TRAIL_MAX_POINTS];
+    private final double[] trailLons = new double[TRAIL_MAX_POINTS];
+    private boolean frameScheduled = false;
+
+    public TripPlayer(GoogleMap map, TripPlayback playback, int color, float width, Listener listener) {
+        this.map = map;
+        this.playback = playback;
+        this.color = color;
+        this.width = width;
+        this.listener = listener;
+        long now = System.nanoTime();
+        clock.setRange(playback.getStartTime(), playback.getEndTime(), now);
+        clock.seek(playback.getStartTime(), now);
+    }
+
+    // More of the trip has loaded
+    public void onPointsAdded() {
+        clock.setRange(playback.getStartTime(), playback.getEndTime(), System.nanoTime());
+    }
+
+    public void play() {
+        if (playback.isEmpty()) return;
+        clock.play(System.nanoTime());
+        scheduleFrame();
+    }
+
+    public void pause() {
+        clock.pause(System.nanoTime());
+        scheduleFrame();
+    }
+
+    public void seek(long time) {
+        clock.seek(time, System.nanoTime());
+        scheduleFrame();
+    }
+
+    public void setSpeed(double speed) {
+        clock.setSpeed(speed, System.nanoTime());
+    }
+
+    public double getSpeed() {
+        return clock.getSpeed();
+    }
+
+    public boolean isPlaying() {
+        return clock.isPlaying();
+    }
+
+    // Stop and remove the marker and trail
+    public void release() {
+        clock.pause(System.nanoTime());
+        Choreographer.getInstance().removeFrameCallback(this);
+        frameScheduled = false;
+        if (marker != null) marker.remove();
+        if (trail != null) trail.remove();
+        marker = null;
+        trail = null;
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) return;
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (playback.isEmpty()) return;
+        long time = clock.getTime(frameTimeNanos);
+        playback.positionAt(time, position);
+        LatLng here = new LatLng(position[0], position[1]);
+        if (marker == null) {
+            marker = map.addMarker(new MarkerOptions().position(here).anchor(0.5f, 0.5f)
+                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_ORANGE)));
+        } else {
+            marker.setPosition(here);
+        }
+        updateTrail(time);
+
+        boolean playing = clock.isPlaying();
+        listener.onProgress(time, playing);
+        if (playing) scheduleFrame();
+    }
+
+    private void updateTrail(long time) {
+        long from = time - TRAIL_MILLIS;
+        int first = playback.indexAt(from) + 1;
+        int last = playback.indexAt(time);
+        if (first == trailFirst && last == trailLast) return;
+        trailFirst = first;
+        trailLast = last;
+
+        int n = playback.window(from, time, TRAIL_MAX_POINTS, trailLats, trailLons);
+        List<LatLng> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) points.add(new LatLng(trailLats[i], trailLons[i]));
+        if (trail == null) {
+            trail = map.addPolyline(new PolylineOptions().color(color).width(width).zIndex(1));
+        }
+        trail.setPoints(points);
+    }
+}
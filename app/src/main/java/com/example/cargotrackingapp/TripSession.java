@@ -0,0 +1,121 @@
+package com.example.cargotrackingapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// One tracking run of one vehicle, from ACTION_START_TRACKING to ACTION_STOP_TRACKING.
+// Data is partitioned per vehicle and trip:
+//   vehicles/{vehicleId}/trips/{tripId}               start/stop metadata and summary
+//   vehicles/{vehicleId}/trips/{tripId}/segments      encoded point segments
+//   vehicles/{vehicleId}/trips/{tripId}/events        geofence transitions and detected stops
+//   vehicles/{vehicleId}/segments                     points not attributed to a trip
+//   vehicles/{vehicleId}/metrics                      bulk uploads of the metrics log
+//   positions/{vehicleId}                             latest stored position, for the fleet view
+public final class TripSession {
+
+    public static final String VEHICLES = "vehicles";
+    public static final String TRIPS = "trips";
+    public static final String SEGMENTS = "segments";
+    public static final String METRICS = "metrics";
+    public static final String EVENTS = "events";
+    public static final String POSITIONS = "positions";
+
+    private static final String PREFS_NAME = "trip_sessions";
+    private static final String KEY_LAST_TRIP_ID = "last_trip_id";
+
+    public final String vehicleId;
+    public final String tripId;
+    public final TripSummary summary = new TripSummary();
+    public final TripAnalyzer analyzer;
+
+    public TripSession(String vehicleId, String tripId, TripAnalyzer.Listener stopListener) {
+        this.vehicleId = vehicleId;
+        this.tripId = tripId;
+        this.analyzer = TripAnalyzer.forTrucks(stopListener);
+    }
+
+    // Start a new trip with a fresh document id
+    public static TripSession create(FirebaseFirestore db, String vehicleId, TripAnalyzer.Listener stopListener) {
+        return new TripSession(vehicleId, trips(db, vehicleId).document().getId(), stopListener);
+    }
+
+    public static DocumentReference vehicle(FirebaseFirestore db, String vehicleId) {
+        return db.collection(VEHICLES).document(vehicleId);
+    }
+
+    public static CollectionReference trips(FirebaseFirestore db, String vehicleId) {
+        return vehicle(db, vehicleId).collection(TRIPS);
+    }
+
+    public static DocumentReference trip(FirebaseFirestore db, String vehicleId, String tripId) {
+        return trips(db, vehicleId).document(tripId);
+    }
+
+    // Segment partition of a trip, or of the vehicle when tripId is null
+    public static CollectionReference segments(FirebaseFirestore db, String vehicleId, @Nullable String tripId) {
+        return tripId != null
+                ? trip(db, vehicleId, tripId).collection(SEGMENTS)
+                : vehicle(db, vehicleId).collection(SEGMENTS);
+    }
+
+    public static CollectionReference metrics(FirebaseFirestore db, String vehicleId) {
+        return vehicle(db, vehicleId).collection(METRICS);
+    }
+
+    // Fleet-wide, one document per vehicle, so one listener can follow every truck
+    public static CollectionReference positions(FirebaseFirestore db) {
+        return db.collection(POSITIONS);
+    }
+
+    public static DocumentReference position(FirebaseFirestore db, String vehicleId) {
+        return positions(db).document(vehicleId);
+    }
+
+    public CollectionReference events(FirebaseFirestore db) {
+        return document(db).collection(EVENTS);
+    }
+
+    public DocumentReference document(FirebaseFirestore db) {
+        return trip(db, vehicleId, tripId);
+    }
+
+    public Map<String, Object> startFields(long startTime) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("vehicleId", vehicleId);
+        data.put("startTime", startTime);
+        data.put("status", "active");
+        return data;
+    }
+
+    public Map<String, Object> endFields(long endTime) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("endTime", endTime);
+        data.put("status", "completed");
+        data.put("summary", summary.toMap());
+        data.put("stats", analyzer.toMap());
+        return data;
+    }
+
+    // The trip most recently started on this device, or null
+    @Nullable
+    public static String getLastTripId(Context context) {
+        return prefs(context).getString(KEY_LAST_TRIP_ID, null);
+    }
+
+    public static void setLastTripId(Context context, String tripId) {
+        prefs(context).edit().putString(KEY_LAST_TRIP_ID, tripId).apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
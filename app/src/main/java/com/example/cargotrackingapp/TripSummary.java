@@ -0,0 +1,82 @@
+package com.example.cargotrackingapp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Running statistics for one trip, updated per accepted fix in O(1) so the trip
+// document can carry an up-to-date summary without re-reading its points
+public class TripSummary {
+
+    private int pointCount = 0;
+    private long startTime, endTime;
+    private double minLat, minLon, maxLat, maxLon;
+    private double distanceMeters = 0;
+    private double lastLat, lastLon;
+
+    public synchronized void add(long timestamp, double latitude, double longitude) {
+        if (pointCount == 0) {
+            startTime = endTime = timestamp;
+            minLat = maxLat = latitude;
+            minLon = maxLon = longitude;
+        } else {
+            startTime = Math.min(startTime, timestamp);
+            endTime = Math.max(endTime, timestamp);
+            minLat = Math.min(minLat, latitude);
+            maxLat = Math.max(maxLat, latitude);
+            minLon = Math.min(minLon, longitude);
+            maxLon = Math.max(maxLon, longitude);
+            distanceMeters += Geodesy.equirectangular(lastLat, lastLon, latitude, longitude);
+        }
+        lastLat = latitude;
+        lastLon = longitude;
+        pointCount++;
+    }
+
+    public synchronized int getPointCount() {
+        return pointCount;
+    }
+
+    public synchronized long getStartTime() {
+        return startTime;
+    }
+
+    public synchronized long getEndTime() {
+        return endTime;
+    }
+
+    public synchronized long getDurationMillis() {
+        return endTime - startTime;
+    }
+
+    public synchronized double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    // Bounds as {minLat, minLon, maxLat, maxLon}, or null before the first point
+    public synchronized double[] getBounds() {
+        return pointCount == 0 ? null : new double[]{minLat, minLon, maxLat, maxLon};
+    }
+
+    // Snapshot in the shape stored on the trip document
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("pointCount", pointCount);
+        data.put("distanceMeters", distanceMeters);
+        if (pointCount > 0) {
+            data.put("firstFixTime", startTime);
+            data.put("lastFixTime", endTime);
+            data.put("durationMillis", endTime - startTime);
+            data.put("minLat", minLat);
+            data.put("minLon", minLon);
+            data.put("maxLat", maxLat);
+            data.put("maxLon", maxLon);
+        }
+        return data;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "points=" + pointCount + " distance=" + Math.round(distanceMeters) + "m"
+                + " duration=" + (pointCount > 0 ? (endTime - startTime) / 1000 : 0) + "s";
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.cargotrackingapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.UUID;
+
+// Stable identifier for the truck this device is mounted in
+public final class VehicleIdentity {
+
+    private static final String PREFS_NAME = "vehicle_identity";
+    private static final String KEY_VEHICLE_ID = "vehicle_id";
+
+    private static String cachedId;
+
+    private VehicleIdentity() {
+    }
+
+    // Return the stored id, generating one on first use
+    public static synchronized String get(Context context) {
+        if (cachedId != null) return cachedId;
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        cachedId = prefs.getString(KEY_VEHICLE_ID, null);
+        if (cachedId == null) {
+            cachedId = UUID.randomUUID().toString();
+            prefs.edit().putString(KEY_VEHICLE_ID, cachedId).apply();
+        }
+        return cachedId;
+    }
+}
@@ -1,37 +1,73 @@
 package com.example.cargotrackingapp;
 
 import android.content.Context;
+import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
 import androidx.work.Constraints;
+import androidx.work.Data;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
 import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class WorkManagerHelper {
 
     private static final String TAG = "WorkManagerHelper";
     private static final String WORK_NAME = "location_sync_work";
+    private static final String CATCH_UP_WORK_NAME = "location_catch_up_work";
+    private static final long BACKOFF_DELAY_SECONDS = 30;
+
+    // Progress and output keys
+    public static final String KEY_UPLOADED = "uploaded";
+    public static final String KEY_TOTAL = "total";
+
+    // Which conditions the sync worker waits for
+    public enum SyncProfile {
+        // Large drains only on Wi-Fi or other unmetered networks
+        BULK_UNMETERED,
+        // Any connection, as long as the battery is not low
+        CATCH_UP;
+
+        Constraints toConstraints() {
+            Constraints.Builder builder = new Constraints.Builder();
+            if (this == BULK_UNMETERED) {
+                builder.setRequiredNetworkType(NetworkType.UNMETERED)
+                        .setRequiresStorageNotLow(true);
+            } else {
+                builder.setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresBatteryNotLow(true);
+            }
+            return builder.build();
+        }
+    }
 
     public static void schedulePeriodicWork(Context context) {
-        // Define constraints - only run when device is idle and has network
-        Constraints constraints = new Constraints.Builder()
-                .setRequiresDeviceIdle(true)
-                .setRequiresCharging(true)
-                .setRequiredNetworkType(NetworkType.CONNECTED)
-                .build();
+        schedulePeriodicWork(context, SyncProfile.CATCH_UP);
+    }
 
+    public static void schedulePeriodicWork(Context context, SyncProfile profile) {
         // Create periodic work request - run every 15 minutes
         PeriodicWorkRequest workRequest = new PeriodicWorkRequest.Builder(
                 LocationSyncWorker.class,
                 15, TimeUnit.MINUTES)
-                .setConstraints(constraints)
+                .setConstraints(profile.toConstraints())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
                 .build();
 
         // Enqueue the work
@@ -41,7 +77,23 @@ public class WorkManagerHelper {
                 workRequest
         );
 
-        Log.d(TAG, "Periodic work scheduled");
+        Log.d(TAG, "Periodic work scheduled with profile " + profile);
+    }
+
+    // Drain the backlog once as soon as the profile's constraints are met
+    public static void requestSync(Context context, SyncProfile profile) {
+        OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(LocationSyncWorker.class)
+                .setConstraints(profile.toConstraints())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                CATCH_UP_WORK_NAME,
+                ExistingWorkPolicy.KEEP,
+                workRequest
+        );
+
+        Log.d(TAG, "One-time sync requested with profile " + profile);
     }
 
     public static void cancelWork() {
@@ -49,8 +101,19 @@ public class WorkManagerHelper {
         Log.d(TAG, "Periodic work cancelled");
     }
 
+    // Uploads unacknowledged journal records as segments of the trips they were
+    // recorded in, where the history loader reads them. While the service runs its
+    // uploader owns those records, so they are left alone; a service that takes them
+    // over while a segment is being uploaded replays the same records under the same
+    // segment ids, and the journal is then not compacted under it. The journal's
+    // acknowledged cursor is the checkpoint, so an interrupted run resumes where the
+    // last committed segment ended.
     public static class LocationSyncWorker extends Worker {
 
+        private static final int SEGMENT_POINTS = 5000;
+        private static final long UPLOAD_TIMEOUT_SECONDS = 60;
+        private static final int MAX_ATTEMPTS = 8;
+
         public LocationSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
             super(context, workerParams);
         }
@@ -58,11 +121,73 @@ public class WorkManagerHelper {
         @NonNull
         @Override
         public Result doWork() {
-            Log.d(TAG, "Performing background sync of location data");
+            LocationJournal journal = LocationService.getJournal(getApplicationContext());
+            if (journal == null) return Result.failure();
+
+            boolean drain = !LocationService.isJournalOwned();
+            long total = drain ? journal.getPendingCount() : 0;
+            Log.d(TAG, "Performing background sync of " + total + " location points");
+
+            FirebaseFirestore db = LazyFirebase.firestore(getApplicationContext());
+            String vehicleId = VehicleIdentity.get(getApplicationContext());
+            List<LocationPoint> points = new ArrayList<>();
+            long uploaded = 0;
+            try {
+                while (drain && !isStopped() && !LocationService.isJournalOwned()) {
+                    long from = journal.getAckedSequence();
+                    points.clear();
+                    journal.read(from, SEGMENT_POINTS,
+                            (sequence, timestamp, latitude, longitude, accuracy, speed) -> points.add(
+                                    new LocationPoint(latitude, longitude, timestamp, accuracy, speed, sequence,
+                                            journal.getTripId(sequence))));
+                    if (points.isEmpty()) break;
+
+                    // One trip per segment; the rest of the read is picked up next time round
+                    List<LocationPoint> segment = LocationPoint.splitByTrip(points).get(0);
+                    String tripId = segment.get(0).tripId;
+                    Tasks.await(FirestoreLocationSink.segment(db, vehicleId, segment)
+                                    .set(FirestoreLocationSink.toDocument(segment, vehicleId, tripId)),
+                            UPLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                    // Checkpoint: only committed segments move the cursor
+                    journal.acknowledge(from, segment.get(segment.size() - 1).sequence + 1);
+                    uploaded += segment.size();
+                    setProgressAsync(progress(uploaded, total));
+                }
+                if (drain && !LocationService.compactJournalUnlessOwned()) {
+                    Log.d(TAG, "Journal taken over by the service, not compacted");
+                }
+                uploadMetrics(db, vehicleId);
+            } catch (Exception e) {
+                Log.e(TAG, "Sync failed after " + uploaded + " points", e);
+                return getRunAttemptCount() < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+            }
+
+            Log.d(TAG, "Background sync uploaded " + uploaded + " location points");
+            return Result.success(progress(uploaded, total));
+        }
 
+        // Send the metrics snapshots logged since the last run as one document
+        private void uploadMetrics(FirebaseFirestore db, String vehicleId) throws Exception {
+            MetricsLog log = LocationService.getMetricsLog(getApplicationContext());
+            List<String> snapshots = log.takePending();
+            if (snapshots.isEmpty()) return;
+            Map<String, Object> data = new HashMap<>();
+            data.put("vehicleId", vehicleId);
+            data.put("uploadedAt", System.currentTimeMillis());
+            data.put("count", snapshots.size());
+            data.put("snapshots", TextUtils.join("\n", snapshots));
+            Tasks.await(TripSession.metrics(db, vehicleId).document().set(data),
+                    UPLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.commitPending();
+            Log.d(TAG, "Uploaded " + snapshots.size() + " metrics snapshots");
+        }
 
-            return Result.success();
+        private static Data progress(long uploaded, long total) {
+            return new Data.Builder()
+                    .putLong(KEY_UPLOADED, uploaded)
+                    .putLong(KEY_TOTAL, total)
+                    .build();
         }
     }
 }
-
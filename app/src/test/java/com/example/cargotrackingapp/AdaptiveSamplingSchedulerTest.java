@@ -0,0 +1,107 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveSamplingSchedulerTest {
+
+    private AdaptiveSamplingScheduler scheduler;
+    private long time;
+    private double lat, lon;
+
+    @Before
+    public void setUp() {
+        scheduler = new AdaptiveSamplingScheduler();
+        time = 0;
+        lat = 30.0444;
+        lon = 31.2357;
+    }
+
+    // Drive north or east for the given time at the given speed, one fix per interval
+    private void drive(boolean north, double speed, long durationMs, long intervalMs) {
+        for (long elapsed = 0; elapsed < durationMs; elapsed += intervalMs) {
+            time += intervalMs;
+            double metres = speed * intervalMs / 1000.0;
+            if (north) {
+                lat += metres / Geodesy.METRES_PER_DEGREE;
+            } else {
+                lon += metres / (Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+            }
+            scheduler.onFix(time, lat, lon, speed);
+        }
+    }
+
+    @Test
+    public void startsWithTheOldFixedSchedule() {
+        assertEquals(AdaptiveSamplingScheduler.Profile.SLOW, scheduler.getProfile());
+        assertEquals(10000, scheduler.getProfile().intervalMillis);
+    }
+
+    @Test
+    public void parksAfterTwoMinutesStationary() {
+        drive(true, 0, 110_000, 10_000);
+        assertEquals(AdaptiveSamplingScheduler.Profile.SLOW, scheduler.getProfile());
+        drive(true, 0, 20_000, 10_000);
+        assertEquals(AdaptiveSamplingScheduler.Profile.PARKED, scheduler.getProfile());
+    }
+
+    @Test
+    public void parksWhenTheDistanceFilterSilencesAStoppedTruck() {
+        // The truck pulls up and the 10 m filter delivers nothing more
+        drive(true, 10, 60_000, 10_000);
+        assertFalse(scheduler.onTick(time + 110_000));
+        assertEquals(AdaptiveSamplingScheduler.Profile.SLOW, scheduler.getProfile());
+        assertTrue(scheduler.onTick(time + 125_000));
+        assertEquals(AdaptiveSamplingScheduler.Profile.PARKED, scheduler.getProfile());
+        assertFalse(scheduler.onTick(time + 140_000));
+
+        // A crawl does not unpark it; driving off does
+        time += 200_000;
+        assertFalse(scheduler.onFix(time, lat, lon, 1.5));
+        time += 10_000;
+        assertTrue(scheduler.onFix(time, lat, lon, 8));
+        assertNotEquals(AdaptiveSamplingScheduler.Profile.PARKED, scheduler.getProfile());
+    }
+
+    @Test
+    public void leavesParkedOnlyWhenClearlyMoving() {
+        drive(true, 0, 180_000, 10_000);
+        drive(true, 1.5, 30_000, 30_000);
+        assertEquals(AdaptiveSamplingScheduler.Profile.PARKED, scheduler.getProfile());
+        time += 10_000;
+        assertTrue(scheduler.onFix(time, lat, lon, 8));
+        assertNotEquals(AdaptiveSamplingScheduler.Profile.PARKED, scheduler.getProfile());
+    }
+
+    @Test
+    public void cruisesOnTheMotorway() {
+        drive(true, 25, 60_000, 15_000);
+        assertEquals(AdaptiveSamplingScheduler.Profile.CRUISING, scheduler.getProfile());
+    }
+
+    @Test
+    public void turnTriggersManoeuvringThenFallsBack() {
+        drive(true, 10, 60_000, 10_000);
+        assertEquals(AdaptiveSamplingScheduler.Profile.SLOW, scheduler.getProfile());
+
+        drive(false, 10, 5_000, 5_000); // 90 degree turn
+        assertEquals(AdaptiveSamplingScheduler.Profile.MANOEUVRING, scheduler.getProfile());
+
+        drive(false, 10, 40_000, 5_000);
+        assertEquals(AdaptiveSamplingScheduler.Profile.SLOW, scheduler.getProfile());
+    }
+
+    @Test
+    public void reportsFixesSavedAgainstFixedSchedule() {
+        scheduler.onFix(time, lat, lon, 0);
+        // An hour parked: the fixed schedule would take 361 fixes
+        drive(true, 0, 120_000, 10_000);
+        drive(true, 0, 3_480_000, 60_000);
+        assertEquals(361, scheduler.getBaselineFixCount());
+        assertEquals(71, scheduler.getFixCount());
+        assertEquals(290, scheduler.getFixesSaved());
+        assertTrue(scheduler.getTimeInProfile(AdaptiveSamplingScheduler.Profile.PARKED) > 3_000_000);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoundedFixQueueTest {
+
+    @Test
+    public void deliversInOrder() {
+        BoundedFixQueue<String> queue = new BoundedFixQueue<>(4);
+        queue.offer("a", 1);
+        queue.offer("b", 2);
+        assertEquals("a", queue.poll());
+        assertEquals(1, queue.getLastEnqueuedAt());
+        assertEquals("b", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void dropsOldestWhenFull() {
+        BoundedFixQueue<Integer> queue = new BoundedFixQueue<>(3);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i >= 3, queue.offer(i, i));
+        }
+        assertEquals(3, queue.getDepth());
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(5, queue.getOfferedCount());
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertEquals(2, queue.getLastEnqueuedAt());
+    }
+
+    @Test
+    public void capacityOneCoalescesToLatest() {
+        BoundedFixQueue<String> queue = new BoundedFixQueue<>(1);
+        queue.offer("old", 1);
+        queue.offer("new", 2);
+        assertEquals("new", queue.poll());
+        assertNull(queue.poll());
+        assertEquals(1, queue.getMaxDepth());
+    }
+
+    @Test
+    public void wrapsAround() {
+        BoundedFixQueue<Integer> queue = new BoundedFixQueue<>(2);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i, i);
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertEquals(0, queue.getDroppedCount());
+        assertEquals(1, queue.getMaxDepth());
+    }
+}
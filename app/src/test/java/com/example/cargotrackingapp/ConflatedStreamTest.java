@@ -0,0 +1,90 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ConflatedStreamTest {
+
+    // Executor that runs tasks only when drained, like a busy main thread
+    private static final class QueuedExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+        }
+    }
+
+    @Test
+    public void slowSubscriberOnlySeesLatestValue() {
+        ConflatedStream<Integer> stream = new ConflatedStream<>();
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        stream.subscribe(executor, received::add);
+
+        for (int i = 1; i <= 100; i++) stream.publish(i);
+        assertEquals(1, executor.tasks.size());
+        executor.drain();
+        assertEquals(1, received.size());
+        assertEquals(100, (int) received.get(0));
+
+        stream.publish(101);
+        executor.drain();
+        assertEquals(101, (int) received.get(1));
+    }
+
+    @Test
+    public void newSubscriberReceivesLatestValue() {
+        ConflatedStream<String> stream = new ConflatedStream<>();
+        stream.publish("a");
+        stream.publish("b");
+        List<String> received = new ArrayList<>();
+        stream.subscribe(Runnable::run, received::add);
+        assertEquals(1, received.size());
+        assertEquals("b", received.get(0));
+        assertEquals("b", stream.getLatest());
+    }
+
+    @Test
+    public void cancelStopsPendingAndFutureDeliveries() {
+        ConflatedStream<Integer> stream = new ConflatedStream<>();
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        ConflatedStream.Subscription subscription = stream.subscribe(executor, received::add);
+
+        stream.publish(1);
+        subscription.cancel();
+        stream.publish(2);
+        executor.drain();
+        assertTrue(received.isEmpty());
+        assertEquals(0, stream.getSubscriberCount());
+    }
+
+    @Test
+    public void subscribersAreIndependent() {
+        ConflatedStream<Integer> stream = new ConflatedStream<>();
+        QueuedExecutor slow = new QueuedExecutor();
+        List<Integer> fast = new ArrayList<>();
+        List<Integer> lagging = new ArrayList<>();
+        stream.subscribe(Runnable::run, fast::add);
+        stream.subscribe(slow, lagging::add);
+
+        for (int i = 1; i <= 5; i++) stream.publish(i);
+        slow.drain();
+        assertEquals(5, fast.size());
+        assertEquals(1, lagging.size());
+        assertEquals(5, (int) lagging.get(0));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FixProcessorTest {
+
+    private static final FixProcessor.Listener NO_LISTENER = new FixProcessor.Listener() {
+        @Override
+        public void onAccepted(LocationPoint point) {
+        }
+
+        @Override
+        public void onProfileChanged(AdaptiveSamplingScheduler.Profile from, AdaptiveSamplingScheduler.Profile to,
+                                     double latitude, double longitude) {
+        }
+
+        @Override
+        public void onGeofenceEvent(GeofenceEngine.Event event) {
+        }
+    };
+
+    @Test
+    public void storedPointsKeepTheirFixTime() {
+        long fixTime = 1_700_000_000_000L;
+        long processedAt = fixTime + 60000; // The whole batch arrives a minute later
+        TrackingMetrics metrics = new TrackingMetrics();
+        InMemoryLocationSink sink = new InMemoryLocationSink(true);
+        FixProcessor processor = FixProcessor.forTrucks(() -> processedAt, NO_LISTENER);
+        processor.setMetrics(metrics);
+        processor.addUploader(new LocationBatchUploader(sink, 100, 60000, () -> processedAt));
+
+        double lat = 30.0444;
+        for (int i = 0; i < 10; i++) {
+            lat += 12 / Geodesy.METRES_PER_DEGREE;
+            assertTrue(processor.process(new LocationPoint(lat, 31.2357, fixTime + i * 1000L, 5f, 12f)));
+        }
+        processor.flush();
+
+        List<LocationPoint> stored = sink.getPoints();
+        assertEquals(10, stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            assertEquals(fixTime + i * 1000L, stored.get(i).timestamp);
+        }
+        LatencyHistogram age = metrics.getHistogram(TrackingMetrics.Timer.FIX_AGE);
+        assertEquals(10, age.getCount());
+        assertTrue(age.getMax() >= 51000L * 1000000);
+    }
+}
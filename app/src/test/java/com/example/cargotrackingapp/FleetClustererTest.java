@@ -0,0 +1,82 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FleetClustererTest {
+
+    private final FleetClusterer clusterer = new FleetClusterer(80, 3, 15);
+
+    private static Map<String, FleetClusterer.Item> byKey(List<FleetClusterer.Item> items) {
+        Map<String, FleetClusterer.Item> map = new HashMap<>();
+        for (FleetClusterer.Item item : items) assertNull(map.put(item.key, item));
+        return map;
+    }
+
+    @Test
+    public void latePositionsAreIgnored() {
+        FleetPositions positions = new FleetPositions();
+        assertTrue(positions.update("a", 30.0, 31.0, 2000, 10));
+        assertFalse(positions.update("a", 30.0, 31.0, 2000, 10));
+        assertFalse(positions.update("a", 29.0, 30.0, 1000, 10));
+        assertEquals(30.0, positions.get("a").latitude, 0);
+        assertTrue(positions.update("a", 30.1, 31.0, 3000, Float.NaN));
+        assertTrue(positions.remove("a"));
+        assertFalse(positions.remove("a"));
+        assertEquals(0, positions.size());
+    }
+
+    @Test
+    public void nearbyTrucksClusterAtLowZoomOnly() {
+        FleetPositions positions = new FleetPositions();
+        // Three trucks within a few hundred metres in Cairo, two far apart elsewhere
+        positions.update("c1", 30.0440, 31.2350, 1, 0);
+        positions.update("c2", 30.0450, 31.2360, 1, 0);
+        positions.update("c3", 30.0460, 31.2370, 1, 0);
+        positions.update("alex", 31.2001, 29.9187, 1, 0);
+        positions.update("aswan", 24.0889, 32.8998, 1, 0);
+
+        Map<String, FleetClusterer.Item> items = byKey(clusterer.cluster(positions.getPositions(), 8.5));
+        assertEquals(3, items.size());
+        assertTrue(items.containsKey("alex") && items.containsKey("aswan"));
+        FleetClusterer.Item cluster = null;
+        for (FleetClusterer.Item item : items.values()) if (item.isCluster()) cluster = item;
+        assertEquals(3, cluster.count);
+        assertEquals(30.0450, cluster.latitude, 1e-9);
+        assertEquals(31.2360, cluster.longitude, 1e-9);
+        assertTrue(cluster.key.startsWith("cell/8/"));
+
+        // Street level: every truck on its own
+        items = byKey(clusterer.cluster(positions.getPositions(), 16));
+        assertEquals(5, items.size());
+        assertFalse(items.get("c2").isCluster());
+    }
+
+    @Test
+    public void clusterKeyIsStableWhileTrucksMoveWithinTheCell() {
+        FleetPositions positions = new FleetPositions();
+        for (int i = 0; i < 10; i++) positions.update("t" + i, 30.0 + i * 1e-4, 31.0, 1, 0);
+        FleetClusterer.Item before = clusterer.cluster(positions.getPositions(), 6).get(0);
+
+        positions.update("t0", 30.0005, 31.0005, 2, 0);
+        List<FleetClusterer.Item> after = clusterer.cluster(positions.getPositions(), 6);
+        assertEquals(1, after.size());
+        assertEquals(before.key, after.get(0).key);
+        assertEquals(10, after.get(0).count);
+        assertTrue(after.get(0).latitude > before.latitude);
+    }
+
+    @Test
+    public void mercatorCoversTheWorld() {
+        assertEquals(0.5, FleetClusterer.mercatorX(0), 0);
+        assertEquals(0.5, FleetClusterer.mercatorY(0), 1e-12);
+        assertTrue(FleetClusterer.mercatorX(180) < 1);
+        assertEquals(0, FleetClusterer.mercatorY(90), 1e-6);
+        assertEquals(1, FleetClusterer.mercatorY(-90), 1e-6);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FleetPositionsTest {
+
+    @Test
+    public void newerUpdatesReplaceThePosition() {
+        FleetPositions positions = new FleetPositions();
+        assertTrue(positions.update("a", 30.0, 31.0, 1000, 10));
+        assertTrue(positions.update("a", 30.1, 31.1, 2000, 12));
+        FleetPositions.Position position = positions.get("a");
+        assertEquals(30.1, position.latitude, 0);
+        assertEquals(2000, position.timestamp);
+        assertEquals(12, position.speed, 0);
+        assertEquals(1, positions.size());
+    }
+
+    @Test
+    public void olderUpdatesNeverMoveATruckBackwards() {
+        FleetPositions positions = new FleetPositions();
+        positions.update("a", 30.3, 31.0, 3000, 10);
+        // Delivered out of order, as replayed or retried writes can be
+        assertFalse(positions.update("a", 30.1, 31.0, 1000, 10));
+        assertFalse(positions.update("a", 30.2, 31.0, 2000, 10));
+        assertEquals(30.3, positions.get("a").latitude, 0);
+        assertEquals(3000, positions.get("a").timestamp);
+    }
+
+    @Test
+    public void sameTimeCountsOnlyWhenThePositionDiffers() {
+        FleetPositions positions = new FleetPositions();
+        positions.update("a", 30.0, 31.0, 1000, 10);
+        assertFalse(positions.update("a", 30.0, 31.0, 1000, 10));
+        assertTrue(positions.update("a", 30.5, 31.0, 1000, 10));
+        assertEquals(30.5, positions.get("a").latitude, 0);
+    }
+
+    @Test
+    public void vehiclesAreOrderedIndependently() {
+        FleetPositions positions = new FleetPositions();
+        positions.update("a", 30.0, 31.0, 5000, 10);
+        assertTrue(positions.update("b", 40.0, 41.0, 1000, 10));
+        assertFalse(positions.update("a", 29.0, 31.0, 4000, 10));
+        assertEquals(2, positions.size());
+        assertEquals(40.0, positions.get("b").latitude, 0);
+    }
+
+    @Test
+    public void clearForgetsWhatWasKnown() {
+        FleetPositions positions = new FleetPositions();
+        positions.update("a", 30.0, 31.0, 5000, 10);
+        positions.clear();
+        // After a restart of the feed the server document is taken as it is
+        assertTrue(positions.update("a", 29.0, 31.0, 4000, 10));
+        assertEquals(4000, positions.get("a").timestamp);
+        assertTrue(positions.remove("a"));
+        assertNull(positions.get("a"));
+    }
+}
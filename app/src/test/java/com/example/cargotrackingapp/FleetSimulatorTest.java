@@ -0,0 +1,115 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FleetSimulatorTest {
+
+    // A drive with a long stop in the middle and the odd wild fix, one fix per second
+    private static List<LocationPoint> trace(long seed, int size) {
+        Random random = new Random(seed);
+        List<LocationPoint> points = new ArrayList<>(size);
+        double lat = 30.0444, lon = 31.2357;
+        for (int i = 0; i < size; i++) {
+            boolean stopped = i > size / 3 && i < size / 2;
+            double speed = stopped ? 0 : 12 + random.nextDouble() * 4;
+            lat += speed / Geodesy.METRES_PER_DEGREE;
+            double jitter = random.nextGaussian() * 2 / Geodesy.METRES_PER_DEGREE;
+            if (random.nextInt(200) == 0) jitter = 0.05; // ~5 km jump the filter must reject
+            points.add(new LocationPoint(lat + jitter, lon, 1_700_000_000_000L + i * 1000L, 5f, (float) speed));
+        }
+        return points;
+    }
+
+    private static List<List<LocationPoint>> traces() {
+        return Arrays.asList(trace(1, 3000), trace(2, 2000), trace(3, 2500));
+    }
+
+    @Test
+    public void countsEveryFixAndWrite() throws Exception {
+        FleetSimulator simulator = new FleetSimulator(traces(), 12, 0, 4);
+        FleetSimulator.Report report = simulator.run();
+
+        assertEquals(12, report.trucks);
+        assertTrue(report.delivered > 0);
+        assertTrue("adaptive sampling should skip 1 Hz fixes", report.skipped > report.delivered);
+        assertEquals(report.delivered, report.accepted + report.rejected);
+        assertTrue(report.rejected > 0);
+        // Everything accepted is stored once the final flush has run
+        assertEquals(report.accepted, report.pointsWritten);
+        assertTrue(report.writes >= report.pointsWritten / 50);
+        assertEquals(report.delivered, report.latency.getCount());
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    @Test
+    public void storedPointsDoNotDependOnTiming() throws Exception {
+        FleetSimulator fast = new FleetSimulator(traces(), 6, 0, 1).setRetainPoints(true);
+        FleetSimulator concurrent = new FleetSimulator(traces(), 6, 0, 6).setRetainPoints(true);
+        FleetSimulator.Report a = fast.run();
+        FleetSimulator.Report b = concurrent.run();
+
+        assertEquals(a.pointsWritten, b.pointsWritten);
+        assertEquals(a.writes, b.writes);
+        for (int truck = 0; truck < 6; truck++) {
+            List<LocationPoint> x = fast.getStoredPoints(truck);
+            List<LocationPoint> y = concurrent.getStoredPoints(truck);
+            assertEquals(x.size(), y.size());
+            for (int i = 0; i < x.size(); i++) {
+                assertEquals(x.get(i).timestamp, y.get(i).timestamp);
+                assertEquals(x.get(i).latitude, y.get(i).latitude, 0);
+            }
+        }
+        // Trucks replaying the same trace store the same points
+        assertEquals(fast.getStoredPoints(0).size(), fast.getStoredPoints(3).size());
+    }
+
+    @Test
+    public void replaysAtSpeedUp() throws Exception {
+        // 50 s of trace at 100x takes about half a second
+        List<List<LocationPoint>> traces = Arrays.asList(trace(4, 50));
+        long start = System.nanoTime();
+        FleetSimulator.Report report = new FleetSimulator(traces, 3, 100, 2).run();
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertTrue(report.delivered > 0);
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis >= 400);
+    }
+
+    @Test
+    public void journalsEachTruck() throws Exception {
+        File dir = File.createTempFile("fleet", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        try {
+            FleetSimulator simulator = new FleetSimulator(traces(), 3, 0, 2).setJournalDir(dir);
+            FleetSimulator.Report report = simulator.run();
+
+            assertEquals(0, simulator.getJournalErrorCount());
+            for (int truck = 0; truck < 3; truck++) {
+                try (LocationJournal journal = LocationJournal.open(new File(dir, "truck-" + truck + ".journal"))) {
+                    // Every batch was acknowledged once the in-memory sink committed it
+                    assertEquals(0, journal.getPendingCount());
+                    assertTrue(journal.getWriteSequence() > 0);
+                }
+            }
+            assertTrue(report.pointsWritten > 0);
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) for (File file : files) assertTrue(file.delete());
+            assertTrue(dir.delete());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsATrace() throws IOException, InterruptedException {
+        new FleetSimulator(new ArrayList<>(), 1, 0, 1).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoHashTest {
+
+    @Test
+    public void encodesKnownHashes() {
+        assertEquals("ezs42", GeoHash.encodeToString(42.605, -5.603, 5));
+        assertEquals("u4pruydqqvj", GeoHash.encodeToString(57.64911, 10.40744, 11));
+        assertEquals(GeoHash.encode(57.64911, 10.40744, 11), GeoHash.fromString("u4pruydqqvj"));
+    }
+
+    @Test
+    public void cellBoundsContainEncodedPoint() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            double lat = -90 + random.nextDouble() * 180;
+            double lon = -180 + random.nextDouble() * 360;
+            int precision = 1 + random.nextInt(GeoHash.MAX_PRECISION);
+            double[] b = GeoHash.bounds(GeoHash.encode(lat, lon, precision), precision);
+            assertTrue(lat >= b[0] && lat <= b[2]);
+            assertTrue(lon >= b[1] && lon <= b[3]);
+        }
+    }
+
+    @Test
+    public void coverContainsCellsOfPointsInBox() {
+        Random random = new Random(2);
+        for (int precision = 1; precision <= 7; precision++) {
+            double minLat = 29.9, minLon = 31.1, maxLat = 30.1, maxLon = 31.4;
+            long[] cells = GeoHash.cover(minLat, minLon, maxLat, maxLon, precision);
+            for (int i = 0; i < 200; i++) {
+                double lat = minLat + random.nextDouble() * (maxLat - minLat);
+                double lon = minLon + random.nextDouble() * (maxLon - minLon);
+                assertTrue(Arrays.binarySearch(cells, GeoHash.encode(lat, lon, precision)) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void precisionKeepsCoverWithinLimit() {
+        double[] box = GeoHash.boundingBox(30.0444, 31.2357, 2000);
+        int precision = GeoHash.precisionFor(box[0], box[1], box[2], box[3], 16);
+        assertTrue(GeoHash.cover(box[0], box[1], box[2], box[3], precision).length <= 16);
+        assertTrue(GeoHash.cover(box[0], box[1], box[2], box[3], precision + 1).length > 16);
+    }
+
+    @Test
+    public void radiusCoverUsesFinestStoredPrecisionThatFits() {
+        int[] stored = {4, 5, 6};
+        // 500 m fits at the finest stored precision, 20 km only at a coarser one
+        GeoHash.Cover near = GeoHash.coverRadius(30.0444, 31.2357, 500, stored, 30);
+        assertEquals(6, near.precision);
+        GeoHash.Cover wide = GeoHash.coverRadius(30.0444, 31.2357, 20000, stored, 30);
+        assertTrue(wide.precision < 6);
+        double[] box = GeoHash.boundingBox(30.0444, 31.2357, 20000);
+        assertTrue(GeoHash.cover(box[0], box[1], box[2], box[3], wide.precision + 1).length > 30);
+
+        Random random = new Random(3);
+        for (GeoHash.Cover cover : new GeoHash.Cover[]{near, wide}) {
+            assertTrue(cover.cells.length <= 30);
+            assertEquals(cover.cells.length, cover.keys().size());
+            assertEquals(cover.precision, cover.keys().get(0).length());
+            double radius = cover == near ? 500 : 20000;
+            // Every point within the radius lands in a listed cell
+            for (int i = 0; i < 500; i++) {
+                double bearing = random.nextDouble() * 2 * Math.PI;
+                double distance = random.nextDouble() * radius / Geodesy.EARTH_RADIUS_M;
+                double lat = 30.0444 + Math.toDegrees(distance * Math.cos(bearing));
+                double lon = 31.2357 + Math.toDegrees(distance * Math.sin(bearing) / Math.cos(Math.toRadians(lat)));
+                if (Geodesy.haversine(30.0444, 31.2357, lat, lon) > radius) continue;
+                assertTrue(Arrays.binarySearch(cover.cells, GeoHash.encode(lat, lon, cover.precision)) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void radiusCoverIsNullWhenNoStoredPrecisionFits() {
+        assertNull(GeoHash.coverRadius(30.0444, 31.2357, 500000, new int[]{4, 5, 6}, 30));
+        // A coarser stored precision would still take it
+        assertEquals(2, GeoHash.coverRadius(30.0444, 31.2357, 500000, new int[]{2, 4}, 30).precision);
+    }
+
+    @Test
+    public void mergesAdjacentCellsIntoRanges() {
+        int precision = 2;
+        long parent = GeoHash.fromString("s");
+        long childSize = GeoHash.cellEnd(0, precision);
+        long[] children = new long[32];
+        for (int i = 0; i < 32; i++) children[i] = parent + i * childSize;
+        List<long[]> ranges = GeoHash.toRanges(children, precision);
+        assertEquals(1, ranges.size());
+        assertEquals(parent, ranges.get(0)[0]);
+        assertEquals(GeoHash.cellEnd(parent, 1), ranges.get(0)[1]);
+    }
+
+    @Test
+    public void distanceMatchesKnownValue() {
+        // Cairo to Alexandria, about 179 km
+        assertEquals(179000, Geodesy.haversine(30.0444, 31.2357, 31.2001, 29.9187), 2000);
+    }
+}
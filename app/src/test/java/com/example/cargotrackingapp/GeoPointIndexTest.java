@@ -0,0 +1,67 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoPointIndexTest {
+
+    @Test
+    public void radiusQueryMatchesBruteForce() {
+        Random random = new Random(5);
+        GeoPointIndex index = new GeoPointIndex();
+        double[] lats = new double[5000];
+        double[] lons = new double[5000];
+        for (int i = 0; i < 5000; i++) {
+            lats[i] = 30 + random.nextDouble() * 0.5;
+            lons[i] = 31 + random.nextDouble() * 0.5;
+            index.add(lats[i], lons[i], i * 1000L);
+
+            // Interleave queries with appends so the tail merge is exercised
+            if (i % 997 == 0 || i == 4999) {
+                double lat = 30 + random.nextDouble() * 0.5, lon = 31 + random.nextDouble() * 0.5;
+                double radius = 500 + random.nextDouble() * 5000;
+                assertArrayEquals(bruteForce(lats, lons, i + 1, lat, lon, radius, 0, Long.MAX_VALUE),
+                        index.queryRadius(lat, lon, radius, 0, Long.MAX_VALUE));
+            }
+        }
+        assertArrayEquals(bruteForce(lats, lons, 5000, 30.25, 31.25, 3000, 1_000_000, 2_000_000),
+                index.queryRadius(30.25, 31.25, 3000, 1_000_000, 2_000_000));
+    }
+
+    @Test
+    public void boxQueryFiltersExactly() {
+        GeoPointIndex index = new GeoPointIndex();
+        index.add(30.0, 31.0, 1);
+        index.add(30.5, 31.5, 2);
+        index.add(30.0001, 31.0001, 3);
+        assertArrayEquals(new int[]{0, 2}, index.queryBox(29.99, 30.99, 30.01, 31.01, 0, 10));
+        assertArrayEquals(new int[]{2}, index.queryBox(29.99, 30.99, 30.01, 31.01, 2, 10));
+        assertEquals(3, index.getTimestamp(2));
+    }
+
+    @Test
+    public void clearEmptiesIndex() {
+        GeoPointIndex index = new GeoPointIndex();
+        index.add(30.0, 31.0, 1);
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(0, index.queryRadius(30.0, 31.0, 1000, 0, 10).length);
+    }
+
+    private static int[] bruteForce(double[] lats, double[] lons, int n, double lat, double lon, double radius,
+                                    long fromTime, long toTime) {
+        int[] out = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            long time = i * 1000L;
+            if (time >= fromTime && time < toTime && Geodesy.haversine(lat, lon, lats[i], lons[i]) <= radius) {
+                out[count++] = i;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+}
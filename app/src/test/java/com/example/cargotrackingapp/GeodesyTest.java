@@ -0,0 +1,63 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeodesyTest {
+
+    @Test
+    public void vincentyMatchesReferenceGeodesic() {
+        // Flinders Peak to Buninyong, the worked example in Vincenty's paper
+        double lat1 = -(37 + 57 / 60.0 + 3.72030 / 3600), lon1 = 144 + 25 / 60.0 + 29.52440 / 3600;
+        double lat2 = -(37 + 39 / 60.0 + 10.15610 / 3600), lon2 = 143 + 55 / 60.0 + 35.38390 / 3600;
+        assertEquals(54972.271, Geodesy.vincenty(lat1, lon1, lat2, lon2), 0.001);
+    }
+
+    @Test
+    public void vincentyHandlesEquatorAndCoincidentPoints() {
+        assertEquals(111319.491, Geodesy.vincenty(0, 0, 0, 1), 0.001);
+        assertEquals(0, Geodesy.vincenty(30.0444, 31.2357, 30.0444, 31.2357), 0);
+        // Nearly antipodal: falls back to the sphere instead of failing
+        assertEquals(Math.PI * Geodesy.EARTH_RADIUS_M, Geodesy.vincenty(0, 0, 0.5, 179.7), 0.006 * 2e7);
+    }
+
+    @Test
+    public void cheaperMethodsStayWithinTheirErrorBounds() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            double lat = (random.nextDouble() - 0.5) * 140;
+            double lon = (random.nextDouble() - 0.5) * 360;
+            // A fix-to-fix step of up to 2 km
+            double lat2 = lat + (random.nextDouble() - 0.5) * 0.02;
+            double lon2 = lon + (random.nextDouble() - 0.5) * 0.02;
+            double haversine = Geodesy.haversine(lat, lon, lat2, lon2);
+            double vincenty = Geodesy.vincenty(lat, lon, lat2, lon2);
+            assertEquals(haversine, Geodesy.equirectangular(lat, lon, lat2, lon2), haversine * 0.001 + 1e-6);
+            assertEquals(vincenty, haversine, vincenty * 0.006 + 1e-6);
+        }
+    }
+
+    @Test
+    public void equirectangularWrapsAtTheAntimeridian() {
+        assertEquals(111.2, Geodesy.equirectangular(0, 179.9995, 0, -179.9995), 0.1);
+    }
+
+    @Test
+    public void bulkMethodsAgreeWithSingleDistances() {
+        double[] lats = {30.0444, 30.05, 30.06, 30.06};
+        double[] lons = {31.2357, 31.24, 31.25, 31.26};
+        double[] steps = new double[4];
+        double[] cumulative = new double[4];
+        for (Geodesy.Method method : Geodesy.Method.values()) {
+            Geodesy.stepDistances(method, lats, lons, 4, steps);
+            Geodesy.cumulativeDistances(method, lats, lons, 4, cumulative);
+            assertEquals(0, steps[0], 0);
+            assertEquals(Geodesy.distance(method, lats[1], lons[1], lats[2], lons[2]), steps[2], 0);
+            assertEquals(steps[1] + steps[2] + steps[3], cumulative[3], 1e-9);
+            assertEquals(cumulative[3], Geodesy.pathLength(method, lats, lons, 4), 1e-9);
+        }
+    }
+}
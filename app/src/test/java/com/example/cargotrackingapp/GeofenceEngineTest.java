@@ -0,0 +1,99 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeofenceEngineTest {
+
+    private static final double METRES_PER_DEGREE = 6371008.8 * Math.PI / 180;
+
+    private final List<GeofenceEngine.Event> events = new ArrayList<>();
+
+    @Test
+    public void polygonContainment() {
+        // A 200 m x 100 m rectangle with a notch cut into its top edge
+        double[] lats = {30.0, 30.0, 30.0009, 30.0009, 30.0005, 30.0009};
+        double[] lons = {31.0, 31.002, 31.002, 31.0015, 31.001, 31.0005};
+        Geofence fence = Geofence.polygon("p", "Depot", lats, lons);
+        assertTrue(fence.contains(30.0002, 31.001));
+        assertFalse(fence.contains(30.0008, 31.001)); // Inside the notch
+        assertFalse(fence.contains(30.001, 31.001));
+        assertTrue(fence.signedDistance(30.0001, 31.0001) < 0);
+        assertEquals(0.0001 * METRES_PER_DEGREE, fence.signedDistance(29.9999, 31.001), 0.5);
+    }
+
+    @Test
+    public void circleContainment() {
+        Geofence fence = Geofence.circle("c", "Site", 30, 31, 100);
+        assertTrue(fence.contains(30 + 99 / METRES_PER_DEGREE, 31));
+        assertFalse(fence.contains(30 + 101 / METRES_PER_DEGREE, 31));
+    }
+
+    @Test
+    public void enterDwellExitWithHysteresis() {
+        GeofenceEngine engine = new GeofenceEngine(25, 60000, 0.01);
+        engine.setFences(Collections.singletonList(Geofence.circle("c", "Depot", 30, 31, 100)));
+
+        engine.onFix(0, north(150), 31, events::add);
+        assertTrue(events.isEmpty());
+        engine.onFix(10000, north(90), 31, events::add);
+        assertTransitions(GeofenceEngine.Transition.ENTER);
+
+        // Jitter just outside the boundary but within the margin does not exit
+        engine.onFix(20000, north(110), 31, events::add);
+        engine.onFix(30000, north(95), 31, events::add);
+        assertTransitions(GeofenceEngine.Transition.ENTER);
+
+        engine.onFix(70000, north(50), 31, events::add);
+        assertTransitions(GeofenceEngine.Transition.ENTER, GeofenceEngine.Transition.DWELL);
+        assertEquals(60000, events.get(1).insideMillis);
+
+        engine.onFix(80000, north(130), 31, events::add);
+        assertTransitions(GeofenceEngine.Transition.ENTER, GeofenceEngine.Transition.DWELL,
+                GeofenceEngine.Transition.EXIT);
+        assertEquals(70000, events.get(2).insideMillis);
+        assertEquals(0, engine.getInsideCount());
+    }
+
+    @Test
+    public void gridMatchesBruteForce() {
+        Random random = new Random(9);
+        List<Geofence> fences = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            double lat = 30 + random.nextDouble() * 0.5, lon = 31 + random.nextDouble() * 0.5;
+            if (i % 2 == 0) {
+                fences.add(Geofence.circle("c" + i, "c" + i, lat, lon, 50 + random.nextDouble() * 2000));
+            } else {
+                double d = 0.001 + random.nextDouble() * 0.02;
+                fences.add(Geofence.polygon("p" + i, "p" + i,
+                        new double[]{lat, lat, lat + d, lat + d / 2},
+                        new double[]{lon, lon + d, lon + d, lon - d / 3}));
+            }
+        }
+        GeofenceEngine engine = new GeofenceEngine(0, Long.MAX_VALUE, 0.01);
+        engine.setFences(fences);
+        for (int i = 0; i < 2000; i++) {
+            double lat = 30 + random.nextDouble() * 0.5, lon = 31 + random.nextDouble() * 0.5;
+            engine.onFix(i, lat, lon, event -> { });
+            int inside = 0;
+            for (Geofence fence : fences) if (fence.contains(lat, lon)) inside++;
+            assertEquals(inside, engine.getInsideCount());
+        }
+        assertTrue(engine.getChecksPerFix() < 50);
+    }
+
+    private static double north(double metres) {
+        return 30 + metres / METRES_PER_DEGREE;
+    }
+
+    private void assertTransitions(GeofenceEngine.Transition... expected) {
+        assertEquals(expected.length, events.size());
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], events.get(i).transition);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KalmanLocationFilterTest {
+
+    private static final double METRES_PER_DEGREE = 6371008.8 * Math.PI / 180;
+    private static final double LAT = 30.0444, LON = 31.2357;
+
+    private KalmanLocationFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = KalmanLocationFilter.forTrucks();
+    }
+
+    private static double north(double metres) {
+        return LAT + metres / METRES_PER_DEGREE;
+    }
+
+    @Test
+    public void rejectsNullIslandAndInaccurateFixes() {
+        assertFalse(filter.accept(1000, 0, 0, 5, Float.NaN));
+        assertEquals(FixFilter.Rejection.NULL_ISLAND, filter.getLastRejection());
+        assertFalse(filter.accept(1000, LAT, LON, 150, Float.NaN));
+        assertEquals(FixFilter.Rejection.INACCURATE, filter.getLastRejection());
+        assertTrue(filter.accept(1000, LAT, LON, 5, Float.NaN));
+        assertEquals(FixFilter.Rejection.NONE, filter.getLastRejection());
+    }
+
+    @Test
+    public void rejectsJumpImplyingImpossibleSpeed() {
+        assertTrue(filter.accept(0, LAT, LON, 5, 20));
+        assertTrue(filter.accept(10_000, north(200), LON, 5, 20));
+        // 3 km in 10 s is over 1000 km/h
+        assertFalse(filter.accept(20_000, north(3200), LON, 5, 20));
+        assertEquals(FixFilter.Rejection.IMPLIED_SPEED, filter.getLastRejection());
+        assertTrue(filter.accept(30_000, north(600), LON, 5, 20));
+    }
+
+    @Test
+    public void allowsLongGapsThatOldDistanceCheckWouldDrop() {
+        // 12 km apart but an hour later is only 12 km/h
+        assertTrue(filter.accept(0, LAT, LON, 5, Float.NaN));
+        assertTrue(filter.accept(3_600_000, north(12_000), LON, 5, Float.NaN));
+    }
+
+    @Test
+    public void rejectsDriftWhileParked() {
+        assertTrue(filter.accept(0, LAT, LON, 5, 0));
+        assertTrue(filter.accept(5000, LAT, LON, 5, 0));
+        // 120 m in 5 s while the receiver reports standing still
+        assertFalse(filter.accept(10_000, north(120), LON, 5, 0));
+    }
+
+    @Test
+    public void rejectsOutOfOrderFixes() {
+        assertTrue(filter.accept(5000, LAT, LON, 5, Float.NaN));
+        assertFalse(filter.accept(4000, LAT, LON, 5, Float.NaN));
+        assertEquals(FixFilter.Rejection.OUT_OF_ORDER, filter.getLastRejection());
+    }
+
+    @Test
+    public void restartsAfterRepeatedRejections() {
+        assertTrue(filter.accept(0, LAT, LON, 5, Float.NaN));
+        long t = 1000;
+        for (int i = 0; i < 4; i++, t += 1000) {
+            assertFalse(filter.accept(t, north(50_000), LON, 5, Float.NaN));
+        }
+        assertTrue(filter.accept(t, north(50_000), LON, 5, Float.NaN));
+        assertEquals(north(50_000), filter.getLatitude(), 1e-9);
+    }
+
+    @Test
+    public void smoothsNoisyStraightDrive() {
+        Random random = new Random(1);
+        double rawError = 0, filteredError = 0;
+        int n = 300;
+        for (int i = 0; i < n; i++) {
+            double truth = i * 15.0 * 5; // 15 m/s, one fix every 5 s
+            double noisy = truth + random.nextGaussian() * 8;
+            assertTrue(filter.accept(i * 5000L, north(noisy), LON, 8, 15));
+            if (i >= 20) {
+                rawError += Math.abs(noisy - truth);
+                filteredError += Math.abs((filter.getLatitude() - LAT) * METRES_PER_DEGREE - truth);
+            }
+        }
+        assertTrue("filtered " + filteredError + " raw " + rawError, filteredError < rawError * 0.6);
+        assertEquals(15, filter.getSpeed(), 1.5);
+    }
+
+    @Test
+    public void resetForgetsState() {
+        assertTrue(filter.accept(10_000, LAT, LON, 5, Float.NaN));
+        filter.reset();
+        assertTrue(filter.accept(1000, north(90_000), LON, 5, Float.NaN));
+    }
+}
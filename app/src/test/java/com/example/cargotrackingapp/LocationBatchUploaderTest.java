@@ -0,0 +1,239 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocationBatchUploaderTest {
+
+    // Records batches and completes them only when told to
+    private static class FakeSink implements LocationBatchUploader.Sink {
+        final List<List<LocationPoint>> batches = new ArrayList<>();
+        final List<LocationBatchUploader.Callback> pending = new ArrayList<>();
+        boolean autoComplete = true;
+
+        @Override
+        public void write(List<LocationPoint> points, LocationBatchUploader.Callback callback) {
+            batches.add(points);
+            if (autoComplete) {
+                callback.onComplete(true, null);
+            } else {
+                pending.add(callback);
+            }
+        }
+
+        void complete(boolean success) {
+            pending.remove(0).onComplete(success, success ? null : new RuntimeException("offline"));
+        }
+    }
+
+    private FakeSink sink;
+    private long now;
+    private LocationBatchUploader uploader;
+
+    @Before
+    public void setUp() {
+        sink = new FakeSink();
+        now = 0;
+        uploader = new LocationBatchUploader(sink, 3, 60_000, () -> now);
+    }
+
+    private static LocationPoint point(int i) {
+        return new LocationPoint(30 + i * 1e-4, 31, i * 1000L, 5f, 10f);
+    }
+
+    @Test
+    public void flushesWhenBatchIsFull() {
+        uploader.add(point(0));
+        uploader.add(point(1));
+        assertEquals(0, sink.batches.size());
+
+        uploader.add(point(2));
+        assertEquals(1, sink.batches.size());
+        assertEquals(3, sink.batches.get(0).size());
+        assertEquals(3, uploader.getFlushedCount());
+        assertEquals(0, uploader.getPendingCount());
+    }
+
+    @Test
+    public void flushesWhenOldestPointIsStale() {
+        uploader.add(point(0));
+        now = 59_999;
+        uploader.flushIfDue();
+        assertEquals(0, sink.batches.size());
+
+        now = 60_000;
+        uploader.flushIfDue();
+        assertEquals(1, sink.batches.size());
+        assertEquals(1, uploader.getFlushedCount());
+    }
+
+    @Test
+    public void explicitFlushDrainsEverythingInBatches() {
+        sink.autoComplete = false;
+        for (int i = 0; i < 7; i++) uploader.add(point(i));
+        // Size trigger fired once; the rest waits behind the in-flight batch
+        assertEquals(1, sink.batches.size());
+
+        uploader.flush();
+        sink.complete(true);
+        sink.complete(true);
+        sink.complete(true);
+
+        assertEquals(3, sink.batches.size());
+        assertEquals(1, sink.batches.get(2).size());
+        assertEquals(7, uploader.getFlushedCount());
+        assertEquals(0, uploader.getPendingCount());
+    }
+
+    @Test
+    public void inFlightUntilTheDrainsLastBatchCompletes() {
+        sink.autoComplete = false;
+        for (int i = 0; i < 4; i++) uploader.add(point(i));
+        uploader.flush();
+        assertTrue(uploader.isInFlight());
+
+        // The second batch is sent from the first one's completion
+        sink.complete(true);
+        assertTrue(uploader.isInFlight());
+        sink.complete(true);
+        assertFalse(uploader.isInFlight());
+        assertEquals(4, uploader.getFlushedCount());
+
+        // A failed batch waits for the next trigger, so nothing is in flight either
+        uploader.add(point(4));
+        uploader.flush();
+        sink.complete(false);
+        assertFalse(uploader.isInFlight());
+    }
+
+    @Test
+    public void failedBatchIsRequeuedInOrder() {
+        sink.autoComplete = false;
+        for (int i = 0; i < 3; i++) uploader.add(point(i));
+        uploader.add(point(3));
+        sink.complete(false);
+
+        assertEquals(3, uploader.getFailedCount());
+        assertEquals(0, uploader.getFlushedCount());
+        assertEquals(4, uploader.getPendingCount());
+
+        uploader.flush();
+        List<LocationPoint> retried = sink.batches.get(1);
+        assertEquals(0L, retried.get(0).timestamp);
+        assertEquals(2000L, retried.get(2).timestamp);
+    }
+
+    @Test
+    public void journaledPointsOverCapacityAreReadBackNotDropped() throws IOException {
+        File file = File.createTempFile("uploader", ".journal");
+        assertTrue(file.delete());
+        try (LocationJournal journal = LocationJournal.open(file, 64)) {
+            sink.autoComplete = false;
+            uploader = new LocationBatchUploader(new JournalAcknowledgingSink(sink, journal), 3, 60_000, () -> now);
+            uploader.setJournal(journal);
+            for (int i = 0; i < 100; i++) {
+                LocationPoint p = point(i);
+                long sequence = journal.append(p.timestamp, p.latitude, p.longitude, p.accuracy, p.speed);
+                uploader.add(new LocationPoint(p.latitude, p.longitude, p.timestamp, p.accuracy, p.speed, sequence));
+            }
+            // One batch in flight and the buffer full at 20 batches; the rest stays in the journal
+            assertEquals(60, uploader.getPendingCount());
+            assertEquals(0, uploader.getDroppedCount());
+
+            sink.complete(false); // The requeued batch pushes the newest buffered points back out
+            assertEquals(60, uploader.getPendingCount());
+
+            uploader.flush();
+            while (!sink.pending.isEmpty()) sink.complete(true);
+
+            assertEquals(0, uploader.getDroppedCount());
+            assertEquals(0, uploader.getPendingCount());
+            assertEquals(0, journal.getPendingCount());
+            long expected = 0;
+            for (int b = 1; b < sink.batches.size(); b++) {
+                for (LocationPoint p : sink.batches.get(b)) assertEquals(expected++ * 1000, p.timestamp);
+            }
+            assertEquals(100, expected);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void pointsReadBackFromJournalKeepTheirTrip() throws IOException {
+        File file = File.createTempFile("uploader", ".journal");
+        assertTrue(file.delete());
+        try (LocationJournal journal = LocationJournal.open(file, 256)) {
+            sink.autoComplete = false;
+            uploader = new LocationBatchUploader(new JournalAcknowledgingSink(sink, journal), 3, 60_000, () -> now);
+            uploader.setJournal(journal);
+            for (int i = 0; i < 100; i++) {
+                LocationPoint p = point(i);
+                String trip = i < 70 ? "tripA" : "tripB";
+                long sequence = journal.append(trip, p.timestamp, p.latitude, p.longitude, p.accuracy, p.speed);
+                uploader.add(new LocationPoint(p.latitude, p.longitude, p.timestamp, p.accuracy, p.speed,
+                        sequence, trip));
+            }
+            uploader.flush();
+            while (!sink.pending.isEmpty()) sink.complete(true);
+
+            int count = 0;
+            for (List<LocationPoint> batch : sink.batches) {
+                for (LocationPoint p : batch) {
+                    assertEquals(p.timestamp < 70_000 ? "tripA" : "tripB", p.tripId);
+                    count++;
+                }
+            }
+            assertEquals(100, count);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void splitByTripKeepsRunsInOrder() {
+        List<LocationPoint> points = new ArrayList<>();
+        String[] trips = {"a", "a", null, null, "b", "a"};
+        for (int i = 0; i < trips.length; i++) {
+            points.add(new LocationPoint(30, 31, i, 5f, 10f, i, trips[i]));
+        }
+        List<List<LocationPoint>> runs = LocationPoint.splitByTrip(points);
+        assertEquals(4, runs.size());
+        assertEquals(2, runs.get(0).size());
+        assertNull(runs.get(1).get(0).tripId);
+        assertEquals(2, runs.get(1).size());
+        assertEquals("b", runs.get(2).get(0).tripId);
+        assertEquals(5, runs.get(3).get(0).timestamp);
+        assertTrue(LocationPoint.splitByTrip(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void sinkThatThrowsFailsTheBatch() {
+        uploader = new LocationBatchUploader((points, callback) -> {
+            throw new IllegalStateException("not signed in");
+        }, 3, 60_000, () -> now);
+        for (int i = 0; i < 3; i++) uploader.add(point(i));
+        assertEquals(3, uploader.getFailedCount());
+        assertEquals(3, uploader.getPendingCount());
+
+        // Not stuck in flight: the next flush reaches the sink again
+        uploader.flush();
+        assertEquals(6, uploader.getFailedCount());
+    }
+
+    @Test
+    public void countsBufferedPoints() {
+        for (int i = 0; i < 5; i++) uploader.add(point(i));
+        assertEquals(5, uploader.getBufferedCount());
+        assertEquals(3, uploader.getFlushedCount());
+        assertEquals(2, uploader.getPendingCount());
+        assertEquals(1, uploader.getBatchCount());
+    }
+}
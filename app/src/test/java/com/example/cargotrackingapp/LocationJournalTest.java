@@ -0,0 +1,223 @@
+package com.example.cargotrackingapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocationJournalTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("journal", ".bin");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static List<long[]> readAll(LocationJournal journal) {
+        List<long[]> records = new ArrayList<>();
+        journal.read(0, Integer.MAX_VALUE, (sequence, timestamp, latitude, longitude, accuracy, speed) ->
+                records.add(new long[]{sequence, timestamp, Math.round(latitude * 1e6)}));
+        return records;
+    }
+
+    private static void appendPoints(LocationJournal journal, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            journal.append(1000L * i, 30 + i * 1e-6, 31, 5f, 12.5f);
+        }
+    }
+
+    @Test
+    public void appendAndReadBack() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            assertEquals(0, journal.append(1000, 30.5, 31.25, 4.5f, 12f));
+            assertEquals(1, journal.append(2000, 30.6, 31.35, 3.5f, 13f));
+
+            List<double[]> records = new ArrayList<>();
+            journal.read(0, 10, (sequence, timestamp, latitude, longitude, accuracy, speed) ->
+                    records.add(new double[]{sequence, timestamp, latitude, longitude, accuracy, speed}));
+            assertEquals(2, records.size());
+            assertArrayEquals(new double[]{1, 2000, 30.6, 31.35, 3.5, 13}, records.get(1), 0);
+        }
+    }
+
+    @Test
+    public void acknowledgedRecordsAreNotReadAgain() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            appendPoints(journal, 0, 5);
+            assertTrue(journal.acknowledge(0, 3));
+            assertEquals(2, journal.getPendingCount());
+            assertEquals(3, readAll(journal).get(0)[0]);
+        }
+    }
+
+    @Test
+    public void acknowledgeNeverSkipsAGap() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            appendPoints(journal, 0, 6);
+            assertFalse(journal.acknowledge(3, 6));
+            assertEquals(0, journal.getAckedSequence());
+            assertTrue(journal.acknowledge(0, 3));
+            assertTrue(journal.acknowledge(3, 6));
+            assertEquals(0, journal.getPendingCount());
+        }
+    }
+
+    @Test
+    public void reopenKeepsCursors() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            appendPoints(journal, 0, 4);
+            journal.acknowledge(0, 2);
+        }
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            assertEquals(2, journal.getAckedSequence());
+            assertEquals(4, journal.getWriteSequence());
+            assertEquals(4, journal.append(9000, 30, 31, 1f, 0f));
+        }
+    }
+
+    @Test
+    public void recoversRecordsWrittenAfterHeaderUpdate() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            appendPoints(journal, 0, 5);
+        }
+        // Simulate a crash that lost the last two header updates
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(32);
+            raf.writeLong(3);
+        }
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            assertEquals(5, journal.getWriteSequence());
+            assertEquals(5, readAll(journal).size());
+        }
+    }
+
+    @Test
+    public void tornRecordIsIgnoredOnRecovery() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            appendPoints(journal, 0, 3);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(32);
+            raf.writeLong(1);
+            // Corrupt the payload of record 2
+            raf.seek(64 + 2 * LocationJournal.RECORD_SIZE + 8);
+            raf.writeLong(42);
+        }
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            assertEquals(2, journal.getWriteSequence());
+        }
+    }
+
+    @Test
+    public void growsWhenNothingIsAcknowledged() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 4)) {
+            appendPoints(journal, 0, 20);
+            List<long[]> records = readAll(journal);
+            assertEquals(20, records.size());
+            assertEquals(19000, records.get(19)[1]);
+        }
+    }
+
+    @Test
+    public void compactionReusesAcknowledgedSpace() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            appendPoints(journal, 0, 8);
+            journal.acknowledge(0, 6);
+            long lengthBefore = file.length();
+
+            appendPoints(journal, 8, 12);
+            assertEquals(lengthBefore, file.length());
+
+            List<long[]> records = readAll(journal);
+            assertEquals(6, records.size());
+            assertEquals(6, records.get(0)[0]);
+            assertEquals(11000, records.get(5)[1]);
+        }
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            assertEquals(6, journal.getAckedSequence());
+            assertEquals(12, journal.getWriteSequence());
+            assertEquals(30000008, readAll(journal).get(2)[2]);
+        }
+    }
+
+    @Test
+    public void compactionShrinksGrownFile() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 4)) {
+            appendPoints(journal, 0, 16);
+            journal.acknowledge(0, 15);
+            assertTrue(journal.compact());
+            assertEquals(64 + 4 * LocationJournal.RECORD_SIZE, file.length());
+            assertEquals(15, readAll(journal).get(0)[0]);
+        }
+    }
+
+    @Test
+    public void recordsKeepTheirTripAcrossReopenAndCompaction() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            journal.append("tripA", 1000, 30, 31, 5f, 10f);
+            journal.append("tripA", 2000, 30, 31, 5f, 10f);
+            journal.append(3000, 30, 31, 5f, 10f);
+            journal.append("tripB", 4000, 30, 31, 5f, 10f);
+            assertEquals("tripA", journal.getTripId(1));
+            assertNull(journal.getTripId(2));
+            assertEquals("tripB", journal.getTripId(3));
+        }
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            assertEquals(4, journal.getWriteSequence());
+            assertEquals("tripA", journal.getTripId(0));
+            journal.acknowledge(0, 2);
+            assertTrue(journal.compact());
+            assertNull(journal.getTripId(2));
+            assertEquals("tripB", journal.getTripId(3));
+        }
+    }
+
+    @Test
+    public void tornTripIdIsIgnoredOnRecovery() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            journal.append("tripA", 1000, 30, 31, 5f, 10f);
+            journal.append("tripA", 2000, 30, 31, 5f, 10f);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(32);
+            raf.writeLong(1);
+            // Change the trip of record 1 without updating its checksum
+            raf.seek(64 + LocationJournal.RECORD_SIZE + 41);
+            raf.write('B');
+        }
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            assertEquals(1, journal.getWriteSequence());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTripIdTooLongForRecord() throws IOException {
+        try (LocationJournal journal = LocationJournal.open(file, 8)) {
+            StringBuilder id = new StringBuilder();
+            for (int i = 0; i <= LocationJournal.MAX_TRIP_ID_BYTES; i++) id.append('x');
+            journal.append(id.toString(), 1000, 30, 31, 5f, 10f);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(new byte[256]);
+        }
+        LocationJournal.open(file, 8).close();
+    }
+}
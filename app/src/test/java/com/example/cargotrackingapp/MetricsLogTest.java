@@ -0,0 +1,62 @@
+package com.example.cargotrackingapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsLogTest {
+
+    private File dir;
+    private MetricsLog log;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("metrics", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        log = new MetricsLog(new File(dir, "metrics.jsonl"), 100);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File file : files) assertTrue(file.delete());
+        assertTrue(dir.delete());
+    }
+
+    @Test
+    public void pendingLinesSurviveUntilCommitted() throws IOException {
+        log.append("{\"a\":1}");
+        log.append("{\"a\":2}");
+        assertEquals(Arrays.asList("{\"a\":1}", "{\"a\":2}"), log.takePending());
+
+        // Logged during a failed upload: kept for the next one
+        log.append("{\"a\":3}");
+        assertEquals(Arrays.asList("{\"a\":1}", "{\"a\":2}"), log.takePending());
+
+        log.commitPending();
+        assertEquals(Collections.singletonList("{\"a\":3}"), log.takePending());
+        log.commitPending();
+        assertTrue(log.takePending().isEmpty());
+        assertTrue(log.readAll().isEmpty());
+    }
+
+    @Test
+    public void rotationBoundsTheFile() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            log.append("{\"line\":" + i + "}");
+        }
+        List<String> lines = log.readAll();
+        // At most two files of a little over 100 bytes each are kept, newest last
+        assertTrue(lines.size() < 20);
+        assertEquals("{\"line\":99}", lines.get(lines.size() - 1));
+        assertEquals(lines, log.takePending());
+    }
+}
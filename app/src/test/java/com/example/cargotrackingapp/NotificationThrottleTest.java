@@ -0,0 +1,57 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NotificationThrottleTest {
+
+    @Test
+    public void firstUpdatePostsImmediately() {
+        NotificationThrottle throttle = new NotificationThrottle(10000);
+        assertEquals(0, throttle.offer(1000));
+        assertEquals(1, throttle.getPostCount());
+    }
+
+    @Test
+    public void updatesInsideIntervalCollapseIntoOneDeferredPost() {
+        NotificationThrottle throttle = new NotificationThrottle(10000);
+        throttle.offer(0);
+        assertEquals(8000, throttle.offer(2000));
+        assertTrue(throttle.isDeferred());
+        assertEquals(NotificationThrottle.ALREADY_SCHEDULED, throttle.offer(3000));
+        assertEquals(NotificationThrottle.ALREADY_SCHEDULED, throttle.offer(9000));
+
+        throttle.onDeferredPost(10000);
+        assertFalse(throttle.isDeferred());
+        assertEquals(2, throttle.getPostCount());
+        assertEquals(4, throttle.getOfferedCount());
+    }
+
+    @Test
+    public void postRateIsBoundedForOneFixPerSecond() {
+        NotificationThrottle throttle = new NotificationThrottle(10000);
+        long pendingAt = -1;
+        for (long now = 0; now < 600000; now += 1000) {
+            if (pendingAt >= 0 && now >= pendingAt) {
+                throttle.onDeferredPost(now);
+                pendingAt = -1;
+            }
+            long delay = throttle.offer(now);
+            if (delay > 0) pendingAt = now + delay;
+        }
+        // 600 fixes over ten minutes, at most one post per 10 s
+        assertEquals(600, throttle.getOfferedCount());
+        assertTrue(throttle.getPostCount() <= 61);
+        assertTrue(throttle.getPostCount() >= 59);
+    }
+
+    @Test
+    public void resetAllowsImmediatePost() {
+        NotificationThrottle throttle = new NotificationThrottle(10000);
+        throttle.offer(0);
+        throttle.offer(100);
+        throttle.reset();
+        assertEquals(0, throttle.offer(200));
+    }
+}
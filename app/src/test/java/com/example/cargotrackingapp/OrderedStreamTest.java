@@ -0,0 +1,104 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class OrderedStreamTest {
+
+    // Executor that runs tasks only when drained, like a busy main thread
+    private static final class QueuedExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+        }
+    }
+
+    @Test
+    public void burstReachesTrackStoreInFull() {
+        OrderedStream<LocationPoint> stream = new OrderedStream<>(1024);
+        QueuedExecutor main = new QueuedExecutor();
+        TrackPointStore store = new TrackPointStore(1000, new double[]{0, 10}, null);
+        stream.subscribe(main, point -> store.add(point.timestamp, point.latitude, point.longitude));
+
+        // A batched LocationResult drained back to back, faster than the main thread runs
+        for (int i = 0; i < 200; i++) {
+            stream.publish(new LocationPoint(52 + i * 0.00001, 13, 1000L * i, 5f, 10f));
+        }
+        assertEquals(1, main.tasks.size());
+        main.drain();
+
+        assertEquals(200, store.size(0));
+        assertEquals(200, store.getAddedCount());
+        for (int i = 0; i < 200; i++) assertEquals(1000L * i, store.getTimestamp(0, i));
+    }
+
+    @Test
+    public void newSubscriberReceivesRetainedValuesInOrder() {
+        OrderedStream<Integer> stream = new OrderedStream<>(4);
+        for (int i = 1; i <= 6; i++) stream.publish(i);
+        List<Integer> received = new ArrayList<>();
+        stream.subscribe(Runnable::run, received::add);
+        stream.publish(7);
+        assertEquals(Arrays.asList(3, 4, 5, 6, 7), received);
+    }
+
+    @Test
+    public void clearDropsRetainedAndUndeliveredValues() {
+        OrderedStream<Integer> stream = new OrderedStream<>(8);
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        stream.subscribe(executor, received::add);
+        stream.publish(1);
+        stream.publish(2);
+        stream.clear();
+        stream.publish(3);
+        executor.drain();
+        assertEquals(1, received.size());
+        assertEquals(3, (int) received.get(0));
+
+        List<Integer> late = new ArrayList<>();
+        stream.subscribe(Runnable::run, late::add);
+        assertEquals(received, late);
+    }
+
+    @Test
+    public void laggingSubscriberSkipsOnlyOverwrittenValues() {
+        OrderedStream<Integer> stream = new OrderedStream<>(4);
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        ConflatedStream.Subscription subscription = stream.subscribe(executor, received::add);
+        for (int i = 1; i <= 10; i++) stream.publish(i);
+        executor.drain();
+        assertEquals(Arrays.asList(7, 8, 9, 10), received);
+        assertEquals(6, stream.getSkippedCount(subscription));
+    }
+
+    @Test
+    public void cancelStopsDeliveries() {
+        OrderedStream<Integer> stream = new OrderedStream<>(8);
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        ConflatedStream.Subscription subscription = stream.subscribe(executor, received::add);
+        stream.publish(1);
+        subscription.cancel();
+        stream.publish(2);
+        executor.drain();
+        assertTrue(received.isEmpty());
+        assertEquals(0, stream.getSubscriberCount());
+    }
+}
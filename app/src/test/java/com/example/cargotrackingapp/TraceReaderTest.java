@@ -0,0 +1,76 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TraceReaderTest {
+
+    @Test
+    public void readsCsvWithHeaderAndOptionalColumns() throws IOException {
+        String csv = "timestamp,latitude,longitude,accuracy,speed\n"
+                + "1700000000000,30.0444,31.2357,4.5,12.5\n"
+                + "# comment\n"
+                + "\n"
+                + "2023-11-14T22:13:25Z,30.0450,31.2360\n"
+                + "1700000010000,30.0460,31.2365,,3\n";
+        List<LocationPoint> points = TraceReader.readCsv(new StringReader(csv));
+
+        assertEquals(3, points.size());
+        assertEquals(1700000000000L, points.get(0).timestamp);
+        assertEquals(30.0444, points.get(0).latitude, 1e-9);
+        assertEquals(4.5f, points.get(0).accuracy, 0);
+        assertEquals(12.5f, points.get(0).speed, 0);
+        assertEquals(1700000005000L, points.get(1).timestamp);
+        assertTrue(Float.isNaN(points.get(1).accuracy));
+        assertTrue(Float.isNaN(points.get(2).accuracy));
+        assertEquals(3f, points.get(2).speed, 0);
+    }
+
+    @Test
+    public void reportsBadCsvLine() {
+        try {
+            TraceReader.readCsv(new StringReader("1700000000000,30.0,31.0\n1700000001000,north,31.0\n"));
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2"));
+        }
+    }
+
+    @Test
+    public void readsGpxTrackPoints() throws IOException {
+        String gpx = "<?xml version=\"1.0\"?>\n"
+                + "<gpx version=\"1.1\" xmlns=\"http://www.topografix.com/GPX/1/1\""
+                + " xmlns:tpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v2\">\n"
+                + "<wpt lat=\"1\" lon=\"2\"><time>2023-11-14T22:00:00Z</time></wpt>\n"
+                + "<trk><trkseg>\n"
+                + "<trkpt lat=\"30.0444\" lon=\"31.2357\"><ele>20</ele><time>2023-11-14T22:13:20Z</time>"
+                + "<hdop>1.2</hdop></trkpt>\n"
+                + "<trkpt lat=\"30.0450\" lon=\"31.2360\"><time>2023-11-14T22:13:25.500Z</time>"
+                + "<extensions><tpx:TrackPointExtension><tpx:speed>8.5</tpx:speed>"
+                + "</tpx:TrackPointExtension></extensions></trkpt>\n"
+                + "</trkseg></trk></gpx>\n";
+        List<LocationPoint> points = TraceReader.readGpx(
+                new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, points.size());
+        assertEquals(1700000000000L, points.get(0).timestamp);
+        assertEquals(31.2357, points.get(0).longitude, 1e-9);
+        assertEquals(6f, points.get(0).accuracy, 1e-5);
+        assertTrue(Float.isNaN(points.get(0).speed));
+        assertEquals(1700000005500L, points.get(1).timestamp);
+        assertEquals(8.5f, points.get(1).speed, 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsGpxPointWithoutTime() throws IOException {
+        String gpx = "<gpx><trk><trkseg><trkpt lat=\"30\" lon=\"31\"></trkpt></trkseg></trk></gpx>";
+        TraceReader.readGpx(new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrackPointStoreTest {
+
+    // About 1.1 m of latitude per step
+    private static final double STEP = 0.00001;
+
+    @Test
+    public void coarseTiersKeepPointsAtTheirSpacing() {
+        TrackPointStore store = new TrackPointStore(1000, new double[]{0, 10, 100}, null);
+        for (int i = 0; i < 900; i++) store.add(i * 1000L, 52 + i * STEP, 13);
+
+        assertEquals(900, store.size(0));
+        // About 1 km of road: one point every ~10 m and every ~100 m
+        assertTrue(store.size(1) >= 85 && store.size(1) <= 100);
+        assertTrue(store.size(2) >= 9 && store.size(2) <= 11);
+        for (int i = 1; i < store.size(2); i++) {
+            double gap = Geodesy.haversine(store.getLatitude(2, i - 1), store.getLongitude(2, i - 1),
+                    store.getLatitude(2, i), store.getLongitude(2, i));
+            assertTrue(gap >= 100);
+        }
+    }
+
+    @Test
+    public void fullRingOverwritesOldestWithoutSpill() {
+        TrackPointStore store = new TrackPointStore(100, new double[]{0}, null);
+        for (int i = 0; i < 250; i++) store.add(i, 52 + i * STEP, 13);
+
+        assertEquals(100, store.size(0));
+        assertEquals(150, store.getTimestamp(0, 0));
+        assertEquals(249, store.getTimestamp(0, 99));
+        assertEquals(250, store.getAddedCount());
+    }
+
+    @Test
+    public void oldestPointsSpillInOrderBeforeBeingDropped() {
+        List<Long> spilled = new ArrayList<>();
+        TrackPointStore store = new TrackPointStore(80, new double[]{0, 50}, (times, lats, lons, count) -> {
+            for (int i = 0; i < count; i++) spilled.add(times[i]);
+        });
+        for (int i = 0; i < 1000; i++) store.add(i, 52 + i * STEP, 13);
+
+        assertEquals(spilled.size(), store.getSpilledCount());
+        assertEquals(1000, spilled.size() + store.size(0));
+        for (int i = 0; i < spilled.size(); i++) assertEquals(i, (long) spilled.get(i));
+        assertEquals(spilled.size(), store.getTimestamp(0, 0));
+        assertEquals(999, store.getTimestamp(0, store.size(0) - 1));
+    }
+
+    @Test
+    public void zoomingOutSelectsCoarserTiers() {
+        TrackPointStore store = new TrackPointStore(100, new double[]{0, 10, 40, 160}, null);
+        assertEquals(0, store.tierFor(TrackPointStore.metresPerPixel(52, 18)));
+        assertEquals(3, store.tierFor(TrackPointStore.metresPerPixel(52, 8)));
+        int previous = 0;
+        for (int zoom = 20; zoom >= 2; zoom--) {
+            int tier = store.tierFor(TrackPointStore.metresPerPixel(52, zoom));
+            assertTrue(tier >= previous);
+            previous = tier;
+        }
+    }
+
+    @Test
+    public void footprintDoesNotGrowWithTrackLength() {
+        TrackPointStore store = TrackPointStore.forMap(null);
+        long footprint = store.getFootprintBytes();
+        for (int i = 0; i < 100000; i++) store.add(i * 1000L, 52 + i * STEP, 13 + i * STEP);
+        assertEquals(footprint, store.getFootprintBytes());
+        assertEquals(store.getCapacity(), store.size(0));
+    }
+}
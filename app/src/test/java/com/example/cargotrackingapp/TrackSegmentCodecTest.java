@@ -0,0 +1,133 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TrackSegmentCodecTest {
+
+    private static final double COORDINATE_TOLERANCE = 0.5e-6;
+
+    @Test
+    public void roundTripsRandomSegments() throws IOException {
+        for (long seed = 0; seed < 200; seed++) {
+            Random random = new Random(seed);
+            List<LocationPoint> points = randomSegment(random, random.nextInt(300));
+            assertRoundTrip(points, TrackSegmentCodec.decode(TrackSegmentCodec.encode(points)));
+        }
+    }
+
+    @Test
+    public void roundTripsExtremes() throws IOException {
+        List<LocationPoint> points = new ArrayList<>();
+        points.add(new LocationPoint(90, 180, 0, 0f, 0f));
+        points.add(new LocationPoint(-90, -180, Long.MAX_VALUE / 2, Float.NaN, Float.NaN));
+        points.add(new LocationPoint(0, 179.999999, 1, 1e9f, 500f)); // Time runs backwards
+        points.add(new LocationPoint(0, -179.999999, 2, 4.25f, 13.35f)); // Across the antimeridian
+        List<LocationPoint> decoded = TrackSegmentCodec.decode(TrackSegmentCodec.encode(points));
+
+        assertEquals(4, decoded.size());
+        assertEquals(Long.MAX_VALUE / 2, decoded.get(1).timestamp);
+        assertEquals(1, decoded.get(2).timestamp);
+        assertTrue(Float.isNaN(decoded.get(1).accuracy));
+        assertTrue(Float.isNaN(decoded.get(1).speed));
+        assertEquals(0f, decoded.get(0).accuracy, 0);
+        assertEquals(4.3f, decoded.get(3).accuracy, 0.06f);
+        assertEquals(-179.999999, decoded.get(3).longitude, COORDINATE_TOLERANCE);
+    }
+
+    @Test
+    public void arrayAndListEncodingsMatch() {
+        List<LocationPoint> points = randomSegment(new Random(7), 100);
+        long[] times = new long[100];
+        double[] lats = new double[100];
+        double[] lons = new double[100];
+        float[] accuracies = new float[100];
+        float[] speeds = new float[100];
+        for (int i = 0; i < 100; i++) {
+            LocationPoint p = points.get(i);
+            times[i] = p.timestamp;
+            lats[i] = p.latitude;
+            lons[i] = p.longitude;
+            accuracies[i] = p.accuracy;
+            speeds[i] = p.speed;
+        }
+        assertArrayEquals(TrackSegmentCodec.encode(points),
+                TrackSegmentCodec.encode(times, lats, lons, accuracies, speeds, 100));
+    }
+
+    @Test
+    public void emptySegment() throws IOException {
+        byte[] data = TrackSegmentCodec.encode(Collections.<LocationPoint>emptyList());
+        assertEquals(0, TrackSegmentCodec.count(data));
+        assertTrue(TrackSegmentCodec.decode(data).isEmpty());
+    }
+
+    @Test
+    public void truckTraceIsCompact() throws IOException {
+        List<LocationPoint> points = randomSegment(new Random(42), 1000);
+        byte[] data = TrackSegmentCodec.encode(points);
+        assertEquals(1000, TrackSegmentCodec.count(data));
+        // Raw fields alone are 32 bytes per point
+        assertTrue("bytes/point " + data.length / 1000.0, data.length < 1000 * 12);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedData() throws IOException {
+        byte[] data = TrackSegmentCodec.encode(randomSegment(new Random(3), 10));
+        byte[] truncated = new byte[data.length - 1];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        TrackSegmentCodec.decode(truncated);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownVersion() throws IOException {
+        byte[] data = TrackSegmentCodec.encode(randomSegment(new Random(3), 10));
+        data[0] = 99;
+        TrackSegmentCodec.decode(data);
+    }
+
+    // Truck-like movement every 5-10 s with occasional missing accuracy or speed
+    private static List<LocationPoint> randomSegment(Random random, int size) {
+        List<LocationPoint> points = new ArrayList<>(size);
+        double lat = -60 + random.nextDouble() * 120;
+        double lon = -180 + random.nextDouble() * 360;
+        long time = 1_700_000_000_000L + random.nextInt(1_000_000);
+        for (int i = 0; i < size; i++) {
+            time += 5000 + random.nextInt(5000);
+            lat += (random.nextDouble() - 0.5) * 0.002;
+            lon += (random.nextDouble() - 0.5) * 0.002;
+            float accuracy = random.nextInt(20) == 0 ? Float.NaN : 3 + random.nextFloat() * 20;
+            float speed = random.nextInt(20) == 0 ? Float.NaN : random.nextFloat() * 30;
+            points.add(new LocationPoint(lat, lon, time, accuracy, speed));
+        }
+        return points;
+    }
+
+    private static void assertRoundTrip(List<LocationPoint> expected, List<LocationPoint> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            LocationPoint e = expected.get(i);
+            LocationPoint a = actual.get(i);
+            assertEquals(e.timestamp, a.timestamp);
+            assertEquals(e.latitude, a.latitude, COORDINATE_TOLERANCE);
+            assertEquals(e.longitude, a.longitude, COORDINATE_TOLERANCE);
+            assertQuantized(e.accuracy, a.accuracy);
+            assertQuantized(e.speed, a.speed);
+        }
+    }
+
+    private static void assertQuantized(float expected, float actual) {
+        if (Float.isNaN(expected)) {
+            assertTrue(Float.isNaN(actual));
+        } else {
+            assertEquals(expected, actual, 0.051f);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TrackSimplifierTest {
+
+    private static final double METRES_PER_DEGREE = 6371008.8 * Math.PI / 180;
+
+    // Straight eastward line with small perpendicular noise and one 200 m detour
+    private static double[][] noisyLineWithDetour(int count) {
+        Random random = new Random(42);
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++) {
+            double noise = (random.nextDouble() - 0.5) * 2 / METRES_PER_DEGREE; // +-1 m
+            lats[i] = 30 + noise + (i == count / 2 ? 200 / METRES_PER_DEGREE : 0);
+            lons[i] = 31 + i * 10 / METRES_PER_DEGREE;
+        }
+        return new double[][]{lats, lons};
+    }
+
+    @Test
+    public void douglasPeuckerKeepsEndpointsAndDetour() {
+        double[][] track = noisyLineWithDetour(1001);
+        int[] kept = new int[1001];
+        int count = TrackSimplifier.douglasPeucker(track[0], track[1], 1001, 5, kept);
+
+        assertEquals(0, kept[0]);
+        assertEquals(1000, kept[count - 1]);
+        assertTrue("should drop noise, kept " + count, count <= 8);
+        boolean hasDetour = false;
+        for (int i = 0; i < count; i++) hasDetour |= kept[i] == 500;
+        assertTrue(hasDetour);
+    }
+
+    @Test
+    public void visvalingamKeepsEndpointsAndDetour() {
+        double[][] track = noisyLineWithDetour(1001);
+        int[] kept = new int[1001];
+        int count = TrackSimplifier.visvalingam(track[0], track[1], 1001, 5, kept);
+
+        assertEquals(0, kept[0]);
+        assertEquals(1000, kept[count - 1]);
+        assertTrue("should drop noise, kept " + count, count < 1001 / 3);
+        boolean hasDetour = false;
+        for (int i = 0; i < count; i++) hasDetour |= kept[i] == 500;
+        assertTrue(hasDetour);
+    }
+
+    @Test
+    public void zeroToleranceKeepsCorners() {
+        double[] lats = {30, 30, 30.001, 30.001};
+        double[] lons = {31, 31.001, 31.001, 31.002};
+        int[] kept = new int[4];
+        assertEquals(4, TrackSimplifier.douglasPeucker(lats, lons, 4, 0, kept));
+        assertEquals(4, TrackSimplifier.visvalingam(lats, lons, 4, 0, kept));
+    }
+
+    @Test
+    public void simplifiedTrackStaysWithinTolerance() {
+        Random random = new Random(7);
+        int n = 5000;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        double heading = 0;
+        for (int i = 1; i < n; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.3;
+            lats[i] = lats[i - 1] + Math.cos(heading) * 15 / METRES_PER_DEGREE;
+            lons[i] = lons[i - 1] + Math.sin(heading) * 15 / METRES_PER_DEGREE;
+        }
+        int[] kept = new int[n];
+        int count = TrackSimplifier.douglasPeucker(lats, lons, n, 10, kept);
+        assertTrue(count < n / 3);
+
+        // Every dropped point lies within the tolerance of its simplified segment
+        for (int k = 0; k + 1 < count; k++) {
+            int a = kept[k], b = kept[k + 1];
+            for (int i = a + 1; i < b; i++) {
+                assertTrue(distanceToSegment(lats, lons, i, a, b) <= 10.001);
+            }
+        }
+    }
+
+    @Test
+    public void streamingCommitsOnlyAtTurns() {
+        TrackSimplifier.Streaming streaming = new TrackSimplifier.Streaming(5, 512);
+        // 100 points east, then 100 points north
+        for (int i = 0; i < 100; i++) streaming.add(30, 31 + i * 10 / METRES_PER_DEGREE);
+        double cornerLon = 31 + 99 * 10 / METRES_PER_DEGREE;
+        for (int i = 1; i <= 100; i++) streaming.add(30 + i * 10 / METRES_PER_DEGREE, cornerLon);
+
+        assertEquals(2, streaming.getVertexCount());
+        assertEquals(cornerLon, streaming.getLongitude(1), 1e-12);
+        assertTrue(streaming.hasTail());
+
+        streaming.finish();
+        assertEquals(3, streaming.getVertexCount());
+        assertEquals(30 + 100 * 10 / METRES_PER_DEGREE, streaming.getLatitude(2), 1e-12);
+    }
+
+    @Test
+    public void streamingWindowIsBounded() {
+        TrackSimplifier.Streaming streaming = new TrackSimplifier.Streaming(5, 16);
+        for (int i = 0; i < 100; i++) streaming.add(30, 31 + i * 1e-4);
+        // A straight line still commits a vertex every time the window fills
+        assertTrue(streaming.getVertexCount() >= 100 / 16);
+    }
+
+    private static double distanceToSegment(double[] lats, double[] lons, int p, int a, int b) {
+        double kx = METRES_PER_DEGREE * Math.cos(Math.toRadians(lats[0]));
+        double px = lons[p] * kx, py = lats[p] * METRES_PER_DEGREE;
+        double ax = lons[a] * kx, ay = lats[a] * METRES_PER_DEGREE;
+        double bx = lons[b] * kx, by = lats[b] * METRES_PER_DEGREE;
+        double dx = bx - ax, dy = by - ay;
+        double t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy)));
+        return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.cargotrackingapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrackSnapshotCacheTest {
+
+    private File file;
+    private TrackSnapshotCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("snapshot", ".bin");
+        assertTrue(file.delete());
+        cache = new TrackSnapshotCache(file);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void writtenPathIsReadBack() throws IOException {
+        assertNull(cache.read());
+
+        List<LocationPoint> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(new LocationPoint(30.0444 + i * 1e-4, 31.2357 - i * 1e-4, 1700000000000L + i * 5000,
+                    Float.NaN, Float.NaN));
+        }
+        cache.write("trip-1", points);
+        cache.write("trip-2", points.subList(50, 100));
+
+        TrackSnapshotCache.Snapshot snapshot = cache.read();
+        assertEquals("trip-2", snapshot.tripId);
+        assertEquals(50, snapshot.points.size());
+        LocationPoint last = snapshot.getLastPosition();
+        assertEquals(1700000000000L + 99 * 5000, last.timestamp);
+        assertEquals(30.0444 + 99e-4, last.latitude, 1e-6);
+        assertEquals(31.2357 - 99e-4, last.longitude, 1e-6);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void emptyOrDamagedSnapshotReadsAsNone() throws IOException {
+        cache.write("trip-1", Collections.singletonList(new LocationPoint(30, 31, 1000, 5, 0)));
+        assertNotNull(cache.read());
+        cache.write("trip-1", Collections.emptyList());
+        assertFalse(file.exists());
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        assertNull(cache.read());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cargotrackingapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class TrackSpillFileTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("spill", ".bin");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void readsBackOnlyTheChunksInView() throws IOException {
+        // A small store drives north past four chunks of 25 points, about 110 m each
+        TrackSpillFile spill = new TrackSpillFile(file);
+        TrackPointStore store = new TrackPointStore(200, new double[]{0, 50}, spill);
+        for (int i = 0; i < 300; i++) store.add(1000L * i, 30 + i * 4e-5, 31);
+        assertEquals(100, store.getSpilledCount());
+        assertEquals(99000, spill.getLastTimestamp());
+
+        // A view around points 30 to 55 meets the second and third chunks only
+        List<List<LocationPoint>> runs = spill.loadWithin(30 + 30 * 4e-5, 30.99, 30 + 55 * 4e-5, 31.01);
+        assertEquals(1, runs.size());
+        assertEquals(50, runs.get(0).size());
+        assertEquals(25000, runs.get(0).get(0).timestamp);
+        assertEquals(74000, runs.get(0).get(49).timestamp);
+
+        assertTrue(spill.loadWithin(40, 30.99, 41, 31.01).isEmpty());
+        assertEquals(4, spill.loadWithin(29, 30, 31, 32).get(0).size() / 25);
+
+        spill.clear();
+        assertTrue(spill.loadWithin(29, 30, 31, 32).isEmpty());
+    }
+
+    @Test
+    public void fileWorkRunsOnTheExecutorOnly() throws IOException {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        TrackSpillFile spill = new TrackSpillFile(file, tasks::add);
+        TrackPointStore store = new TrackPointStore(200, new double[]{0}, spill);
+        for (int i = 0; i < 250; i++) store.add(1000L * i, 30 + i * 4e-5, 31);
+        spill.clear();
+        for (int i = 250; i < 275; i++) store.add(1000L * i, 30 + i * 4e-5, 31);
+
+        // Nothing touched the file on the adding thread
+        assertFalse(file.exists());
+        assertEquals(4, tasks.size());
+
+        Runnable task;
+        while ((task = tasks.poll()) != null) task.run();
+        // Only the chunk spilled after the clear is left, with its own copy of the points
+        List<List<LocationPoint>> runs = spill.loadWithin(29, 30, 31, 32);
+        assertEquals(1, runs.size());
+        assertEquals(25, runs.get(0).size());
+        assertEquals(50000, runs.get(0).get(0).timestamp);
+        assertEquals(74000, spill.getLastTimestamp());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrackingMetricsTest {
+
+    @Test
+    public void histogramPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v++) histogram.record(v * 1000); // 1 us .. 100 ms
+
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000000L, histogram.getMax());
+        assertEquals(50000000, histogram.getPercentile(50), 50000000 * 0.04);
+        assertEquals(99000000, histogram.getPercentile(99), 99000000 * 0.04);
+        assertEquals(histogram.getMax(), histogram.getPercentile(100));
+        assertTrue(histogram.getPercentile(50) >= 50000000);
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value + " above its bucket", value <= LatencyHistogram.highestValueIn(bucket));
+            if (bucket > 0) {
+                assertTrue(value + " below its bucket", value > LatencyHistogram.highestValueIn(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void snapshotsCoverDisjointIntervals() {
+        TrackingMetrics metrics = new TrackingMetrics();
+        metrics.increment(TrackingMetrics.Counter.FIXES_RECEIVED);
+        metrics.increment(TrackingMetrics.Counter.FIXES_RECEIVED);
+        metrics.record(TrackingMetrics.Timer.MAP_REDRAW, 5000000);
+
+        TrackingMetrics.Snapshot first = metrics.snapshot(1000);
+        assertEquals(2, first.getCount(TrackingMetrics.Counter.FIXES_RECEIVED));
+        assertEquals(1, first.getTimer(TrackingMetrics.Timer.MAP_REDRAW).getCount());
+
+        metrics.increment(TrackingMetrics.Counter.FIXES_RECEIVED);
+        metrics.record(TrackingMetrics.Timer.MAP_REDRAW, 1000);
+        TrackingMetrics.Snapshot second = metrics.snapshot(61000);
+        assertEquals(1000, second.startMillis);
+        assertEquals(61000, second.endMillis);
+        assertEquals(1, second.getCount(TrackingMetrics.Counter.FIXES_RECEIVED));
+        assertEquals(1, second.getTimer(TrackingMetrics.Timer.MAP_REDRAW).getCount());
+        assertTrue(second.getTimer(TrackingMetrics.Timer.MAP_REDRAW).getMax() < 2000);
+
+        assertTrue(metrics.snapshot(62000).isEmpty());
+        assertEquals(3, metrics.getCount(TrackingMetrics.Counter.FIXES_RECEIVED));
+    }
+
+    @Test
+    public void countsRejectionsByReason() {
+        TrackingMetrics metrics = new TrackingMetrics();
+        metrics.rejected(FixFilter.Rejection.INACCURATE);
+        metrics.rejected(FixFilter.Rejection.INACCURATE);
+        metrics.rejected(FixFilter.Rejection.IMPLIED_SPEED);
+        metrics.rejected(FixFilter.Rejection.NONE);
+
+        assertEquals(2, metrics.getCount(TrackingMetrics.Counter.REJECTED_INACCURATE));
+        assertEquals(1, metrics.getCount(TrackingMetrics.Counter.REJECTED_IMPLIED_SPEED));
+        assertEquals(0, metrics.getCount(TrackingMetrics.Counter.REJECTED_NULL_ISLAND));
+    }
+
+    @Test
+    public void snapshotJsonLeavesOutEmptyEntries() {
+        TrackingMetrics metrics = new TrackingMetrics();
+        metrics.add(TrackingMetrics.Counter.POINTS_PERSISTED, 50);
+        metrics.record(TrackingMetrics.Timer.FIRESTORE_ROUND_TRIP, 120000000);
+
+        String json = metrics.snapshot(5000).toJson();
+        assertTrue(json, json.startsWith("{\"start\":5000,\"end\":5000,\"counters\":{\"POINTS_PERSISTED\":50}"));
+        assertTrue(json, json.contains("\"timers\":{\"FIRESTORE_ROUND_TRIP\":[1,"));
+        assertFalse(json, json.contains("MAP_REDRAW"));
+    }
+
+    @Test
+    public void measuredSinkRecordsRoundTripAndPersistedAge() {
+        TrackingMetrics metrics = new TrackingMetrics();
+        InMemoryLocationSink inner = new InMemoryLocationSink(false);
+        MeasuredSink sink = new MeasuredSink(inner, metrics, TrackingMetrics.Timer.FIRESTORE_ROUND_TRIP,
+                TrackingMetrics.Timer.FIX_TO_PERSISTED, () -> 10000);
+        sink.write(java.util.Arrays.asList(
+                new LocationPoint(30, 31, 4000, 5f, 1f),
+                new LocationPoint(30, 31, 7000, 5f, 1f)), (success, error) -> assertTrue(success));
+
+        TrackingMetrics.Snapshot snapshot = metrics.snapshot(10000);
+        assertEquals(2, snapshot.getCount(TrackingMetrics.Counter.POINTS_PERSISTED));
+        assertEquals(1, snapshot.getTimer(TrackingMetrics.Timer.FIRESTORE_ROUND_TRIP).getCount());
+        LatencyHistogram.Snapshot persisted = snapshot.getTimer(TrackingMetrics.Timer.FIX_TO_PERSISTED);
+        assertEquals(2, persisted.getCount());
+        assertEquals(6000000000L, persisted.getMax(), 6000000000L * 0.04);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TripAnalyzerTest {
+
+    private static final double METRES_PER_DEGREE = 6371008.8 * Math.PI / 180;
+
+    private final List<TripAnalyzer.Stop> stops = new ArrayList<>();
+    private final List<TripAnalyzer.Leg> legs = new ArrayList<>();
+
+    private final TripAnalyzer.Listener listener = new TripAnalyzer.Listener() {
+        @Override
+        public void onStop(TripAnalyzer.Stop stop) {
+            stops.add(stop);
+        }
+
+        @Override
+        public void onLeg(TripAnalyzer.Leg leg) {
+            legs.add(leg);
+        }
+    };
+
+    @Test
+    public void splitsDriveStopDrive() {
+        TripAnalyzer analyzer = new TripAnalyzer(50, 180000, listener);
+        List<LocationPoint> trip = driveStopDrive();
+        for (LocationPoint p : trip) analyzer.add(p.timestamp, p.latitude, p.longitude, p.speed);
+        analyzer.finish();
+
+        assertEquals(1, stops.size());
+        assertEquals(2, legs.size());
+        assertEquals(600000, stops.get(0).getDurationMillis());
+        assertEquals(1000, legs.get(0).distanceMeters, 1);
+        assertEquals(1000, legs.get(1).distanceMeters, 1);
+
+        assertEquals(600000, analyzer.getStoppedMillis());
+        assertEquals(200000, analyzer.getMovingMillis());
+        assertEquals(10, analyzer.getAverageMovingSpeed(), 0.05);
+        assertEquals(10, analyzer.getMaxSpeed(), 0.05);
+        assertEquals(analyzer.getDurationMillis(), analyzer.getMovingMillis() + analyzer.getStoppedMillis());
+    }
+
+    @Test
+    public void shortPauseIsNotAStop() {
+        TripAnalyzer analyzer = new TripAnalyzer(50, 180000, listener);
+        long t = 0;
+        double lat = 30;
+        for (int i = 0; i < 10; i++) analyzer.add(t += 10000, lat += north(100), 31, Float.NaN);
+        for (int i = 0; i < 6; i++) analyzer.add(t += 10000, lat, 31, 0f); // One minute at a light
+        for (int i = 0; i < 10; i++) analyzer.add(t += 10000, lat += north(100), 31, Float.NaN);
+        analyzer.finish();
+
+        assertTrue(stops.isEmpty());
+        assertEquals(1, legs.size());
+        assertEquals(0, analyzer.getStoppedMillis());
+        assertEquals(analyzer.getDurationMillis(), analyzer.getMovingMillis());
+    }
+
+    @Test
+    public void analysesTripsInParallel() {
+        Map<String, List<LocationPoint>> trips = new HashMap<>();
+        for (int i = 0; i < 8; i++) trips.put("trip" + i, driveStopDrive());
+        Map<String, TripAnalyzer> results = TripAnalyzer.analyzeAll(trips);
+
+        assertEquals(8, results.size());
+        for (TripAnalyzer analyzer : results.values()) {
+            assertEquals(1, analyzer.getStopCount());
+            assertEquals(2, analyzer.getLegCount());
+            assertEquals(2000, analyzer.getMovingDistanceMeters(), 2);
+        }
+    }
+
+    // 1 km north at 10 m/s, ten minutes parked, 1 km north again
+    private static List<LocationPoint> driveStopDrive() {
+        List<LocationPoint> points = new ArrayList<>();
+        long t = 0;
+        double lat = 30;
+        points.add(new LocationPoint(lat, 31, t, 5, 10));
+        for (int i = 0; i < 10; i++) points.add(new LocationPoint(lat += north(100), 31, t += 10000, 5, 10));
+        for (int i = 0; i < 60; i++) points.add(new LocationPoint(lat, 31, t += 10000, 5, 0));
+        for (int i = 0; i < 10; i++) points.add(new LocationPoint(lat += north(100), 31, t += 10000, 5, 10));
+        return points;
+    }
+
+    private static double north(double metres) {
+        return metres / METRES_PER_DEGREE;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TripPlaybackTest {
+
+    private static TripPlayback straightTrip(int points) {
+        TripPlayback playback = new TripPlayback();
+        for (int i = 0; i < points; i++) {
+            assertTrue(playback.add(1000L * i, 30.0 + i * 1e-4, 31.0));
+        }
+        return playback;
+    }
+
+    @Test
+    public void seeksAndInterpolatesBetweenFixes() {
+        TripPlayback playback = straightTrip(300000);
+        assertFalse(playback.add(5000, 0, 0)); // Not after the last point
+        assertEquals(300000, playback.size());
+
+        assertEquals(-1, playback.indexAt(-1));
+        assertEquals(0, playback.indexAt(0));
+        assertEquals(123456, playback.indexAt(123456999));
+        assertEquals(299999, playback.indexAt(Long.MAX_VALUE));
+
+        double[] position = new double[2];
+        assertEquals(123456, playback.positionAt(123456250, position));
+        assertEquals(30.0 + 123456.25e-4, position[0], 1e-9);
+        assertEquals(31.0, position[1], 0);
+
+        // Clamped to the ends
+        playback.positionAt(-5000, position);
+        assertEquals(30.0, position[0], 0);
+        playback.positionAt(Long.MAX_VALUE, position);
+        assertEquals(30.0 + 299999e-4, position[0], 1e-9);
+    }
+
+    @Test
+    public void windowIsDecimatedAndEndsAtTheNewestFix() {
+        TripPlayback playback = straightTrip(10000);
+        double[] lats = new double[100];
+        double[] lons = new double[100];
+
+        // 11 fixes, all fit
+        assertEquals(11, playback.window(989000, 1000000, 100, lats, lons));
+        assertEquals(30.0 + 990e-4, lats[0], 1e-9);
+        assertEquals(30.0 + 1000e-4, lats[10], 1e-9);
+
+        // 5000 fixes into at most 100
+        int n = playback.window(4999000, 9999000, 100, lats, lons);
+        assertTrue(n <= 100 && n >= 90);
+        assertEquals(30.0 + 9999e-4, lats[n - 1], 1e-9);
+
+        assertEquals(0, playback.window(-10000, -1, 100, lats, lons));
+    }
+
+    @Test
+    public void clockFollowsFrameTimeAtTheChosenSpeed() {
+        PlaybackClock clock = new PlaybackClock();
+        clock.setRange(0, 600000, 0);
+        clock.setSpeed(60, 0);
+        clock.play(0);
+        assertTrue(clock.isPlaying());
+        assertEquals(60000, clock.getTime(1000000000L)); // One second plays a minute
+
+        clock.pause(2000000000L);
+        assertEquals(120000, clock.getTime(9000000000L));
+
+        clock.seek(500000, 9000000000L);
+        clock.play(9000000000L);
+        assertEquals(600000, clock.getTime(11000000000L)); // Stops at the end
+        assertFalse(clock.isPlaying());
+
+        clock.play(12000000000L); // From the start again
+        assertEquals(0, clock.getTime(12000000000L));
+    }
+}
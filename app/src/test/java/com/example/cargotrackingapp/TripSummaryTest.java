@@ -0,0 +1,45 @@
+package com.example.cargotrackingapp;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TripSummaryTest {
+
+    @Test
+    public void emptySummaryHasNoBounds() {
+        TripSummary summary = new TripSummary();
+        assertEquals(0, summary.getPointCount());
+        assertNull(summary.getBounds());
+        assertFalse(summary.toMap().containsKey("minLat"));
+    }
+
+    @Test
+    public void accumulatesBoundsDistanceAndDuration() {
+        TripSummary summary = new TripSummary();
+        // Three points 0.001 degrees of latitude apart, about 111 m each
+        summary.add(1000, 30.000, 31.0);
+        summary.add(11000, 30.001, 31.0);
+        summary.add(21000, 30.002, 31.001);
+
+        assertEquals(3, summary.getPointCount());
+        assertEquals(20000, summary.getDurationMillis());
+        assertEquals(111.2 + 146.4, summary.getDistanceMeters(), 1.0);
+        assertArrayEquals(new double[]{30.000, 31.0, 30.002, 31.001}, summary.getBounds(), 0);
+
+        Map<String, Object> data = summary.toMap();
+        assertEquals(3, data.get("pointCount"));
+        assertEquals(20000L, data.get("durationMillis"));
+    }
+
+    @Test
+    public void outOfOrderPointsWidenTimeRange() {
+        TripSummary summary = new TripSummary();
+        summary.add(5000, 30, 31);
+        summary.add(1000, 30, 31);
+        assertEquals(1000, summary.getStartTime());
+        assertEquals(5000, summary.getEndTime());
+    }
+}
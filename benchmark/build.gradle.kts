@@ -0,0 +1,70 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// The code under test lives in the app module. Only sources that do not touch
+// the Android framework are compiled here, so the benchmarks run on a plain JVM.
+val sharedSources = listOf(
+    "AdaptiveSamplingScheduler.java",
+    "FixFilter.java",
+    "FixProcessor.java",
+    "FleetSimulator.java",
+    "Geodesy.java",
+    "GeoHash.java",
+    "Geofence.java",
+    "GeofenceEngine.java",
+    "GeoPointIndex.java",
+    "InMemoryLocationSink.java",
+    "JournalAcknowledgingSink.java",
+    "KalmanLocationFilter.java",
+    "LatencyHistogram.java",
+    "LocationBatchUploader.java",
+    "LocationJournal.java",
+    "LocationPoint.java",
+    "LocationSource.java",
+    "MeasuredSink.java",
+    "PipelineStats.java",
+    "PlaybackClock.java",
+    "ReplayLocationSource.java",
+    "TraceReader.java",
+    "TrackPointStore.java",
+    "TrackSegmentCodec.java",
+    "TrackSimplifier.java",
+    "TrackingMetrics.java",
+    "TripAnalyzer.java",
+    "TripPlayback.java",
+    "TripSummary.java",
+)
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(sharedSources.map { "com/example/cargotrackingapp/$it" })
+        }
+    }
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
+// Headless fleet load run, e.g.
+//   ./gradlew :benchmark:simulate --args="--trucks 500 --speedup 60 trace1.gpx trace2.csv"
+tasks.register<JavaExec>("simulate") {
+    group = "verification"
+    description = "Replays GPS traces for a fleet of virtual trucks through the fix pipeline"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.example.cargotrackingapp.FleetSimulation")
+}
@@ -0,0 +1,117 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// What LocationService does for every fix, minus the Android calls: validation and
+// outlier rejection (the implied-speed distance check), the sampling scheduler,
+// trip analysis and the map's point store. Scores are fixes per second; with the
+// gc profiler the per-fix allocation rate should stay at zero. processor runs the
+// service's own FixProcessor, geofences and batched storage included, so it
+// also allocates the points it stores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FixPipelineBenchmark {
+
+    private static final int FIXES = 10000;
+
+    private SyntheticTrace trace;
+    private final KalmanLocationFilter filter = KalmanLocationFilter.forTrucks();
+    private final AdaptiveSamplingScheduler scheduler = new AdaptiveSamplingScheduler();
+    private final TripAnalyzer analyzer = TripAnalyzer.forTrucks();
+    private final TrackPointStore store = TrackPointStore.forMap(null);
+    private final InMemoryLocationSink sink = new InMemoryLocationSink(false);
+    private long now;
+    private FixProcessor processor;
+    private LocationPoint[] fixes;
+
+    @Setup
+    public void setUp() {
+        trace = SyntheticTrace.generate(FIXES, 42, 0.02);
+        fixes = new LocationPoint[trace.size];
+        for (int i = 0; i < trace.size; i++) {
+            fixes[i] = new LocationPoint(trace.lats[i], trace.lons[i], trace.times[i],
+                    trace.accuracies[i], trace.speeds[i]);
+        }
+        processor = FixProcessor.forTrucks(() -> now, new FixProcessor.Listener() {
+            @Override
+            public void onAccepted(LocationPoint point) {
+            }
+
+            @Override
+            public void onProfileChanged(AdaptiveSamplingScheduler.Profile from,
+                                         AdaptiveSamplingScheduler.Profile to, double latitude, double longitude) {
+            }
+
+            @Override
+            public void onGeofenceEvent(GeofenceEngine.Event event) {
+            }
+        });
+        processor.addUploader(new LocationBatchUploader(sink, 50, 60000, () -> now));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIXES)
+    public int filter() {
+        filter.reset();
+        int accepted = 0;
+        for (int i = 0; i < trace.size; i++) {
+            if (filter.accept(trace.times[i], trace.lats[i], trace.lons[i], trace.accuracies[i], trace.speeds[i])) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    // Distance between consecutive fixes, the check the old validation ran per fix
+    @Benchmark
+    @OperationsPerInvocation(FIXES)
+    public double distance() {
+        double total = 0;
+        for (int i = 1; i < trace.size; i++) {
+            total += Geodesy.haversine(trace.lats[i - 1], trace.lons[i - 1], trace.lats[i], trace.lons[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIXES)
+    public int pipeline() {
+        filter.reset();
+        scheduler.reset();
+        analyzer.reset();
+        store.clear();
+        int profileChanges = 0;
+        for (int i = 0; i < trace.size; i++) {
+            long time = trace.times[i];
+            if (!filter.accept(time, trace.lats[i], trace.lons[i], trace.accuracies[i], trace.speeds[i])) continue;
+            double lat = filter.getLatitude(), lon = filter.getLongitude();
+            float speed = filter.getSpeed();
+            analyzer.add(time, lat, lon, speed);
+            if (scheduler.onFix(time, lat, lon, speed)) profileChanges++;
+            store.add(time, lat, lon);
+        }
+        return profileChanges;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIXES)
+    public long processor() {
+        processor.reset();
+        for (LocationPoint fix : fixes) {
+            now = fix.timestamp;
+            processor.process(fix);
+        }
+        processor.flush();
+        return sink.getPointCount();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cargotrackingapp;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+// Command line entry point for FleetSimulator, run with ./gradlew :benchmark:simulate.
+// Arguments: [--trucks N] [--speedup X] [--threads N] [--fixes N] [--journal DIR] [trace files]
+// Trace files are GPX or CSV; without any, each truck gets its own synthetic trace
+// of --fixes fixes with a few percent of outliers.
+public final class FleetSimulation {
+
+    private FleetSimulation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int trucks = 100;
+        double speedUp = 60;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int fixes = 2000;
+        File journalDir = null;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--trucks":
+                    trucks = Integer.parseInt(args[++i]);
+                    break;
+                case "--speedup":
+                    speedUp = Double.parseDouble(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--fixes":
+                    fixes = Integer.parseInt(args[++i]);
+                    break;
+                case "--journal":
+                    journalDir = new File(args[++i]);
+                    break;
+                default:
+                    files.add(new File(args[i]));
+            }
+        }
+
+        List<List<LocationPoint>> traces = new ArrayList<>();
+        for (File file : files) {
+            traces.add(TraceReader.read(file));
+        }
+        if (traces.isEmpty()) {
+            for (int i = 0; i < trucks; i++) {
+                traces.add(toPoints(SyntheticTrace.generate(fixes, i, 0.02)));
+            }
+        }
+
+        FleetSimulator simulator = new FleetSimulator(traces, trucks, speedUp, threads);
+        if (journalDir != null) {
+            if (!journalDir.isDirectory() && !journalDir.mkdirs()) {
+                throw new IllegalArgumentException("Cannot create " + journalDir);
+            }
+            simulator.setJournalDir(journalDir);
+        }
+        System.out.println("Replaying " + traces.size() + " traces for " + trucks + " trucks at "
+                + (speedUp == 0 ? "full speed" : speedUp + "x") + " on " + threads + " threads");
+        System.out.println(simulator.run());
+    }
+
+    private static List<LocationPoint> toPoints(SyntheticTrace trace) {
+        List<LocationPoint> points = new ArrayList<>(trace.size);
+        for (int i = 0; i < trace.size; i++) {
+            points.add(new LocationPoint(trace.lats[i], trace.lons[i], trace.times[i],
+                    trace.accuracies[i], trace.speeds[i]));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Proximity query latency as on-device history grows: the geohash index against
+// a linear scan over the same points
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeoIndexBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int points;
+
+    @Param({"2000"})
+    public double radiusMeters;
+
+    private SyntheticTrace trace;
+    private GeoPointIndex index;
+    private double centreLat, centreLon;
+
+    @Setup
+    public void setUp() {
+        trace = SyntheticTrace.generate(points, 42);
+        index = new GeoPointIndex();
+        for (int i = 0; i < trace.size; i++) {
+            index.add(trace.lats[i], trace.lons[i], trace.times[i]);
+        }
+        // A depot somewhere along the route
+        centreLat = trace.lats[trace.size / 2];
+        centreLon = trace.lons[trace.size / 2];
+        index.queryRadius(centreLat, centreLon, radiusMeters, 0, Long.MAX_VALUE); // Merge the tail up front
+    }
+
+    @Benchmark
+    public int[] indexedRadius() {
+        return index.queryRadius(centreLat, centreLon, radiusMeters, 0, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int matches = 0;
+        for (int i = 0; i < trace.size; i++) {
+            if (Geodesy.haversine(centreLat, centreLon, trace.lats[i], trace.lons[i]) <= radiusMeters) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int appendAndQuery() {
+        GeoPointIndex fresh = new GeoPointIndex();
+        for (int i = 0; i < trace.size; i++) {
+            fresh.add(trace.lats[i], trace.lons[i], trace.times[i]);
+        }
+        return fresh.queryRadius(centreLat, centreLon, radiusMeters, 0, Long.MAX_VALUE).length;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Speed of each Geodesy method in distances per second, over fix-to-fix steps of
+// a trace and over long random pairs. Accuracy against Vincenty (the ellipsoid) is
+// printed once per trial as the mean and worst relative error.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeodesyBenchmark {
+
+    private static final int POINTS = 10000;
+
+    @Param({"EQUIRECTANGULAR", "HAVERSINE", "VINCENTY"})
+    public Geodesy.Method method;
+
+    private SyntheticTrace trace;
+    private double[] pairLats, pairLons;
+    private final double[] out = new double[POINTS];
+
+    @Setup
+    public void setUp() {
+        trace = SyntheticTrace.generate(POINTS, 42);
+        Random random = new Random(7);
+        pairLats = new double[POINTS];
+        pairLons = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            pairLats[i] = (random.nextDouble() - 0.5) * 140;
+            pairLons[i] = (random.nextDouble() - 0.5) * 360;
+        }
+        System.out.printf("%n# %s: steps %s, long pairs %s%n", method,
+                error(trace.lats, trace.lons), error(pairLats, pairLons));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double steps() {
+        return Geodesy.pathLength(method, trace.lats, trace.lons, trace.size);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double[] cumulative() {
+        Geodesy.cumulativeDistances(method, trace.lats, trace.lons, trace.size, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double longPairs() {
+        return Geodesy.pathLength(method, pairLats, pairLons, POINTS);
+    }
+
+    private String error(double[] lats, double[] lons) {
+        double sum = 0, worst = 0;
+        int count = 0;
+        for (int i = 1; i < lats.length; i++) {
+            double reference = Geodesy.vincenty(lats[i - 1], lons[i - 1], lats[i], lons[i]);
+            if (reference == 0) continue;
+            double error = Math.abs(Geodesy.distance(method, lats[i - 1], lons[i - 1], lats[i], lons[i])
+                    - reference) / reference;
+            sum += error;
+            worst = Math.max(worst, error);
+            count++;
+        }
+        return String.format("mean error %.4f%%, worst %.4f%%", sum / count * 100, worst * 100);
+    }
+}
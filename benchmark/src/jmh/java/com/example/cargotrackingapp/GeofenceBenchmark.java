@@ -0,0 +1,83 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-fix geofence evaluation cost: the grid-indexed engine against testing every
+// fence. Fences are a mix of circles and polygons scattered over the trace's area.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeofenceBenchmark {
+
+    private static final int FIXES = 10000;
+
+    @Param({"100", "1000"})
+    public int fences;
+
+    private SyntheticTrace trace;
+    private List<Geofence> fenceList;
+    private GeofenceEngine engine;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        trace = SyntheticTrace.generate(FIXES, 42);
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE, minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (int i = 0; i < trace.size; i++) {
+            minLat = Math.min(minLat, trace.lats[i]);
+            maxLat = Math.max(maxLat, trace.lats[i]);
+            minLon = Math.min(minLon, trace.lons[i]);
+            maxLon = Math.max(maxLon, trace.lons[i]);
+        }
+
+        Random random = new Random(7);
+        fenceList = new ArrayList<>(fences);
+        for (int i = 0; i < fences; i++) {
+            double lat = minLat + random.nextDouble() * (maxLat - minLat);
+            double lon = minLon + random.nextDouble() * (maxLon - minLon);
+            if (i % 2 == 0) {
+                fenceList.add(Geofence.circle("c" + i, "Site " + i, lat, lon, 100 + random.nextDouble() * 400));
+            } else {
+                // Irregular octagon, a few hundred metres across
+                double[] lats = new double[8], lons = new double[8];
+                for (int v = 0; v < 8; v++) {
+                    double angle = v * Math.PI / 4;
+                    double r = 0.002 + random.nextDouble() * 0.002;
+                    lats[v] = lat + Math.sin(angle) * r;
+                    lons[v] = lon + Math.cos(angle) * r;
+                }
+                fenceList.add(Geofence.polygon("p" + i, "Depot " + i, lats, lons));
+            }
+        }
+        engine = GeofenceEngine.forDepots();
+        engine.setFences(fenceList);
+    }
+
+    @Benchmark
+    public int indexed() {
+        int i = next++ % trace.size;
+        return engine.onFix(trace.times[i], trace.lats[i], trace.lons[i], event -> { });
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        int i = next++ % trace.size;
+        int inside = 0;
+        for (Geofence fence : fenceList) {
+            if (fence.contains(trace.lats[i], trace.lons[i])) inside++;
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// MainActivity's history path over large traces: filterTrackingPoints (the fix
+// filter feeding the point store) and building the polyline for a zoom level
+// (reading the matching tier and simplifying it, as onCameraIdle does).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HistoryRenderBenchmark {
+
+    private static final double DISPLAY_TOLERANCE_METERS = 3;
+
+    @Param({"10000", "100000", "1000000"})
+    public int points;
+
+    @State(Scope.Thread)
+    public static class Zoom {
+        // City streets, a region, a country
+        @Param({"16", "12", "8"})
+        public int level;
+    }
+
+    private SyntheticTrace trace;
+    private final KalmanLocationFilter filter = KalmanLocationFilter.forTrucks();
+    private final TrackPointStore store = TrackPointStore.forMap(null);
+    private double[] lats, lons;
+    private int[] kept;
+
+    @Setup
+    public void setUp() {
+        trace = SyntheticTrace.generate(points, 42, 0.02);
+        filterTrackingPoints();
+        lats = new double[store.getCapacity()];
+        lons = new double[store.getCapacity()];
+        kept = new int[store.getCapacity()];
+    }
+
+    @Benchmark
+    public int filterTrackingPoints() {
+        filter.reset();
+        store.clear();
+        int displayed = 0;
+        for (int i = 0; i < trace.size; i++) {
+            if (filter.accept(trace.times[i], trace.lats[i], trace.lons[i], trace.accuracies[i], trace.speeds[i])) {
+                if ((store.add(trace.times[i], filter.getLatitude(), filter.getLongitude()) & 1) != 0) displayed++;
+            }
+        }
+        return displayed;
+    }
+
+    @Benchmark
+    public int polylineForZoom(Zoom zoom) {
+        int tier = store.tierFor(TrackPointStore.metresPerPixel(trace.lats[0], zoom.level));
+        int n = store.size(tier);
+        for (int i = 0; i < n; i++) {
+            lats[i] = store.getLatitude(tier, i);
+            lons[i] = store.getLongitude(tier, i);
+        }
+        return TrackSimplifier.douglasPeucker(lats, lons, n, DISPLAY_TOLERANCE_METERS, kept);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-frame cost of trip playback: a seek to a random time, and a playback
+// frame (interpolated position plus the decimated trail window). Both should stay
+// flat as the trip grows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlaybackBenchmark {
+
+    private static final long TRAIL_MILLIS = 15 * 60 * 1000;
+    private static final int TRAIL_MAX_POINTS = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int points;
+
+    private TripPlayback playback;
+    private long[] seekTimes;
+    private int next = 0;
+    private final double[] position = new double[2];
+    private final double[] trailLats = new double[TRAIL_MAX_POINTS];
+    private final double[] trailLons = new double[TRAIL_MAX_POINTS];
+
+    @Setup
+    public void setUp() {
+        SyntheticTrace trace = SyntheticTrace.generate(points, 42);
+        playback = new TripPlayback();
+        for (int i = 0; i < trace.size; i++) playback.add(trace.times[i], trace.lats[i], trace.lons[i]);
+
+        Random random = new Random(7);
+        seekTimes = new long[1024];
+        long span = playback.getEndTime() - playback.getStartTime();
+        for (int i = 0; i < seekTimes.length; i++) {
+            seekTimes[i] = playback.getStartTime() + (long) (random.nextDouble() * span);
+        }
+    }
+
+    private long nextTime() {
+        long time = seekTimes[next];
+        next = (next + 1) & (seekTimes.length - 1);
+        return time;
+    }
+
+    @Benchmark
+    public double seek() {
+        playback.positionAt(nextTime(), position);
+        return position[0];
+    }
+
+    @Benchmark
+    public int frame() {
+        long time = nextTime();
+        playback.positionAt(time, position);
+        return playback.window(time - TRAIL_MILLIS, time, TRAIL_MAX_POINTS, trailLats, trailLons);
+    }
+}
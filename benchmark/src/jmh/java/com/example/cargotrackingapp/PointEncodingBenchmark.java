@@ -0,0 +1,116 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Segment codec against the previous one-map-per-point documents. Sizes are
+// printed once per trial: the map baseline is estimated with Firestore's documented
+// storage-size rules (field name length + 1, 8 bytes per number, 32 bytes per
+// document plus its name), the segment as the same overhead plus the blob.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PointEncodingBenchmark {
+
+    private static final String VEHICLE_ID = "0f8fad5b-d9cb-469f-a165-70867728950e";
+    private static final int DOCUMENT_NAME_BYTES = 16 + 20 + 1; // Collection path plus auto id
+    private static final int DOCUMENT_OVERHEAD = 32;
+
+    @Param({"50", "5000"})
+    public int points;
+
+    private List<LocationPoint> segment;
+    private byte[] encoded;
+    private List<Map<String, Object>> documents;
+
+    @Setup
+    public void setUp() {
+        SyntheticTrace trace = SyntheticTrace.generate(points, 42);
+        segment = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            segment.add(new LocationPoint(trace.lats[i], trace.lons[i], trace.times[i],
+                    trace.accuracies[i], trace.speeds[i]));
+        }
+        encoded = TrackSegmentCodec.encode(segment);
+        documents = mapPerPoint();
+
+        long mapBytes = 0;
+        for (Map<String, Object> document : documents) mapBytes += storageSize(document);
+        long segmentBytes = DOCUMENT_NAME_BYTES + DOCUMENT_OVERHEAD
+                + fieldSize("vehicleId", VEHICLE_ID) + fieldSize("startTime", 0L) + fieldSize("endTime", 0L)
+                + fieldSize("count", 0L) + "points".length() + 1 + encoded.length;
+        System.out.printf("%n# %d points: map-per-point %.1f bytes/point, segment %.1f bytes/point%n",
+                points, (double) mapBytes / points, (double) segmentBytes / points);
+    }
+
+    @Benchmark
+    public byte[] segmentEncode() {
+        return TrackSegmentCodec.encode(segment);
+    }
+
+    @Benchmark
+    public List<LocationPoint> segmentDecode() throws IOException {
+        return TrackSegmentCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mapPerPointEncode() {
+        return mapPerPoint();
+    }
+
+    @Benchmark
+    public List<LocationPoint> mapPerPointDecode() {
+        List<LocationPoint> decoded = new ArrayList<>(documents.size());
+        for (Map<String, Object> document : documents) {
+            decoded.add(new LocationPoint(
+                    ((Number) document.get("latitude")).doubleValue(),
+                    ((Number) document.get("longitude")).doubleValue(),
+                    ((Number) document.get("timestamp")).longValue(),
+                    ((Number) document.get("accuracy")).floatValue(),
+                    ((Number) document.get("speed")).floatValue()));
+        }
+        return decoded;
+    }
+
+    // The document shape the uploader used to write for every fix
+    private List<Map<String, Object>> mapPerPoint() {
+        List<Map<String, Object>> result = new ArrayList<>(segment.size());
+        for (LocationPoint point : segment) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("vehicleId", VEHICLE_ID);
+            data.put("latitude", point.latitude);
+            data.put("longitude", point.longitude);
+            data.put("timestamp", point.timestamp);
+            data.put("accuracy", point.accuracy);
+            data.put("speed", point.speed);
+            result.add(data);
+        }
+        return result;
+    }
+
+    private static long storageSize(Map<String, Object> document) {
+        long size = DOCUMENT_NAME_BYTES + DOCUMENT_OVERHEAD;
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            size += fieldSize(field.getKey(), field.getValue());
+        }
+        return size;
+    }
+
+    private static long fieldSize(String name, Object value) {
+        long valueSize = value instanceof String ? ((String) value).length() + 1 : 8;
+        return name.length() + 1 + valueSize;
+    }
+}
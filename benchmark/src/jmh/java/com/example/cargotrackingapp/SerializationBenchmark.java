@@ -0,0 +1,55 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Per-fix serialization: appending to the memory-mapped journal, acknowledged in
+// upload-sized batches as in production. Segment encoding is covered by
+// PointEncodingBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SerializationBenchmark {
+
+    private static final int FIXES = 10000;
+    private static final int ACK_BATCH = 50;
+
+    private SyntheticTrace trace;
+    private File appendFile;
+    private LocationJournal appendJournal;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        trace = SyntheticTrace.generate(FIXES, 42);
+        appendFile = File.createTempFile("append", ".journal");
+        appendFile.delete();
+        appendJournal = LocationJournal.open(appendFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        appendJournal.close();
+        appendFile.delete();
+    }
+
+    @Benchmark
+    public long journalAppend() throws IOException {
+        int i = next++ % trace.size;
+        long sequence = appendJournal.append(trace.times[i], trace.lats[i], trace.lons[i],
+                trace.accuracies[i], trace.speeds[i]);
+        if ((sequence + 1) % ACK_BATCH == 0) appendJournal.acknowledge(sequence + 1 - ACK_BATCH, sequence + 1);
+        return sequence;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cargotrackingapp;
+
+import java.util.Random;
+
+// Deterministic truck-like GPS trace: a heading random walk at road speeds with
+// stops, sampled every few seconds with metre-level jitter, optionally with the
+// glitches the fix filter has to reject mixed in
+final class SyntheticTrace {
+
+    final double[] lats;
+    final double[] lons;
+    final long[] times;
+    final float[] accuracies;
+    final float[] speeds;
+    final int size;
+
+    private SyntheticTrace(int size) {
+        this.size = size;
+        this.lats = new double[size];
+        this.lons = new double[size];
+        this.times = new long[size];
+        this.accuracies = new float[size];
+        this.speeds = new float[size];
+    }
+
+    static SyntheticTrace generate(int size, long seed) {
+        return generate(size, seed, 0);
+    }
+
+    // outlierRate of the fixes are replaced by multi-kilometre jumps, very
+    // inaccurate fixes or 0,0 in roughly equal shares
+    static SyntheticTrace generate(int size, long seed, double outlierRate) {
+        SyntheticTrace trace = new SyntheticTrace(size);
+        Random random = new Random(seed);
+        double lat = 30.0444, lon = 31.2357; // Cairo
+        double heading = random.nextDouble() * 2 * Math.PI;
+        double speed = 15;
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            long interval = 5000 + random.nextInt(5000);
+            if (random.nextInt(500) == 0) speed = 0; // Occasional stop
+            else if (speed == 0 && random.nextInt(20) == 0) speed = 5;
+            else speed = Math.max(0, Math.min(30, speed + (random.nextDouble() - 0.5) * 2));
+            heading += (random.nextDouble() - 0.5) * 0.2;
+
+            double metres = speed * interval / 1000.0;
+            lat += Math.cos(heading) * metres / Geodesy.METRES_PER_DEGREE;
+            lon += Math.sin(heading) * metres / (Geodesy.METRES_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+            time += interval;
+
+            double jitter = 3 / Geodesy.METRES_PER_DEGREE;
+            trace.lats[i] = lat + random.nextGaussian() * jitter;
+            trace.lons[i] = lon + random.nextGaussian() * jitter;
+            trace.times[i] = time;
+            trace.accuracies[i] = (float) (3 + Math.abs(random.nextGaussian()) * 8);
+            trace.speeds[i] = (float) speed;
+
+            if (random.nextDouble() < outlierRate) {
+                int kind = random.nextInt(3);
+                if (kind == 0) {
+                    double jump = (1000 + random.nextDouble() * 4000) / Geodesy.METRES_PER_DEGREE;
+                    trace.lats[i] += jump;
+                    trace.lons[i] -= jump;
+                } else if (kind == 1) {
+                    trace.accuracies[i] = 150 + random.nextInt(500);
+                } else {
+                    trace.lats[i] = 0;
+                    trace.lons[i] = 0;
+                }
+            }
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.cargotrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrackSimplifierBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int points;
+
+    @Param({"5"})
+    public double toleranceMeters;
+
+    private SyntheticTrace trace;
+    private int[] kept;
+
+    @Setup
+    public void setUp() {
+        trace = SyntheticTrace.generate(points, 42);
+        kept = new int[points];
+    }
+
+    @Benchmark
+    public int douglasPeucker() {
+        return TrackSimplifier.douglasPeucker(trace.lats, trace.lons, trace.size, toleranceMeters, kept);
+    }
+
+    @Benchmark
+    public int visvalingam() {
+        return TrackSimplifier.visvalingam(trace.lats, trace.lons, trace.size, toleranceMeters, kept);
+    }
+
+    @Benchmark
+    public int streaming() {
+        TrackSimplifier.Streaming streaming = new TrackSimplifier.Streaming(toleranceMeters, 256);
+        for (int i = 0; i < trace.size; i++) {
+            streaming.add(trace.lats[i], trace.lons[i]);
+        }
+        streaming.finish();
+        return streaming.getVertexCount();
+    }
+}
@@ -0,0 +1,47 @@
+plugins {
+    alias(libs.plugins.android.test)
+}
+
+// Startup benchmarks and baseline profile generation, run on a device against
+// the app's "benchmark" build type, e.g.
+//   ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+android {
+    namespace = "com.example.cargotrackingapp.macrobenchmark"
+    compileSdk = 35
+
+    defaultConfig {
+        minSdk = 26
+        targetSdk = 34
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    buildTypes {
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_1_8
+        targetCompatibility = JavaVersion.VERSION_1_8
+    }
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
+
+// Only the benchmark variant makes sense to run
+androidComponents {
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "benchmark"
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.cargotrackingapp.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+// Collects the startup profile on a rooted device or API 33+ emulator; copy the
+// generated file over app/src/main/baseline-prof.txt
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    private static final long MAP_TIMEOUT_MS = 10000;
+
+    @Rule
+    public BaselineProfileRule rule = new BaselineProfileRule();
+
+    @Test
+    public void startup() {
+        rule.collect(StartupBenchmark.TARGET_PACKAGE, scope -> {
+            scope.pressHome();
+            scope.startActivityAndWait();
+            // Let the map and the history restore run as well
+            scope.getDevice().wait(Until.hasObject(By.res(StartupBenchmark.TARGET_PACKAGE, "map")), MAP_TIMEOUT_MS);
+            scope.getDevice().waitForIdle();
+            return Unit.INSTANCE;
+        });
+    }
+}
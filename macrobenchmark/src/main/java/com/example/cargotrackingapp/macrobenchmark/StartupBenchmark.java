@@ -0,0 +1,62 @@
+package com.example.cargotrackingapp.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import kotlin.Unit;
+
+// Cold start of MainActivity up to the first position on screen. The activity
+// reports itself fully drawn once it draws the cached path, the first page of
+// history or a live fix, so timeToFullDisplayMs is time-to-first-position and
+// timeToInitialDisplayMs the first frame. Run on a device that has recorded a
+// trip, as there is nothing to draw otherwise; compare the two compilation modes
+// to see what the baseline profile saves.
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    static final String TARGET_PACKAGE = "com.example.cargotrackingapp";
+    private static final int ITERATIONS = 10;
+    private static final long POSITION_TIMEOUT_MS = 5000;
+    // Any latitude but the layout's placeholder
+    private static final Pattern POSITION_SHOWN = Pattern.compile("Latitude: (?!0\\.000000$).*");
+
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupWithoutCompilation() {
+        measureStartup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupWithBaselineProfile() {
+        measureStartup(new CompilationMode.Partial());
+    }
+
+    private void measureStartup(CompilationMode mode) {
+        rule.measureRepeated(TARGET_PACKAGE, Collections.singletonList(new StartupTimingMetric()), mode,
+                StartupMode.COLD, ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    scope.getDevice().wait(Until.hasObject(By.res(TARGET_PACKAGE, "tvLatitude")
+                            .text(POSITION_SHOWN)), POSITION_TIMEOUT_MS);
+                    return Unit.INSTANCE;
+                });
+    }
+}